@@ -14,7 +14,14 @@ import org.cloudburstmc.protocol.bedrock.util.EncryptionUtils;
 import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import android.util.Log;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import coelho.msftauth.api.oauth20.OAuth20Authorize;
 import coelho.msftauth.api.oauth20.OAuth20Token;
@@ -46,6 +53,17 @@ public class MsftAuthManager {
     public static final String DEFAULT_CLIENT_ID = "0000000048183522";
     public static final String DEFAULT_SCOPE = "service::user.auth.xboxlive.com::mbi_ssl";
     public static final String DEFAULT_XSTS_RELYING_PARTY = "https://multiplayer.minecraft.net/";
+    private static final String XBOX_LIVE_RELYING_PARTY = "http://xboxlive.com";
+    private static final String PLAYFAB_RELYING_PARTY = "https://b980a380.minecraft.playfabapi.com/";
+    private static final String REALMS_RELYING_PARTY = "https://pocket.realms.minecraft.net/";
+
+    private static final ExecutorService AUTH_EXECUTOR = createAuthExecutor();
+
+    private static ExecutorService createAuthExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(5, 5, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
 
    public record XboxAuthResult(XboxToken xstsToken, String gamertag, String avatarUrl, XboxDevice device) {}
 
@@ -74,6 +92,13 @@ public class MsftAuthManager {
         if (account == null || account.msUserId == null || account.msUserId.isEmpty()) {
             throw new IllegalArgumentException("No user id available for the selected account");
         }
+        XboxToken cachedUserToken = XboxTokenCache.userToken(account.msUserId);
+        String rpsTicket = MsaTokenStore.findRpsTicket(context, account.msUserId);
+        if (cachedUserToken != null && rpsTicket != null && MsaTokenStore.isAccessTokenValid(context, account.msUserId)) {
+            // The store keeps the ticket in its "t=" wire form.
+            String accessToken = rpsTicket.startsWith("t=") ? rpsTicket.substring(2) : rpsTicket;
+            return authenticate(client, context, account.msUserId, accessToken, cachedUserToken);
+        }
         String refreshToken = MsaTokenStore.findRefreshToken(context, account.msUserId);
         if (refreshToken == null || refreshToken.isEmpty()) {
             throw new IllegalArgumentException("No refresh token found in MSA store for the selected account");
@@ -97,7 +122,7 @@ public class MsftAuthManager {
         );
     }
 
-    private static XboxXSTSAuthRequest buildXstsForRP(AuthConfig cfg, String relyingParty, java.util.List<XboxToken> userTokens) {
+    private static XboxXSTSAuthRequest buildXstsForRP(AuthConfig cfg, String relyingParty, List<XboxToken> userTokens) {
         return new XboxXSTSAuthRequest(
                 relyingParty, cfg.tokenType(), cfg.sandbox(), userTokens
         );
@@ -105,49 +130,95 @@ public class MsftAuthManager {
 
     public static XboxAuthResult performXboxAuth(OkHttpClient client, OAuth20Token token,  Context context) throws Exception {
         AuthConfig cfg = AuthConfig.productionRetailJwtDefault();
-        XboxDeviceKey deviceKey = new XboxDeviceKey(context);
-        XboxDeviceAuthRequest deviceAuthReq = buildDeviceAuth(cfg, deviceKey);
-
-        XalStorageManager.saveDeviceIdentity(context, token.getUserId(), deviceKey);
-
-        XboxDeviceToken deviceToken = deviceAuthReq.request(client);
-        XalStorageManager.saveDeviceToken(context, token.getUserId(), deviceKey, deviceToken, cfg);
-        XboxDevice device = new XboxDevice(deviceKey, deviceToken);
-        XboxToken userToken = buildUserAuth(cfg, "t="  +token.getAccessToken()).request(client);
-
-        XboxToken xstsTokenMain = null;
-        try{
-            xstsTokenMain = buildXstsForRP(cfg, DEFAULT_XSTS_RELYING_PARTY, Collections.singletonList(userToken)).request(client);
-            String defaultUserId = token.getUserId();
-            XalStorageManager.saveDefaultTitleUser(context, defaultUserId);
-        }catch(Exception e){
-            XboxTitleToken titleToken = new XboxTitleAuthRequest( cfg.userAuthRP(), cfg.tokenType(), cfg.authMethodRps(), cfg.siteNameRps() ,"t=" + token.getAccessToken(),deviceToken,deviceKey).request(client);
-            XalStorageManager.saveTitleToken(context, token.getUserId(), deviceKey, titleToken, cfg);
-
-            xstsTokenMain = buildXstsForRP(cfg, DEFAULT_XSTS_RELYING_PARTY, Collections.singletonList(userToken)).request(client);
-            String defaultUserId = token.getUserId();
-            XalStorageManager.saveDefaultTitleUser(context, defaultUserId);
-        }
-        XboxToken xstsXboxLive = buildXstsForRP(cfg, "http://xboxlive.com", Collections.singletonList(userToken)).request(client);
-        XboxToken xstsPlayfab = buildXstsForRP(cfg, "https://b980a380.minecraft.playfabapi.com/", Collections.singletonList(userToken)).request(client);
-        XboxToken xstsRealms = buildXstsForRP(cfg, "https://pocket.realms.minecraft.net/", Collections.singletonList(userToken)).request(client);
-
-        UserTokenStore.save(context, deviceKey, token.getUserId(), cfg, userToken, xstsXboxLive, xstsPlayfab, xstsRealms);
+        XboxToken userToken = buildUserAuth(cfg, "t=" + token.getAccessToken()).request(client);
+        XboxTokenCache.UserTokens cached = XboxTokenCache.user(token.getUserId());
+        cached.userToken = userToken;
+        // A fresh sign-in may be a different identity behind the same id; don't reuse its old XSTS tokens.
+        cached.xsts.clear();
+        XboxAuthResult result = authenticate(client, context, token.getUserId(), token.getAccessToken(), userToken);
         MsaTokenStore.save(context, token);
+        return result;
+    }
 
-        String gamertag = null;
-        String avatarUrl = null;
-        String xuid = extractXuid(userToken);
+    /**
+     * Everything after the user token. The device token, the four relying-party XSTS exchanges
+     * and the profile lookup only depend on the user token, so they run side by side instead of
+     * one round-trip after another, and any token still in {@link XboxTokenCache} is reused.
+     */
+    private static XboxAuthResult authenticate(OkHttpClient client, Context context, String userId, String accessToken, XboxToken userToken) throws Exception {
+        AuthConfig cfg = AuthConfig.productionRetailJwtDefault();
+        XboxDeviceKey deviceKey = new XboxDeviceKey(context);
+        XalStorageManager.saveDeviceIdentity(context, userId, deviceKey);
+        List<XboxToken> userTokens = Collections.singletonList(userToken);
+        XboxTokenCache.UserTokens cached = XboxTokenCache.user(userId);
+
+        Future<XboxDeviceToken> deviceFuture = AUTH_EXECUTOR.submit(() -> {
+            XboxDeviceToken deviceToken = XboxTokenCache.deviceToken(deviceKey.getId());
+            if (deviceToken == null) {
+                deviceToken = buildDeviceAuth(cfg, deviceKey).request(client);
+                XboxTokenCache.putDeviceToken(deviceKey.getId(), deviceToken);
+            }
+            XalStorageManager.saveDeviceToken(context, userId, deviceKey, deviceToken, cfg);
+            return deviceToken;
+        });
+        Future<XboxToken> xboxLiveFuture = AUTH_EXECUTOR.submit(() -> xsts(client, cfg, userId, XBOX_LIVE_RELYING_PARTY, userTokens));
+        Future<XboxToken> playfabFuture = AUTH_EXECUTOR.submit(() -> xsts(client, cfg, userId, PLAYFAB_RELYING_PARTY, userTokens));
+        Future<XboxToken> realmsFuture = AUTH_EXECUTOR.submit(() -> xsts(client, cfg, userId, REALMS_RELYING_PARTY, userTokens));
+        Future<Pair<String, String>> profileFuture = AUTH_EXECUTOR.submit(() -> {
+            if (cached.gamertag != null && XboxTokenCache.xsts(userId, XBOX_LIVE_RELYING_PARTY) != null) {
+                return new Pair<>(cached.gamertag, cached.avatarUrl);
+            }
+            Pair<String, String> profile = fetchXboxProfile(client, await(xboxLiveFuture), extractXuid(userToken));
+            if (profile != null) {
+                cached.gamertag = profile.first;
+                cached.avatarUrl = sanitizeUrl(profile.second);
+                return new Pair<>(cached.gamertag, cached.avatarUrl);
+            }
+            return null;
+        });
 
-        Pair<String, String> profile = fetchXboxProfile(client, xstsXboxLive, xuid);
-        if (profile != null) {
-            gamertag = profile.first;
-            avatarUrl = sanitizeUrl(profile.second);
+        XboxToken xstsTokenMain;
+        try {
+            xstsTokenMain = xsts(client, cfg, userId, DEFAULT_XSTS_RELYING_PARTY, userTokens);
+        } catch (Exception e) {
+            XboxDeviceToken deviceToken = await(deviceFuture);
+            XboxTitleToken titleToken = new XboxTitleAuthRequest(cfg.userAuthRP(), cfg.tokenType(), cfg.authMethodRps(), cfg.siteNameRps(), "t=" + accessToken, deviceToken, deviceKey).request(client);
+            XalStorageManager.saveTitleToken(context, userId, deviceKey, titleToken, cfg);
+            xstsTokenMain = xsts(client, cfg, userId, DEFAULT_XSTS_RELYING_PARTY, userTokens);
         }
+        XalStorageManager.saveDefaultTitleUser(context, userId);
 
+        XboxDeviceToken deviceToken = await(deviceFuture);
+        XboxToken xstsXboxLive = await(xboxLiveFuture);
+        XboxToken xstsPlayfab = await(playfabFuture);
+        XboxToken xstsRealms = await(realmsFuture);
+        UserTokenStore.save(context, deviceKey, userId, cfg, userToken, xstsXboxLive, xstsPlayfab, xstsRealms);
+
+        Pair<String, String> profile = await(profileFuture);
+        String gamertag = profile != null ? profile.first : null;
+        String avatarUrl = profile != null ? profile.second : null;
         if (gamertag == null || gamertag.isEmpty()) gamertag = "Unknown";
 
-        return new XboxAuthResult(xstsTokenMain, gamertag, avatarUrl, device);
+        return new XboxAuthResult(xstsTokenMain, gamertag, avatarUrl, new XboxDevice(deviceKey, deviceToken));
+    }
+
+    private static XboxToken xsts(OkHttpClient client, AuthConfig cfg, String userId, String relyingParty, List<XboxToken> userTokens) throws Exception {
+        XboxToken token = XboxTokenCache.xsts(userId, relyingParty);
+        if (token == null) {
+            token = buildXstsForRP(cfg, relyingParty, userTokens).request(client);
+            XboxTokenCache.user(userId).xsts.put(relyingParty, token);
+        }
+        return token;
+    }
+
+    private static <T> T await(Future<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) throw (Exception) cause;
+            throw e;
+        }
     }
 
     public static Pair<String, String> fetchMinecraftIdentity(OkHttpClient client, XboxToken xstsToken) throws Exception {
@@ -170,6 +241,7 @@ public class MsftAuthManager {
 
    public static void saveAccount(Context ctx, OAuth20Token token, String gamertag, String minecraftUsername, String xuid, String avatarUrl) {
         MsftAccountStore.addOrUpdate(ctx, token.getUserId(), token.getRefreshToken(), gamertag, minecraftUsername, xuid, avatarUrl);
+        TokenRefreshScheduler.get(ctx).reschedule();
     }
 
     public static Pair<String, String> parseUsernameAndXuidFromChain(String chains) {
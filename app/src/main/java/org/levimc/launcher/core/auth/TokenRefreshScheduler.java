@@ -0,0 +1,197 @@
+package org.levimc.launcher.core.auth;
+
+import android.content.Context;
+import android.text.TextUtils;
+import android.util.Log;
+
+import org.levimc.launcher.core.auth.storage.MsaTokenStore;
+import org.levimc.launcher.core.auth.storage.UserTokenStore;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import coelho.msftauth.api.oauth20.OAuth20Token;
+import okhttp3.OkHttpClient;
+
+/**
+ * Keeps every stored account's tokens warm so that neither launching nor switching accounts has to
+ * wait on a full OAuth + Xbox exchange. A single background sweep reads the expiry of each account's
+ * MSA and Xbox tokens from the XAL stores, renews the ones expiring within {@link #REFRESH_AHEAD_MS}
+ * in one batch, and sleeps until the next account comes due. Renewals are spaced out with jitter,
+ * and an account that fails backs off exponentially without holding up the others.
+ */
+public class TokenRefreshScheduler {
+    private static final String TAG = "TokenRefresh";
+
+    private static final long REFRESH_AHEAD_MS = 30 * 60 * 1000L;
+    private static final long MIN_SWEEP_DELAY_MS = 60 * 1000L;
+    private static final long MAX_SWEEP_DELAY_MS = 6 * 60 * 60 * 1000L;
+    private static final long START_DELAY_MS = 5 * 1000L;
+    private static final long MAX_JITTER_MS = 5 * 1000L;
+    private static final long BASE_BACKOFF_MS = 60 * 1000L;
+    private static final long MAX_BACKOFF_MS = 60 * 60 * 1000L;
+
+    private static volatile TokenRefreshScheduler instance;
+
+    private final Context context;
+    private final ScheduledExecutorService executor;
+    private final Random random = new Random();
+    // Guarded by this; only touched from the sweep thread apart from forget().
+    private final Map<String, Backoff> backoffs = new HashMap<>();
+    private ScheduledFuture<?> pendingSweep;
+    private int generation;
+
+    private static class Backoff {
+        int failures;
+        long retryAt;
+    }
+
+    private TokenRefreshScheduler(Context context) {
+        this.context = context.getApplicationContext();
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, "TokenRefresh");
+            t.setPriority(Thread.MIN_PRIORITY);
+            t.setDaemon(true);
+            return t;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        this.executor = executor;
+    }
+
+    public static TokenRefreshScheduler get(Context context) {
+        TokenRefreshScheduler result = instance;
+        if (result == null) {
+            synchronized (TokenRefreshScheduler.class) {
+                result = instance;
+                if (result == null) {
+                    result = new TokenRefreshScheduler(context);
+                    instance = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /** Schedules the first sweep; calling it again is harmless. */
+    public synchronized void start() {
+        if (pendingSweep == null) schedule(START_DELAY_MS);
+    }
+
+    /** Re-reads the stores soon, e.g. after a sign-in wrote new tokens or an account was added. */
+    public synchronized void reschedule() {
+        schedule(START_DELAY_MS);
+    }
+
+    public synchronized void forget(String msUserId) {
+        backoffs.remove(msUserId);
+        XboxTokenCache.forget(msUserId);
+    }
+
+    private synchronized void schedule(long delayMs) {
+        if (pendingSweep != null) pendingSweep.cancel(false);
+        generation++;
+        pendingSweep = executor.schedule(this::sweep, delayMs + jitter(), TimeUnit.MILLISECONDS);
+    }
+
+    private void sweep() {
+        int sweepGeneration;
+        synchronized (this) {
+            sweepGeneration = generation;
+        }
+        long nextDue = Long.MAX_VALUE;
+        List<MsftAccountStore.MsftAccount> due = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        for (MsftAccountStore.MsftAccount account : MsftAccountStore.list(context)) {
+            if (TextUtils.isEmpty(account.msUserId)) continue;
+            long refreshAt = refreshTime(account.msUserId);
+            synchronized (this) {
+                Backoff backoff = backoffs.get(account.msUserId);
+                if (backoff != null) refreshAt = Math.max(refreshAt, backoff.retryAt);
+            }
+            if (refreshAt <= now) {
+                due.add(account);
+            } else {
+                nextDue = Math.min(nextDue, refreshAt);
+            }
+        }
+
+        OkHttpClient client = due.isEmpty() ? null : new OkHttpClient();
+        for (int i = 0; i < due.size(); i++) {
+            if (i > 0) sleepQuietly(jitter());
+            MsftAccountStore.MsftAccount account = due.get(i);
+            long refreshAt = renew(client, account);
+            nextDue = Math.min(nextDue, refreshAt);
+        }
+
+        long delay = nextDue == Long.MAX_VALUE ? MAX_SWEEP_DELAY_MS : nextDue - System.currentTimeMillis();
+        delay = Math.max(MIN_SWEEP_DELAY_MS, Math.min(MAX_SWEEP_DELAY_MS, delay));
+        synchronized (this) {
+            // reschedule() may have queued a newer sweep while this one was running.
+            if (generation == sweepGeneration) schedule(delay);
+        }
+    }
+
+    /** Renews one account and returns when it should next be looked at. */
+    private long renew(OkHttpClient client, MsftAccountStore.MsftAccount account) {
+        String userId = account.msUserId;
+        try {
+            String refreshToken = MsaTokenStore.findRefreshToken(context, userId);
+            if (TextUtils.isEmpty(refreshToken)) {
+                // Nothing to renew with; the account has to sign in again from the UI.
+                return backOff(userId);
+            }
+            // Always exchange the refresh token: refreshAndAuth would happily reuse cached tokens
+            // that are still valid but about to expire, which is exactly what this is replacing.
+            OAuth20Token token = MsftAuthManager.exchangeTokenByRefresh(client, MsftAuthManager.DEFAULT_CLIENT_ID, refreshToken, MsftAuthManager.DEFAULT_SCOPE);
+            MsftAuthManager.XboxAuthResult xbox = MsftAuthManager.performXboxAuth(client, token, context);
+            MsftAccountStore.addOrUpdate(context, userId, token.getRefreshToken(), xbox.gamertag(), null, null, xbox.avatarUrl());
+            synchronized (this) {
+                backoffs.remove(userId);
+            }
+            long refreshAt = refreshTime(userId);
+            return refreshAt > System.currentTimeMillis() ? refreshAt : System.currentTimeMillis() + MAX_SWEEP_DELAY_MS;
+        } catch (Exception e) {
+            Log.w(TAG, "Background token refresh failed", e);
+            return backOff(userId);
+        }
+    }
+
+    private synchronized long backOff(String userId) {
+        Backoff backoff = backoffs.get(userId);
+        if (backoff == null) {
+            backoff = new Backoff();
+            backoffs.put(userId, backoff);
+        }
+        long delay = Math.min(MAX_BACKOFF_MS, BASE_BACKOFF_MS << Math.min(backoff.failures, 6));
+        backoff.failures++;
+        backoff.retryAt = System.currentTimeMillis() + delay + jitter();
+        return backoff.retryAt;
+    }
+
+    /** When the account's earliest expiring token should be renewed; 0 when nothing usable is stored. */
+    private long refreshTime(String userId) {
+        long msaExpiry = MsaTokenStore.findAccessTokenExpiry(context, userId);
+        long xboxExpiry = UserTokenStore.findEarliestExpiry(context, userId);
+        if (msaExpiry <= 0L || xboxExpiry <= 0L) return 0L;
+        return Math.min(msaExpiry, xboxExpiry) - REFRESH_AHEAD_MS;
+    }
+
+    private synchronized long jitter() {
+        return (long) (random.nextDouble() * MAX_JITTER_MS);
+    }
+
+    private static void sleepQuietly(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
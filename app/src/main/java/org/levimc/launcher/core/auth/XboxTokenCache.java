@@ -0,0 +1,94 @@
+package org.levimc.launcher.core.auth;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+
+import coelho.msftauth.api.xbox.XboxDeviceToken;
+import coelho.msftauth.api.xbox.XboxToken;
+
+/**
+ * In-memory Xbox tokens for the running process, keyed by MSA user id. Tokens are handed out only
+ * while their NotAfter is more than {@link #EXPIRY_MARGIN_MS} away, so a cached token never expires
+ * halfway through a launch.
+ */
+public final class XboxTokenCache {
+    private static final long EXPIRY_MARGIN_MS = 5 * 60 * 1000L;
+
+    static final class UserTokens {
+        volatile XboxToken userToken;
+        final Map<String, XboxToken> xsts = new ConcurrentHashMap<>();
+        volatile String gamertag;
+        volatile String avatarUrl;
+    }
+
+    private static final Map<String, UserTokens> users = new ConcurrentHashMap<>();
+    private static volatile XboxDeviceToken deviceToken;
+    private static volatile String deviceKeyId;
+
+    private XboxTokenCache() {
+    }
+
+    static XboxDeviceToken deviceToken(String keyId) {
+        XboxDeviceToken token = deviceToken;
+        return token != null && keyId.equals(deviceKeyId) && isFresh(token) ? token : null;
+    }
+
+    static void putDeviceToken(String keyId, XboxDeviceToken token) {
+        deviceKeyId = keyId;
+        deviceToken = token;
+    }
+
+    static UserTokens user(String userId) {
+        return users.computeIfAbsent(userId, id -> new UserTokens());
+    }
+
+    static XboxToken userToken(String userId) {
+        UserTokens tokens = users.get(userId);
+        XboxToken token = tokens != null ? tokens.userToken : null;
+        return isFresh(token) ? token : null;
+    }
+
+    static XboxToken xsts(String userId, String relyingParty) {
+        UserTokens tokens = users.get(userId);
+        XboxToken token = tokens != null ? tokens.xsts.get(relyingParty) : null;
+        return isFresh(token) ? token : null;
+    }
+
+    public static void forget(String userId) {
+        if (userId != null) users.remove(userId);
+    }
+
+    public static void clear() {
+        users.clear();
+        deviceToken = null;
+        deviceKeyId = null;
+    }
+
+    static boolean isFresh(XboxToken token) {
+        if (token == null || token.getNotAfter() == null) return false;
+        long notAfter = notAfterMillis(token.getNotAfter());
+        return notAfter > System.currentTimeMillis() + EXPIRY_MARGIN_MS;
+    }
+
+    // NotAfter carries up to seven fractional digits ("2025-01-01T00:00:00.1234567Z"); the
+    // fraction doesn't matter against a five-minute margin, so only whole seconds are parsed.
+    public static long notAfterMillis(String value) {
+        if (value == null || value.isEmpty()) return 0L;
+        int end = value.indexOf('.');
+        if (end < 0) end = value.indexOf('Z');
+        if (end < 0) end = value.length();
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss", Locale.ROOT);
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        try {
+            Date date = format.parse(value.substring(0, end));
+            return date != null ? date.getTime() : 0L;
+        } catch (ParseException e) {
+            return 0L;
+        }
+    }
+}
@@ -144,4 +144,27 @@ public class MsaTokenStore implements XalJsonExportable {
         }
         return false;
     }
-}
\ No newline at end of file
+
+    /** When the stored access token expires, in epoch millis; 0 when there is none. */
+    public static long findAccessTokenExpiry(Context ctx, String userId) {
+        try {
+            File f = XalStorageManager.getMsaTokenFile(ctx, userId);
+            if (!f.exists()) return 0L;
+            String json = JsonIOUtils.read(f);
+            if (json == null) return 0L;
+            JsonObject obj = JsonParser.parseString(json).getAsJsonObject();
+            if (!obj.has("access_tokens") || !obj.get("access_tokens").isJsonArray()) return 0L;
+            JsonArray ats = obj.get("access_tokens").getAsJsonArray();
+            if (ats.size() == 0) return 0L;
+            JsonObject at = ats.get(0).getAsJsonObject();
+            if (!at.has("xal_expires") || at.get("xal_expires").isJsonNull()) return 0L;
+            SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
+            sdf.setTimeZone(java.util.TimeZone.getTimeZone("UTC"));
+            Date d = sdf.parse(at.get("xal_expires").getAsString());
+            return d != null ? d.getTime() : 0L;
+        } catch (Exception ex) {
+            android.util.Log.w("XALExport", "Failed to read MSA token expiry", ex);
+        }
+        return 0L;
+    }
+}
@@ -9,6 +9,7 @@ import com.google.gson.JsonObject;
 import com.google.gson.annotations.SerializedName;
 
 import org.levimc.launcher.core.auth.AuthConfig;
+import org.levimc.launcher.core.auth.XboxTokenCache;
 
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
@@ -138,6 +139,27 @@ public class UserTokenStore implements XalJsonExportable {
         org.levimc.launcher.util.JsonIOUtils.write(f, json);
     }
 
+    /** Earliest NotAfter among the stored user and XSTS tokens, in epoch millis; 0 when none are stored. */
+    public static long findEarliestExpiry(Context ctx, String msaUserId) {
+        File f = XalStorageManager.getUserTokenFile(ctx, msaUserId);
+        if (!f.exists()) return 0L;
+        try {
+            UJson root = GSON.fromJson(org.levimc.launcher.util.JsonIOUtils.read(f), UJson.class);
+            if (root == null || root.tokens == null) return 0L;
+            long earliest = 0L;
+            for (TokenEnvelope env : root.tokens) {
+                if (env == null || env.tokenData == null) continue;
+                long notAfter = XboxTokenCache.notAfterMillis(env.tokenData.notAfter);
+                if (notAfter <= 0L) return 0L;
+                if (earliest == 0L || notAfter < earliest) earliest = notAfter;
+            }
+            return earliest;
+        } catch (Exception ex) {
+            android.util.Log.w("XALExport", "Failed to read user token expiry", ex);
+        }
+        return 0L;
+    }
+
     @Override
     public String filename() {
         String tid = AuthConfig.productionRetailJwtDefault().defaultTitleTid();
@@ -0,0 +1,137 @@
+package org.levimc.launcher.core.content;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.reflect.TypeToken;
+
+import org.levimc.launcher.util.JsonIOUtils;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Parsed world and pack metadata keyed by path, remembered together with a stamp of the sizes and
+ * mtimes that parsing depended on. A hit skips reading levelname.txt, manifests and the recursive
+ * size walk.
+ */
+class ContentIndex {
+    private static final String TAG = "ContentIndex";
+    private static final String INDEX_FILE = "content_index.json";
+    private static final Gson gson = new Gson();
+
+    private static ContentIndex instance;
+
+    static class Entry {
+        String stamp;
+        String name;
+        long size;
+        long lastModified;
+        boolean valid;
+        String gameMode;
+        long lastPlayed;
+        long seed;
+        boolean hasSeed;
+        List<String> experiments;
+        String description;
+        String version;
+        String uuid;
+        String packType;
+    }
+
+    private final File indexFile;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private volatile boolean dirty;
+
+    static synchronized ContentIndex get(Context context) {
+        if (instance == null) {
+            instance = new ContentIndex(new File(context.getApplicationContext().getFilesDir(), INDEX_FILE));
+        }
+        return instance;
+    }
+
+    private ContentIndex(File indexFile) {
+        this.indexFile = indexFile;
+        String json = JsonIOUtils.read(indexFile);
+        if (json == null) return;
+        try {
+            Map<String, Entry> loaded = gson.fromJson(json, new TypeToken<HashMap<String, Entry>>() {
+            }.getType());
+            if (loaded != null) entries.putAll(loaded);
+        } catch (JsonSyntaxException e) {
+            Log.w(TAG, "Discarding corrupt content index", e);
+        }
+    }
+
+    WorldItem cachedWorld(File dir) {
+        Entry e = lookup(dir, worldStamp(dir));
+        return e != null ? new WorldItem(dir, e) : null;
+    }
+
+    WorldItem loadWorld(File dir) {
+        WorldItem item = new WorldItem(dir.getName(), dir);
+        put(dir, item.toIndexEntry(worldStamp(dir)));
+        return item;
+    }
+
+    ResourcePackItem cachedPack(File pack, ResourcePackItem.PackType defaultType) {
+        Entry e = lookup(pack, packStamp(pack));
+        return e != null ? new ResourcePackItem(pack, e, defaultType) : null;
+    }
+
+    ResourcePackItem loadPack(File pack, ResourcePackItem.PackType defaultType) {
+        ResourcePackItem item = new ResourcePackItem(pack.getName(), pack, defaultType);
+        put(pack, item.toIndexEntry(packStamp(pack)));
+        return item;
+    }
+
+    void invalidate(File file) {
+        if (entries.remove(file.getAbsolutePath()) != null) dirty = true;
+    }
+
+    synchronized void save() {
+        entries.keySet().removeIf(path -> {
+            if (new File(path).exists()) return false;
+            dirty = true;
+            return true;
+        });
+        if (!dirty) return;
+        File tmp = new File(indexFile.getPath() + ".tmp");
+        if (JsonIOUtils.write(tmp, gson.toJson(entries)) && tmp.renameTo(indexFile)) {
+            dirty = false;
+        } else {
+            tmp.delete();
+        }
+    }
+
+    private Entry lookup(File file, String stamp) {
+        Entry e = entries.get(file.getAbsolutePath());
+        return e != null && stamp.equals(e.stamp) ? e : null;
+    }
+
+    private void put(File file, Entry entry) {
+        entries.put(file.getAbsolutePath(), entry);
+        dirty = true;
+    }
+
+    // The world root is touched when level.dat is replaced; db/ when LevelDB adds or drops tables.
+    // The "w2" prefix drops entries cached before level.dat was parsed.
+    private static String worldStamp(File dir) {
+        File levelDat = new File(dir, "level.dat");
+        return "w2:" + dir.lastModified() + ":" + levelDat.lastModified() + ":" + levelDat.length() + ":"
+                + new File(dir, "levelname.txt").lastModified() + ":" + new File(dir, "db").lastModified();
+    }
+
+    private static String packStamp(File pack) {
+        if (pack.isDirectory()) {
+            File manifest = new File(pack, "manifest.json");
+            return "d:" + pack.lastModified() + ":" + manifest.lastModified() + ":" + manifest.length();
+        }
+        return "f:" + pack.lastModified() + ":" + pack.length();
+    }
+}
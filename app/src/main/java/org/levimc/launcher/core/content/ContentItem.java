@@ -20,6 +20,14 @@ public abstract class ContentItem {
         this.enabled = false;
     }
 
+    protected ContentItem(String name, File file, long size, long lastModified) {
+        this.name = name;
+        this.file = file;
+        this.size = size;
+        this.lastModified = lastModified;
+        this.enabled = false;
+    }
+
     public String getName() {
         return name;
     }
@@ -1,20 +1,30 @@
 package org.levimc.launcher.core.content;
 
 import android.content.Context;
+import android.os.SystemClock;
 
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 
 import org.levimc.launcher.core.versions.GameVersion;
 
+import java.io.File;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
 
 public class ContentManager {
+    private static final long PUBLISH_INTERVAL_MS = 100;
+
     private static ContentManager instance;
     
     private final Context context;
     private final WorldManager worldManager;
     private final ResourcePackManager resourcePackManager;
+    private final ContentIndex index;
+    private final ExecutorService refreshExecutor = Executors.newSingleThreadExecutor();
     
     private GameVersion currentVersion;
     private final MutableLiveData<List<WorldItem>> worldsLiveData = new MutableLiveData<>();
@@ -26,6 +36,7 @@ public class ContentManager {
         this.context = context.getApplicationContext();
         this.worldManager = new WorldManager(this.context);
         this.resourcePackManager = new ResourcePackManager(this.context);
+        this.index = ContentIndex.get(this.context);
     }
 
     public static synchronized ContentManager getInstance(Context context) {
@@ -49,18 +60,60 @@ public class ContentManager {
     }
 
     public void refreshWorlds() {
-        List<WorldItem> worlds = worldManager.getWorlds();
-        worldsLiveData.postValue(worlds);
+        refreshExecutor.execute(() -> publishIncrementally(worldManager.listWorldDirs(),
+                index::cachedWorld, index::loadWorld, worldsLiveData));
     }
 
     public void refreshResourcePacks() {
-        List<ResourcePackItem> resourcePacks = resourcePackManager.getResourcePacks();
-        resourcePacksLiveData.postValue(resourcePacks);
+        refreshExecutor.execute(() -> publishIncrementally(resourcePackManager.listResourcePackFiles(),
+                f -> index.cachedPack(f, ResourcePackItem.PackType.RESOURCE_PACK),
+                f -> index.loadPack(f, ResourcePackItem.PackType.RESOURCE_PACK),
+                resourcePacksLiveData));
     }
 
     public void refreshBehaviorPacks() {
-        List<ResourcePackItem> behaviorPacks = resourcePackManager.getBehaviorPacks();
-        behaviorPacksLiveData.postValue(behaviorPacks);
+        refreshExecutor.execute(() -> publishIncrementally(resourcePackManager.listBehaviorPackFiles(),
+                f -> index.cachedPack(f, ResourcePackItem.PackType.BEHAVIOR_PACK),
+                f -> index.loadPack(f, ResourcePackItem.PackType.BEHAVIOR_PACK),
+                behaviorPacksLiveData));
+    }
+
+    /**
+     * Posts every item the index still knows first, then parses the rest in listing order and
+     * re-posts at most every PUBLISH_INTERVAL_MS, so a large folder fills in instead of appearing
+     * all at once.
+     */
+    private <T extends ContentItem> void publishIncrementally(List<File> files, Function<File, T> cached,
+                                                              Function<File, T> load, MutableLiveData<List<T>> target) {
+        List<T> slots = new ArrayList<>(files.size());
+        List<Integer> misses = new ArrayList<>();
+        for (File file : files) {
+            T item = cached.apply(file);
+            if (item == null) misses.add(slots.size());
+            slots.add(item);
+        }
+        if (!misses.isEmpty()) {
+            target.postValue(visible(slots));
+            long lastPost = SystemClock.uptimeMillis();
+            for (int i : misses) {
+                slots.set(i, load.apply(files.get(i)));
+                long now = SystemClock.uptimeMillis();
+                if (now - lastPost >= PUBLISH_INTERVAL_MS) {
+                    target.postValue(visible(slots));
+                    lastPost = now;
+                }
+            }
+        }
+        target.postValue(visible(slots));
+        index.save();
+    }
+
+    private static <T extends ContentItem> List<T> visible(List<T> slots) {
+        List<T> result = new ArrayList<>(slots.size());
+        for (T item : slots) {
+            if (item != null && item.isValid()) result.add(item);
+        }
+        return result;
     }
 
     public LiveData<List<WorldItem>> getWorldsLiveData() {
@@ -84,8 +137,12 @@ public class ContentManager {
     }
 
     public void shutdown() {
+        synchronized (ContentManager.class) {
+            if (instance == this) instance = null;
+        }
         worldManager.shutdown();
         resourcePackManager.shutdown();
+        refreshExecutor.shutdown();
     }
     
     public void importWorld(android.net.Uri worldUri, WorldManager.WorldOperationCallback callback) {
@@ -158,6 +215,56 @@ public class ContentManager {
         });
     }
 
+    public List<WorldSnapshotStore.Snapshot> getSnapshots(WorldItem world) {
+        return worldManager.getSnapshots(world != null ? world.getFile().getName() : null);
+    }
+
+    public void restoreSnapshot(WorldSnapshotStore.Snapshot snapshot, WorldManager.WorldOperationCallback callback) {
+        setStatus("Restoring backup...");
+        worldManager.restoreSnapshot(snapshot, new WorldManager.WorldOperationCallback() {
+            @Override
+            public void onSuccess(String message) {
+                refreshWorlds();
+                setStatus(message);
+                if (callback != null) callback.onSuccess(message);
+            }
+
+            @Override
+            public void onError(String error) {
+                setStatus("Restore failed: " + error);
+                if (callback != null) callback.onError(error);
+            }
+
+            @Override
+            public void onProgress(int progress) {
+                if (callback != null) callback.onProgress(progress);
+            }
+        });
+    }
+
+    public void exportSnapshot(WorldSnapshotStore.Snapshot snapshot, android.net.Uri exportUri, WorldManager.WorldOperationCallback callback) {
+        setStatus("Exporting backup...");
+        worldManager.exportSnapshot(snapshot, exportUri, new WorldManager.WorldOperationCallback() {
+            @Override
+            public void onSuccess(String message) {
+                setStatus(message);
+                if (callback != null) callback.onSuccess(message);
+            }
+
+            @Override
+            public void onError(String error) {
+                setStatus("Export failed: " + error);
+                if (callback != null) callback.onError(error);
+            }
+
+            @Override
+            public void onProgress(int progress) {
+                setStatus("Exporting backup... " + progress + "%");
+                if (callback != null) callback.onProgress(progress);
+            }
+        });
+    }
+
     public void backupWorld(WorldItem world, WorldManager.WorldOperationCallback callback) {
         setStatus("Creating backup...");
         worldManager.backupWorld(world, new WorldManager.WorldOperationCallback() {
@@ -181,6 +288,23 @@ public class ContentManager {
         });
     }
 
+    public void analyzeWorld(WorldItem world, WorldManager.WorldAnalysisCallback callback) {
+        setStatus("Analyzing world...");
+        worldManager.analyzeWorld(world, new WorldManager.WorldAnalysisCallback() {
+            @Override
+            public void onResult(WorldDbAnalyzer.Report report) {
+                setStatus("Analysis complete");
+                if (callback != null) callback.onResult(report);
+            }
+
+            @Override
+            public void onError(String error) {
+                setStatus(error);
+                if (callback != null) callback.onError(error);
+            }
+        });
+    }
+
     public void importResourcePack(android.net.Uri packUri, ResourcePackManager.PackOperationCallback callback) {
         setStatus("Importing resource pack...");
         resourcePackManager.importPack(packUri, new ResourcePackManager.PackOperationCallback() {
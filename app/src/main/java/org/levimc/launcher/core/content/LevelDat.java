@@ -0,0 +1,152 @@
+package org.levimc.launcher.core.content;
+
+import org.levimc.launcher.util.NbtReader;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The few level.dat fields the launcher shows. The file is an 8-byte header (storage version and
+ * payload length, both little-endian) followed by a little-endian NBT compound.
+ */
+public class LevelDat {
+    private static final int HEADER_SIZE = 8;
+    private static final String EXPERIMENTS = "experiments";
+
+    public int storageVersion;
+    public int gameType = -1;
+    public int generator = -1;
+    /** Unix seconds, 0 when the world was never opened. */
+    public long lastPlayed;
+    public long randomSeed;
+    public boolean hasSeed;
+    public String levelName;
+    public List<String> enabledExperiments = new ArrayList<>();
+
+    public static LevelDat read(File file) throws IOException {
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file), 4096)) {
+            return read(in);
+        }
+    }
+
+    public static LevelDat read(InputStream in) throws IOException {
+        byte[] header = new byte[HEADER_SIZE];
+        int off = 0;
+        while (off < HEADER_SIZE) {
+            int n = in.read(header, off, HEADER_SIZE - off);
+            if (n < 0) throw new IOException("level.dat is truncated");
+            off += n;
+        }
+        LevelDat dat = new LevelDat();
+        dat.storageVersion = (header[0] & 0xFF) | (header[1] & 0xFF) << 8 | (header[2] & 0xFF) << 16 | (header[3] & 0xFF) << 24;
+        new NbtReader(in).read(dat.new Collector());
+        return dat;
+    }
+
+    public String getGameModeName() {
+        switch (gameType) {
+            case 0:
+                return "Survival";
+            case 1:
+                return "Creative";
+            case 2:
+                return "Adventure";
+            case 6:
+                return "Spectator";
+            default:
+                return null;
+        }
+    }
+
+    public String getGeneratorName() {
+        switch (generator) {
+            case 0:
+                return "Old";
+            case 1:
+                return "Infinite";
+            case 2:
+                return "Flat";
+            default:
+                return null;
+        }
+    }
+
+    private class Collector implements NbtReader.Handler {
+        // Top-level fields still missing; experiments arrive as one compound and are counted separately.
+        private int missing = 5;
+        private boolean experimentsRead;
+
+        @Override
+        public boolean enterCompound(String path) {
+            return EXPERIMENTS.equals(path);
+        }
+
+        @Override
+        public void exitCompound(String path) {
+            experimentsRead = true;
+        }
+
+        @Override
+        public boolean wants(String path, int type) {
+            switch (path) {
+                case "GameType":
+                case "Generator":
+                case "LastPlayed":
+                case "RandomSeed":
+                case "LevelName":
+                    return true;
+                default:
+                    return type == NbtReader.TAG_BYTE && path.startsWith(EXPERIMENTS + ".");
+            }
+        }
+
+        @Override
+        public void onLong(String path, int type, long value) {
+            switch (path) {
+                case "GameType":
+                    gameType = (int) value;
+                    missing--;
+                    break;
+                case "Generator":
+                    generator = (int) value;
+                    missing--;
+                    break;
+                case "LastPlayed":
+                    lastPlayed = value;
+                    missing--;
+                    break;
+                case "RandomSeed":
+                    randomSeed = value;
+                    hasSeed = true;
+                    missing--;
+                    break;
+                default:
+                    String name = path.substring(EXPERIMENTS.length() + 1);
+                    // experiments_ever_used and saved_with_toggled_experiments are bookkeeping, not toggles.
+                    if (value != 0 && !name.startsWith("experiments_ever_used") && !name.startsWith("saved_with_toggled")) {
+                        enabledExperiments.add(name);
+                    }
+            }
+        }
+
+        @Override
+        public void onDouble(String path, int type, double value) {
+        }
+
+        @Override
+        public void onString(String path, String value) {
+            levelName = value;
+            missing--;
+        }
+
+        @Override
+        public boolean isDone() {
+            return missing <= 0 && experimentsRead;
+        }
+    }
+}
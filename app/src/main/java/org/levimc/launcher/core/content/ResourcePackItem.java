@@ -5,12 +5,16 @@ import android.util.Log;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import org.levimc.launcher.util.ZipCentralDirectory;
+
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
+import java.nio.file.StandardOpenOption;
 
 public class ResourcePackItem extends ContentItem {
     private static final String TAG = "ResourcePackItem";
@@ -35,6 +39,37 @@ public class ResourcePackItem extends ContentItem {
         loadPackInfo();
     }
 
+    ResourcePackItem(File packFile, ContentIndex.Entry entry, PackType defaultType) {
+        super(entry.name, packFile, entry.size, entry.lastModified);
+        this.packName = entry.name;
+        this.description = entry.description;
+        this.version = entry.version;
+        this.uuid = entry.uuid;
+        this.isValid = entry.valid;
+        PackType cachedType = defaultType;
+        if (entry.packType != null) {
+            try {
+                cachedType = PackType.valueOf(entry.packType);
+            } catch (IllegalArgumentException ignored) {
+            }
+        }
+        this.packType = cachedType;
+    }
+
+    ContentIndex.Entry toIndexEntry(String stamp) {
+        ContentIndex.Entry entry = new ContentIndex.Entry();
+        entry.stamp = stamp;
+        entry.name = name;
+        entry.size = size;
+        entry.lastModified = lastModified;
+        entry.valid = isValid;
+        entry.description = description;
+        entry.version = version;
+        entry.uuid = uuid;
+        entry.packType = packType.name();
+        return entry;
+    }
+
     @Override
     public String getType() {
         switch (packType) {
@@ -109,22 +144,24 @@ public class ResourcePackItem extends ContentItem {
         }
     }
 
+    // Looks manifest.json up in the central directory instead of scanning every entry.
     private void loadPackInfoFromZip() {
-        try (ZipInputStream zis = new ZipInputStream(new FileInputStream(file))) {
-            ZipEntry entry;
-            while ((entry = zis.getNextEntry()) != null) {
-                if ("manifest.json".equals(entry.getName())) {
-                    byte[] buffer = new byte[1024];
-                    StringBuilder sb = new StringBuilder();
-                    int len;
-                    while ((len = zis.read(buffer)) > 0) {
-                        sb.append(new String(buffer, 0, len, StandardCharsets.UTF_8));
-                    }
-                    parseManifest(sb.toString());
-                    return;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ZipCentralDirectory cd = ZipCentralDirectory.read(channel);
+            ZipCentralDirectory.Entry entry = cd.get("manifest.json");
+            if (entry == null) {
+                isValid = false;
+                return;
+            }
+            try (InputStream in = ZipCentralDirectory.openStream(channel, entry)) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream((int) Math.min(entry.size, 1 << 20));
+                byte[] buffer = new byte[8192];
+                int len;
+                while ((len = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, len);
                 }
+                parseManifest(out.toString(StandardCharsets.UTF_8.name()));
             }
-            isValid = false;
         } catch (IOException e) {
             Log.e(TAG, "Failed to read manifest.json from zip", e);
             isValid = false;
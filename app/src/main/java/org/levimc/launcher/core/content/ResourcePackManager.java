@@ -54,43 +54,50 @@ public class ResourcePackManager {
     }
 
     public List<ResourcePackItem> getResourcePacks() {
-        List<ResourcePackItem> packs = new ArrayList<>();
-        
-        if (resourcePacksDirectory != null && resourcePacksDirectory.exists()) {
-            addPacksFromDirectory(resourcePacksDirectory, ResourcePackItem.PackType.RESOURCE_PACK, packs);
-        }
-        
-        return packs;
+        return loadPacks(listResourcePackFiles(), ResourcePackItem.PackType.RESOURCE_PACK);
     }
 
     public List<ResourcePackItem> getBehaviorPacks() {
+        return loadPacks(listBehaviorPackFiles(), ResourcePackItem.PackType.BEHAVIOR_PACK);
+    }
+
+    List<File> listResourcePackFiles() {
+        return listPackFiles(resourcePacksDirectory);
+    }
+
+    List<File> listBehaviorPackFiles() {
+        return listPackFiles(behaviorPacksDirectory);
+    }
+
+    private List<ResourcePackItem> loadPacks(List<File> files, ResourcePackItem.PackType packType) {
         List<ResourcePackItem> packs = new ArrayList<>();
-        
-        if (behaviorPacksDirectory != null && behaviorPacksDirectory.exists()) {
-            addPacksFromDirectory(behaviorPacksDirectory, ResourcePackItem.PackType.BEHAVIOR_PACK, packs);
+        ContentIndex index = ContentIndex.get(context);
+        for (File file : files) {
+            ResourcePackItem pack = index.cachedPack(file, packType);
+            if (pack == null) pack = index.loadPack(file, packType);
+            if (pack.isValid()) {
+                packs.add(pack);
+            }
         }
-        
+        index.save();
         return packs;
     }
 
-    private void addPacksFromDirectory(File directory, ResourcePackItem.PackType packType, List<ResourcePackItem> packs) {
-        File[] packDirs = directory.listFiles();
-        if (packDirs != null) {
-            for (File packDir : packDirs) {
-                if (packDir.isDirectory()) {
-                    ResourcePackItem pack = new ResourcePackItem(packDir.getName(), packDir, packType);
-                    if (pack.isValid()) {
-                        packs.add(pack);
-                    }
-                } else if (packDir.getName().toLowerCase().endsWith(".mcpack") ||
-                          packDir.getName().toLowerCase().endsWith(".mcaddon")) {
-                    ResourcePackItem pack = new ResourcePackItem(packDir.getName(), packDir, packType);
-                    if (pack.isValid()) {
-                        packs.add(pack);
-                    }
+    private List<File> listPackFiles(File directory) {
+        List<File> result = new ArrayList<>();
+        if (directory == null || !directory.exists()) {
+            return result;
+        }
+        File[] packFiles = directory.listFiles();
+        if (packFiles != null) {
+            for (File packFile : packFiles) {
+                String name = packFile.getName().toLowerCase();
+                if (packFile.isDirectory() || name.endsWith(".mcpack") || name.endsWith(".mcaddon")) {
+                    result.add(packFile);
                 }
             }
         }
+        return result;
     }
 
     public void importPack(Uri packUri, PackOperationCallback callback) {
@@ -163,6 +170,7 @@ public class ResourcePackManager {
     public void deletePack(ResourcePackItem pack, PackOperationCallback callback) {
         executor.execute(() -> {
             try {
+                ContentIndex.get(context).invalidate(pack.getFile());
                 if (deleteFile(pack.getFile())) {
                     callback.onSuccess("Pack deleted successfully");
                 } else {
@@ -0,0 +1,641 @@
+package org.levimc.launcher.core.content;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Read-only look at a world's LevelDB: which files the MANIFEST still references, what the keys in
+ * the tables and write-ahead logs are, and which values are the largest. Tables are read one block
+ * at a time and logs one 32 KB record block at a time, so memory stays flat however big the world is.
+ */
+public class WorldDbAnalyzer {
+    private static final long TABLE_MAGIC = 0xdb4775248b80fb57L;
+    private static final int FOOTER_SIZE = 48;
+    private static final int BLOCK_TRAILER_SIZE = 5;
+    private static final int LOG_BLOCK_SIZE = 32768;
+    private static final int LOG_HEADER_SIZE = 7;
+    private static final int LARGEST_KEPT = 10;
+
+    private static final int TYPE_DELETION = 0;
+
+    private static final int COMPRESSION_NONE = 0;
+    private static final int COMPRESSION_ZLIB = 2;
+    private static final int COMPRESSION_ZLIB_RAW = 4;
+
+    private static final int TAG_DATA_3D = 43;
+    private static final int TAG_VERSION_LEGACY = 44;
+    private static final int TAG_SUBCHUNK = 47;
+    private static final int TAG_BLOCK_ENTITY = 49;
+    private static final int TAG_ENTITY_LEGACY = 50;
+    private static final int TAG_PENDING_TICKS = 51;
+    private static final int TAG_VERSION = 118;
+
+    public static class KeyStats {
+        public long count;
+        public long valueBytes;
+    }
+
+    public static class LargeValue {
+        public String key;
+        public long size;
+        public String file;
+    }
+
+    public static class Report {
+        public long totalSize;
+        public long tableSize;
+        public long logSize;
+        public int tableFiles;
+        public int logFiles;
+        public boolean manifestRead;
+        public int obsoleteFiles;
+        public long obsoleteSize;
+        public long entries;
+        public long tombstones;
+        public long chunks;
+        // Table blocks, whole tables and log write batches that were skipped as corrupt.
+        public int unreadableBlocks;
+        public Map<String, KeyStats> categories = new LinkedHashMap<>();
+        public List<LargeValue> largest = new ArrayList<>();
+
+        public double tombstoneRatio() {
+            return entries == 0 ? 0 : (double) tombstones / entries;
+        }
+
+        public double obsoleteRatio() {
+            return totalSize == 0 ? 0 : (double) obsoleteSize / totalSize;
+        }
+
+        public String format() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format(Locale.ROOT, "Database %s: tables %s in %d files, logs %s in %d files\n",
+                    formatSize(totalSize), formatSize(tableSize), tableFiles, formatSize(logSize), logFiles));
+            sb.append(String.format(Locale.ROOT, "%d chunks, %d entries, %.1f%% tombstones\n",
+                    chunks, entries, tombstoneRatio() * 100));
+            if (manifestRead) {
+                sb.append(String.format(Locale.ROOT, "Unreferenced files: %d (%s, %.1f%%)\n",
+                        obsoleteFiles, formatSize(obsoleteSize), obsoleteRatio() * 100));
+            } else {
+                sb.append("MANIFEST could not be read\n");
+            }
+            if (unreadableBlocks > 0) sb.append("Unreadable blocks: ").append(unreadableBlocks).append('\n');
+            sb.append("\nKeys by type:");
+            for (Map.Entry<String, KeyStats> e : categories.entrySet()) {
+                sb.append(String.format(Locale.ROOT, "\n  %s: %d (%s)", e.getKey(), e.getValue().count, formatSize(e.getValue().valueBytes)));
+            }
+            if (!largest.isEmpty()) {
+                sb.append("\n\nLargest values:");
+                for (LargeValue v : largest) {
+                    sb.append(String.format(Locale.ROOT, "\n  %s %s", formatSize(v.size), v.key));
+                }
+            }
+            return sb.toString();
+        }
+    }
+
+    private final Report report = new Report();
+    private final Map<String, KeyStats> stats = new HashMap<>();
+    private final PriorityQueue<LargeValue> largest = new PriorityQueue<>(LARGEST_KEPT + 1, (a, b) -> Long.compare(a.size, b.size));
+    private final Inflater inflater = new Inflater();
+    private final Inflater rawInflater = new Inflater(true);
+    private byte[] blockBuffer = new byte[64 * 1024];
+    private byte[] keyBuffer = new byte[256];
+
+    private WorldDbAnalyzer() {
+    }
+
+    public static Report analyze(File worldDir) throws IOException {
+        File db = new File(worldDir, "db");
+        if (!db.isDirectory()) throw new IOException("World has no db directory");
+        WorldDbAnalyzer analyzer = new WorldDbAnalyzer();
+        try {
+            analyzer.run(db);
+        } finally {
+            analyzer.inflater.end();
+            analyzer.rawInflater.end();
+        }
+        return analyzer.report;
+    }
+
+    private void run(File db) throws IOException {
+        File[] files = db.listFiles();
+        if (files == null) throw new IOException("Can't list " + db);
+        Arrays.sort(files);
+
+        Manifest manifest;
+        try {
+            manifest = readManifest(db);
+        } catch (IOException | RuntimeException e) {
+            manifest = null;
+        }
+        report.manifestRead = manifest != null;
+
+        for (File file : files) {
+            if (!file.isFile()) continue;
+            String name = file.getName();
+            long size = file.length();
+            report.totalSize += size;
+            long number = fileNumber(name);
+            if (name.endsWith(".ldb") || name.endsWith(".sst")) {
+                report.tableSize += size;
+                report.tableFiles++;
+                if (manifest != null && !manifest.liveTables.contains(number)) {
+                    markObsolete(size);
+                    continue;
+                }
+                scanTable(file);
+            } else if (name.endsWith(".log")) {
+                report.logSize += size;
+                report.logFiles++;
+                if (manifest != null && number < manifest.logNumber && number != manifest.prevLogNumber) {
+                    markObsolete(size);
+                    continue;
+                }
+                scanLog(file);
+            } else if (name.startsWith("MANIFEST-") && manifest != null && !name.equals(manifest.fileName)) {
+                markObsolete(size);
+            }
+        }
+
+        List<Map.Entry<String, KeyStats>> sorted = new ArrayList<>(stats.entrySet());
+        sorted.sort((a, b) -> Long.compare(b.getValue().valueBytes, a.getValue().valueBytes));
+        for (Map.Entry<String, KeyStats> e : sorted) report.categories.put(e.getKey(), e.getValue());
+        report.largest.addAll(largest);
+        report.largest.sort((a, b) -> Long.compare(b.size, a.size));
+    }
+
+    private void markObsolete(long size) {
+        report.obsoleteFiles++;
+        report.obsoleteSize += size;
+    }
+
+    // ---- MANIFEST ----
+
+    private static class Manifest {
+        String fileName;
+        final Set<Long> liveTables = new HashSet<>();
+        long logNumber;
+        long prevLogNumber = -1;
+    }
+
+    private Manifest readManifest(File db) throws IOException {
+        File current = new File(db, "CURRENT");
+        if (!current.isFile()) return null;
+        String name;
+        try (InputStream in = new FileInputStream(current)) {
+            byte[] data = new byte[(int) Math.min(current.length(), 256)];
+            int n = in.read(data);
+            name = new String(data, 0, Math.max(n, 0), StandardCharsets.UTF_8).trim();
+        }
+        File file = new File(db, name);
+        if (!name.startsWith("MANIFEST-") || !file.isFile()) return null;
+
+        Manifest manifest = new Manifest();
+        manifest.fileName = name;
+        readLogRecords(file, (record, length) -> {
+            Cursor c = new Cursor(record, 0, length);
+            while (c.pos < c.end) {
+                int tag = (int) c.varint();
+                switch (tag) {
+                    case 1:
+                        c.skip((int) c.varint());
+                        break;
+                    case 2:
+                        manifest.logNumber = c.varint();
+                        break;
+                    case 3:
+                    case 4:
+                        c.varint();
+                        break;
+                    case 5:
+                        c.varint();
+                        c.skip((int) c.varint());
+                        break;
+                    case 6: {
+                        c.varint();
+                        long number = c.varint();
+                        manifest.liveTables.remove(number);
+                        break;
+                    }
+                    case 7: {
+                        c.varint();
+                        long number = c.varint();
+                        c.varint();
+                        c.skip((int) c.varint());
+                        c.skip((int) c.varint());
+                        manifest.liveTables.add(number);
+                        break;
+                    }
+                    case 9:
+                        manifest.prevLogNumber = c.varint();
+                        break;
+                    default:
+                        throw new IOException("Unknown version edit tag " + tag);
+                }
+            }
+        });
+        return manifest;
+    }
+
+    // ---- Tables ----
+
+    private void scanTable(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            List<long[]> handles;
+            try {
+                handles = readIndex(channel);
+            } catch (IOException | RuntimeException e) {
+                handles = null;
+            }
+            if (handles == null) {
+                report.unreadableBlocks++;
+                return;
+            }
+            // One bad block only costs its own entries; the rest of the table is still counted.
+            for (long[] handle : handles) {
+                try {
+                    int length = readBlock(channel, handle[0], handle[1]);
+                    if (length < 0) {
+                        report.unreadableBlocks++;
+                        continue;
+                    }
+                    forEachEntry(blockBuffer, length, (key, keyLength, value, valueOffset, valueLength) -> {
+                        if (keyLength < 8) return;
+                        int type = key[keyLength - 8] & 0xFF;
+                        record(key, keyLength - 8, type == TYPE_DELETION, valueLength, file.getName());
+                    });
+                } catch (IOException | RuntimeException e) {
+                    report.unreadableBlocks++;
+                }
+            }
+        }
+    }
+
+    /** Data block handles from the footer's index block, or null if the table can't be read. */
+    private List<long[]> readIndex(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size < FOOTER_SIZE) return null;
+        byte[] footer = new byte[FOOTER_SIZE];
+        readAt(channel, size - FOOTER_SIZE, footer, FOOTER_SIZE);
+        if (readLittleEndianLong(footer, FOOTER_SIZE - 8) != TABLE_MAGIC) return null;
+        Cursor f = new Cursor(footer, 0, FOOTER_SIZE - 8);
+        f.varint();
+        f.varint();
+        long indexOffset = f.varint();
+        long indexSize = f.varint();
+
+        int indexLength = readBlock(channel, indexOffset, indexSize);
+        if (indexLength < 0) return null;
+        // The index is tiny next to the data; copy it out so data blocks can reuse blockBuffer.
+        byte[] index = Arrays.copyOf(blockBuffer, indexLength);
+        List<long[]> handles = new ArrayList<>();
+        forEachEntry(index, indexLength, (key, keyLength, value, valueOffset, valueLength) -> {
+            Cursor h = new Cursor(value, valueOffset, valueOffset + valueLength);
+            handles.add(new long[]{h.varint(), h.varint()});
+        });
+        return handles;
+    }
+
+    /** Reads and decompresses the block into blockBuffer; returns its length, or -1 if unsupported or out of range. */
+    private int readBlock(FileChannel channel, long offset, long handleSize) throws IOException {
+        if (offset < 0 || handleSize < 0 || handleSize > Integer.MAX_VALUE - BLOCK_TRAILER_SIZE
+                || offset + handleSize + BLOCK_TRAILER_SIZE > channel.size()) {
+            return -1;
+        }
+        int size = (int) handleSize;
+        byte[] raw = new byte[size + BLOCK_TRAILER_SIZE];
+        readAt(channel, offset, raw, raw.length);
+        int compression = raw[size] & 0xFF;
+        switch (compression) {
+            case COMPRESSION_NONE:
+                ensureBlockCapacity(size);
+                System.arraycopy(raw, 0, blockBuffer, 0, size);
+                return size;
+            case COMPRESSION_ZLIB:
+                return inflate(inflater, raw, size);
+            case COMPRESSION_ZLIB_RAW:
+                return inflate(rawInflater, raw, size);
+            default:
+                return -1;
+        }
+    }
+
+    private int inflate(Inflater inflater, byte[] raw, int size) {
+        inflater.reset();
+        inflater.setInput(raw, 0, size);
+        int length = 0;
+        try {
+            while (!inflater.finished()) {
+                if (length == blockBuffer.length) ensureBlockCapacity(blockBuffer.length * 2);
+                int n = inflater.inflate(blockBuffer, length, blockBuffer.length - length);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                length += n;
+            }
+        } catch (DataFormatException e) {
+            return -1;
+        }
+        return inflater.finished() ? length : -1;
+    }
+
+    private void ensureBlockCapacity(int size) {
+        if (blockBuffer.length < size) blockBuffer = Arrays.copyOf(blockBuffer, Math.max(size, blockBuffer.length * 2));
+    }
+
+    private interface EntryVisitor {
+        void visit(byte[] key, int keyLength, byte[] value, int valueOffset, int valueLength) throws IOException;
+    }
+
+    private void forEachEntry(byte[] block, int length, EntryVisitor visitor) throws IOException {
+        if (length < 4) return;
+        long restarts = readLittleEndian(block, length - 4, 4);
+        if (restarts > (length - 4) / 4) throw new IOException("Corrupt block");
+        int end = length - 4 - (int) restarts * 4;
+        Cursor c = new Cursor(block, 0, end);
+        int keyLength = 0;
+        while (c.pos < end) {
+            int shared = (int) c.varint();
+            int nonShared = (int) c.varint();
+            int valueLength = (int) c.varint();
+            if (shared < 0 || shared > keyLength || nonShared < 0 || valueLength < 0
+                    || nonShared > end - c.pos || valueLength > end - c.pos - nonShared) {
+                throw new IOException("Corrupt block entry");
+            }
+            keyLength = shared + nonShared;
+            if (keyBuffer.length < keyLength) keyBuffer = Arrays.copyOf(keyBuffer, Math.max(keyLength, keyBuffer.length * 2));
+            System.arraycopy(block, c.pos, keyBuffer, shared, nonShared);
+            c.pos += nonShared;
+            visitor.visit(keyBuffer, keyLength, block, c.pos, valueLength);
+            c.pos += valueLength;
+        }
+    }
+
+    // ---- Logs ----
+
+    private interface RecordVisitor {
+        void visit(byte[] record, int length) throws IOException;
+    }
+
+    private void scanLog(File file) throws IOException {
+        readLogRecords(file, (record, length) -> {
+            try {
+                scanBatch(record, length, file.getName());
+            } catch (IOException | RuntimeException e) {
+                // Entries before the bad one are already counted; skip the rest of this batch only.
+                report.unreadableBlocks++;
+            }
+        });
+    }
+
+    private void scanBatch(byte[] record, int length, String fileName) throws IOException {
+        if (length < 12) return;
+        Cursor c = new Cursor(record, 12, length);
+        long count = readLittleEndian(record, 8, 4);
+        for (long i = 0; i < count && c.pos < c.end; i++) {
+            int type = record[c.pos++] & 0xFF;
+            int keyLength = (int) c.varint();
+            int keyOffset = c.pos;
+            c.skip(keyLength);
+            int valueLength = 0;
+            if (type != TYPE_DELETION) {
+                valueLength = (int) c.varint();
+                c.skip(valueLength);
+            }
+            if (keyBuffer.length < keyLength) keyBuffer = new byte[Math.max(keyLength, keyBuffer.length * 2)];
+            System.arraycopy(record, keyOffset, keyBuffer, 0, keyLength);
+            record(keyBuffer, keyLength, type == TYPE_DELETION, valueLength, fileName);
+        }
+    }
+
+    /** Reassembles FULL/FIRST/MIDDLE/LAST fragments of the LevelDB log format; torn tails are dropped. */
+    private void readLogRecords(File file, RecordVisitor visitor) throws IOException {
+        byte[] block = new byte[LOG_BLOCK_SIZE];
+        byte[] record = new byte[4096];
+        int recordLength = 0;
+        boolean inRecord = false;
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file), LOG_BLOCK_SIZE)) {
+            while (true) {
+                int blockLength = readUpTo(in, block, LOG_BLOCK_SIZE);
+                if (blockLength <= 0) return;
+                int pos = 0;
+                while (pos + LOG_HEADER_SIZE <= blockLength) {
+                    int length = (int) readLittleEndian(block, pos + 4, 2);
+                    int type = block[pos + 6] & 0xFF;
+                    pos += LOG_HEADER_SIZE;
+                    if (type == 0 && length == 0) break;
+                    if (pos + length > blockLength) return;
+                    if (type == 1 || type == 2) {
+                        recordLength = 0;
+                        inRecord = type == 2;
+                    } else if (!inRecord) {
+                        pos += length;
+                        continue;
+                    }
+                    if (record.length < recordLength + length) record = Arrays.copyOf(record, Math.max(recordLength + length, record.length * 2));
+                    System.arraycopy(block, pos, record, recordLength, length);
+                    recordLength += length;
+                    pos += length;
+                    if (type == 1 || type == 4) {
+                        inRecord = false;
+                        visitor.visit(record, recordLength);
+                    }
+                }
+                if (blockLength < LOG_BLOCK_SIZE) return;
+            }
+        }
+    }
+
+    // ---- Keys ----
+
+    private void record(byte[] key, int keyLength, boolean deletion, int valueLength, String fileName) {
+        report.entries++;
+        if (deletion) {
+            report.tombstones++;
+            return;
+        }
+        String category = categorize(key, keyLength);
+        KeyStats s = stats.get(category);
+        if (s == null) {
+            s = new KeyStats();
+            stats.put(category, s);
+        }
+        s.count++;
+        s.valueBytes += valueLength;
+        if (isChunkKey(key, keyLength)) {
+            int tag = key[keyLength == 9 || keyLength == 10 ? 8 : 12] & 0xFF;
+            if (tag == TAG_VERSION || tag == TAG_VERSION_LEGACY) report.chunks++;
+        }
+        if (largest.size() < LARGEST_KEPT || valueLength > largest.peek().size) {
+            LargeValue v = new LargeValue();
+            v.key = describeKey(key, keyLength);
+            v.size = valueLength;
+            v.file = fileName;
+            largest.add(v);
+            if (largest.size() > LARGEST_KEPT) largest.poll();
+        }
+    }
+
+    private static String categorize(byte[] key, int length) {
+        if (startsWith(key, length, "actorprefix")) return "Actors";
+        if (startsWith(key, length, "digp")) return "Actor digests";
+        if (startsWith(key, length, "VILLAGE_")) return "Villages";
+        if (startsWith(key, length, "player") || startsWith(key, length, "~local_player")) return "Players";
+        if (startsWith(key, length, "map_")) return "Maps";
+        if (startsWith(key, length, "structuretemplate")) return "Structures";
+        if (isChunkKey(key, length)) {
+            switch (key[length == 9 || length == 10 ? 8 : 12] & 0xFF) {
+                case TAG_SUBCHUNK:
+                    return "Chunks: sub-chunks";
+                case TAG_BLOCK_ENTITY:
+                    return "Chunks: block entities";
+                case TAG_ENTITY_LEGACY:
+                    return "Chunks: legacy entities";
+                case TAG_PENDING_TICKS:
+                    return "Chunks: pending ticks";
+                case TAG_DATA_3D:
+                    return "Chunks: biomes and heightmaps";
+                default:
+                    return "Chunks: other";
+            }
+        }
+        return "Other";
+    }
+
+    // Chunk keys are x, z, [dimension,] tag, [sub-chunk index]; tags live in 43..65 plus 118.
+    private static boolean isChunkKey(byte[] key, int length) {
+        int tagIndex;
+        if (length == 9 || length == 10) tagIndex = 8;
+        else if (length == 13 || length == 14) tagIndex = 12;
+        else return false;
+        int tag = key[tagIndex] & 0xFF;
+        if (!((tag >= 43 && tag <= 65) || tag == TAG_VERSION)) return false;
+        if (tagIndex == 12) {
+            long dimension = readLittleEndian(key, 8, 4);
+            if (dimension < 0 || dimension > 2) return false;
+        }
+        return true;
+    }
+
+    private static String describeKey(byte[] key, int length) {
+        if (isChunkKey(key, length)) {
+            int x = (int) readLittleEndian(key, 0, 4);
+            int z = (int) readLittleEndian(key, 4, 4);
+            int tagIndex = length == 9 || length == 10 ? 8 : 12;
+            int dimension = tagIndex == 12 ? (int) readLittleEndian(key, 8, 4) : 0;
+            String s = String.format(Locale.ROOT, "chunk %d,%d dim %d tag %d", x, z, dimension, key[tagIndex] & 0xFF);
+            if (length == tagIndex + 2) s += " y " + key[tagIndex + 1];
+            return s;
+        }
+        StringBuilder sb = new StringBuilder(Math.min(length, 64));
+        for (int i = 0; i < length && sb.length() < 64; i++) {
+            int b = key[i] & 0xFF;
+            if (b >= 0x20 && b < 0x7F) sb.append((char) b);
+            else sb.append(String.format(Locale.ROOT, "\\x%02x", b));
+        }
+        return sb.toString();
+    }
+
+    private static boolean startsWith(byte[] key, int length, String prefix) {
+        if (length < prefix.length()) return false;
+        for (int i = 0; i < prefix.length(); i++) {
+            if (key[i] != (byte) prefix.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    // ---- Encoding helpers ----
+
+    private static final class Cursor {
+        final byte[] data;
+        int pos;
+        final int end;
+
+        Cursor(byte[] data, int pos, int end) {
+            this.data = data;
+            this.pos = pos;
+            this.end = end;
+        }
+
+        long varint() throws IOException {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                if (pos >= end) throw new IOException("Truncated varint");
+                int b = data[pos++] & 0xFF;
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return result;
+            }
+            throw new IOException("Varint too long");
+        }
+
+        void skip(int count) throws IOException {
+            if (count < 0 || count > end - pos) throw new IOException("Truncated record");
+            pos += count;
+        }
+    }
+
+    private static long fileNumber(String name) {
+        int start = name.startsWith("MANIFEST-") ? "MANIFEST-".length() : 0;
+        int end = name.indexOf('.', start);
+        if (end < 0) end = name.length();
+        try {
+            return Long.parseLong(name.substring(start, end));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static void readAt(FileChannel channel, long position, byte[] target, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(target, 0, length);
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, position + buffer.position());
+            if (n < 0) throw new IOException("Unexpected end of table");
+        }
+    }
+
+    private static int readUpTo(InputStream in, byte[] buffer, int length) throws IOException {
+        int off = 0;
+        while (off < length) {
+            int n = in.read(buffer, off, length - off);
+            if (n < 0) break;
+            off += n;
+        }
+        return off;
+    }
+
+    private static long readLittleEndian(byte[] data, int offset, int bytes) {
+        long value = 0;
+        for (int i = bytes - 1; i >= 0; i--) {
+            value = (value << 8) | (data[offset + i] & 0xFF);
+        }
+        return value;
+    }
+
+    private static long readLittleEndianLong(byte[] data, int offset) {
+        return readLittleEndian(data, offset, 8);
+    }
+
+    private static String formatSize(long size) {
+        if (size < 1024) return size + " B";
+        if (size < 1024 * 1024) return String.format(Locale.ROOT, "%.1f KB", size / 1024.0);
+        if (size < 1024L * 1024 * 1024) return String.format(Locale.ROOT, "%.1f MB", size / (1024.0 * 1024.0));
+        return String.format(Locale.ROOT, "%.1f GB", size / (1024.0 * 1024.0 * 1024.0));
+    }
+}
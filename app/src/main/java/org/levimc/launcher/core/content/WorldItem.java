@@ -6,6 +6,11 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
 
 public class WorldItem extends ContentItem {
     private static final String TAG = "WorldItem";
@@ -14,6 +19,9 @@ public class WorldItem extends ContentItem {
     private String gameMode;
     private long lastPlayed;
     private boolean isValid;
+    private long seed;
+    private boolean hasSeed;
+    private List<String> experiments = new ArrayList<>();
 
     public WorldItem(String name, File worldDir) {
         super(name, worldDir);
@@ -21,6 +29,32 @@ public class WorldItem extends ContentItem {
         loadWorldInfo();
     }
 
+    WorldItem(File worldDir, ContentIndex.Entry entry) {
+        super(entry.name, worldDir, entry.size, entry.lastModified);
+        this.worldName = entry.name;
+        this.gameMode = entry.gameMode;
+        this.isValid = entry.valid;
+        this.lastPlayed = entry.lastPlayed;
+        this.seed = entry.seed;
+        this.hasSeed = entry.hasSeed;
+        if (entry.experiments != null) this.experiments = entry.experiments;
+    }
+
+    ContentIndex.Entry toIndexEntry(String stamp) {
+        ContentIndex.Entry entry = new ContentIndex.Entry();
+        entry.stamp = stamp;
+        entry.name = name;
+        entry.size = size;
+        entry.lastModified = lastModified;
+        entry.valid = isValid;
+        entry.gameMode = gameMode;
+        entry.lastPlayed = lastPlayed;
+        entry.seed = seed;
+        entry.hasSeed = hasSeed;
+        entry.experiments = experiments;
+        return entry;
+    }
+
     @Override
     public String getType() {
         return "World";
@@ -29,7 +63,9 @@ public class WorldItem extends ContentItem {
     @Override
     public String getDescription() {
         if (!isValid) return "Invalid world";
-        return String.format("Game Mode: %s", gameMode != null ? gameMode : "Unknown");
+        String description = String.format("Game Mode: %s", gameMode != null ? gameMode : "Unknown");
+        if (!experiments.isEmpty()) description += ", experiments: " + experiments.size();
+        return description;
     }
 
     @Override
@@ -41,6 +77,24 @@ public class WorldItem extends ContentItem {
         return worldName;
     }
 
+    public long getLastPlayed() {
+        return lastPlayed;
+    }
+
+    public String getFormattedLastPlayed() {
+        SimpleDateFormat sdf = new SimpleDateFormat("MMM dd, yyyy HH:mm", Locale.getDefault());
+        return sdf.format(new Date(lastPlayed));
+    }
+
+    /** Null when level.dat had no RandomSeed. */
+    public Long getSeed() {
+        return hasSeed ? seed : null;
+    }
+
+    public List<String> getExperiments() {
+        return experiments;
+    }
+
     private void loadWorldInfo() {
         if (file == null || !file.exists() || !file.isDirectory()) {
             isValid = false;
@@ -70,22 +124,23 @@ public class WorldItem extends ContentItem {
             }
         }
 
-        File worldBehaviorPacks = new File(file, "world_behavior_packs.json");
-        if (worldBehaviorPacks.exists()) {
-            try (FileInputStream fis = new FileInputStream(worldBehaviorPacks)) {
-                byte[] data = new byte[(int) worldBehaviorPacks.length()];
-                fis.read(data);
-                String jsonStr = new String(data, StandardCharsets.UTF_8);
-                isValid = true;
-            } catch (IOException e) {
-                Log.w(TAG, "Failed to read world_behavior_packs.json", e);
+        try {
+            LevelDat levelData = LevelDat.read(levelDat);
+            gameMode = levelData.getGameModeName();
+            if (levelData.lastPlayed > 0) lastPlayed = levelData.lastPlayed * 1000L;
+            seed = levelData.randomSeed;
+            hasSeed = levelData.hasSeed;
+            experiments = levelData.enabledExperiments;
+            if ((worldName.isEmpty() || worldName.equals(file.getName())) && levelData.levelName != null && !levelData.levelName.isEmpty()) {
+                worldName = levelData.levelName;
+                this.name = worldName;
             }
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to parse level.dat for " + file.getName(), e);
         }
 
-        if (gameMode == null) {
-            gameMode = "Survival";
+        if (lastPlayed == 0) {
+            lastPlayed = file.lastModified();
         }
-
-        lastPlayed = file.lastModified();
     }
 }
\ No newline at end of file
@@ -1,31 +1,43 @@
 package org.levimc.launcher.core.content;
 
 import android.content.Context;
+import android.database.Cursor;
 import android.net.Uri;
+import android.os.ParcelFileDescriptor;
+import android.provider.OpenableColumns;
 import android.util.Log;
 
 import org.levimc.launcher.core.versions.GameVersion;
+import org.levimc.launcher.util.ParallelZipWriter;
+import org.levimc.launcher.util.ZipCentralDirectory;
 
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
-import java.text.SimpleDateFormat;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
-import java.util.Date;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import java.util.Locale;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
-import java.util.zip.ZipOutputStream;
 
 public class WorldManager {
     private static final String TAG = "WorldManager";
     private static final int BUFFER_SIZE = 8192;
+    private static final int MAX_IMPORT_THREADS = 4;
+    private static final String LEVEL_DAT = "level.dat";
+    private static final String IMPORT_STAGING_PREFIX = ".import_";
     
     private final Context context;
     private final ExecutorService executor;
@@ -37,6 +49,11 @@ public class WorldManager {
         void onProgress(int progress);
     }
 
+    public interface WorldAnalysisCallback {
+        void onResult(WorldDbAnalyzer.Report report);
+        void onError(String error);
+    }
+
     public WorldManager(Context context) {
         this.context = context;
         this.executor = Executors.newSingleThreadExecutor();
@@ -48,6 +65,10 @@ public class WorldManager {
             if (!worldsDirectory.exists()) {
                 worldsDirectory.mkdirs();
             }
+            // Queued behind any running import or restore, so only staging dirs left by a killed
+            // process are removed.
+            File dir = worldsDirectory;
+            executor.execute(() -> sweepStagingDirs(dir));
         } else {
             this.worldsDirectory = null;
         }
@@ -55,68 +76,225 @@ public class WorldManager {
 
     public List<WorldItem> getWorlds() {
         List<WorldItem> worlds = new ArrayList<>();
-        
-        if (worldsDirectory == null || !worldsDirectory.exists()) {
-            return worlds;
+        ContentIndex index = ContentIndex.get(context);
+        for (File worldDir : listWorldDirs()) {
+            WorldItem world = index.cachedWorld(worldDir);
+            if (world == null) world = index.loadWorld(worldDir);
+            if (world.isValid()) {
+                worlds.add(world);
+            }
         }
+        index.save();
+        return worlds;
+    }
 
-        File[] worldDirs = worldsDirectory.listFiles(File::isDirectory);
+    List<File> listWorldDirs() {
+        List<File> dirs = new ArrayList<>();
+        if (worldsDirectory == null || !worldsDirectory.exists()) {
+            return dirs;
+        }
+        File[] worldDirs = worldsDirectory.listFiles(f -> f.isDirectory() && !f.getName().startsWith("."));
         if (worldDirs != null) {
-            for (File worldDir : worldDirs) {
-                WorldItem world = new WorldItem(worldDir.getName(), worldDir);
-                if (world.isValid()) {
-                    worlds.add(world);
+            Collections.addAll(dirs, worldDirs);
+        }
+        return dirs;
+    }
+
+    public void importWorld(Uri worldUri, WorldOperationCallback callback) {
+        executor.execute(() -> {
+            if (worldsDirectory == null) {
+                callback.onError("No version selected");
+                return;
+            }
+            // Extracted next to the final location so the finished world only needs a rename.
+            File stagingDir = new File(worldsDirectory, IMPORT_STAGING_PREFIX + System.currentTimeMillis());
+            try {
+                File worldRoot;
+                String baseName = null;
+                try (ParcelFileDescriptor pfd = context.getContentResolver().openFileDescriptor(worldUri, "r")) {
+                    if (pfd == null) {
+                        callback.onError("Cannot open world file");
+                        return;
+                    }
+                    FileChannel channel = new FileInputStream(pfd.getFileDescriptor()).getChannel();
+                    ZipCentralDirectory cd = readCentralDirectory(channel);
+                    if (cd != null) {
+                        String root = findWorldRootPrefix(cd);
+                        worldRoot = root != null ? extractWorldFromCentralDirectory(channel, cd, root, stagingDir, callback) : null;
+                        if (root != null && !root.isEmpty()) baseName = lastPathSegment(root);
+                    } else {
+                        // Not seekable (e.g. a pipe from a cloud provider): stream it once instead.
+                        stagingDir.mkdirs();
+                        extractZip(new FileInputStream(pfd.getFileDescriptor()), stagingDir, callback);
+                        worldRoot = findWorldRoot(stagingDir);
+                        if (worldRoot != null && !worldRoot.equals(stagingDir)) baseName = worldRoot.getName();
+                    }
+                }
+                if (worldRoot == null) {
+                    callback.onError("Invalid world file - no world data found");
+                    return;
                 }
+
+                // level.dat at the top of the archive: name the world after the file instead.
+                if (baseName == null || baseName.isEmpty()) baseName = displayNameWithoutExtension(worldUri);
+                File targetDir = new File(worldsDirectory, generateUniqueWorldName(baseName));
+                if (!worldRoot.renameTo(targetDir)) {
+                    throw new IOException("Failed to move imported world into " + targetDir.getName());
+                }
+                callback.onSuccess("World imported successfully");
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to import world", e);
+                callback.onError("Import failed: " + e.getMessage());
+            } finally {
+                if (stagingDir.exists()) deleteDirectory(stagingDir);
             }
-        }
+        });
+    }
 
-        return worlds;
+    public List<WorldSnapshotStore.Snapshot> getSnapshots(String worldDirName) {
+        return WorldSnapshotStore.get(context).list(worldDirName);
     }
 
-    public void importWorld(Uri worldUri, WorldOperationCallback callback) {
+    public void restoreSnapshot(WorldSnapshotStore.Snapshot snapshot, WorldOperationCallback callback) {
         executor.execute(() -> {
             try {
                 if (worldsDirectory == null) {
                     callback.onError("No version selected");
                     return;
                 }
+                File restored = WorldSnapshotStore.get(context).restore(snapshot, worldsDirectory);
+                callback.onSuccess("World restored to " + restored.getName());
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to restore snapshot", e);
+                callback.onError("Restore failed: " + e.getMessage());
+            }
+        });
+    }
 
-                InputStream inputStream = context.getContentResolver().openInputStream(worldUri);
-                if (inputStream == null) {
-                    callback.onError("Cannot open world file");
+    public void exportSnapshot(WorldSnapshotStore.Snapshot snapshot, Uri exportUri, WorldOperationCallback callback) {
+        executor.execute(() -> {
+            try (OutputStream outputStream = context.getContentResolver().openOutputStream(exportUri)) {
+                if (outputStream == null) {
+                    callback.onError("Cannot create export file");
                     return;
                 }
+                AtomicInteger lastPercent = new AtomicInteger(-1);
+                WorldSnapshotStore.get(context).exportToMcworld(snapshot, outputStream,
+                        (done, total) -> reportProgress(callback, done, total, lastPercent));
+                callback.onSuccess("Snapshot exported successfully");
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to export snapshot", e);
+                callback.onError("Export failed: " + e.getMessage());
+            }
+        });
+    }
 
-                String tempDirName = "temp_world_" + System.currentTimeMillis();
-                File tempDir = new File(context.getCacheDir(), tempDirName);
-                tempDir.mkdirs();
-
-                try {
-                    extractZip(inputStream, tempDir, callback);
+    public void pruneSnapshots(long maxAgeMillis, WorldOperationCallback callback) {
+        executor.execute(() -> {
+            int removed = WorldSnapshotStore.get(context).pruneOlderThan(maxAgeMillis);
+            callback.onSuccess("Removed " + removed + " old backups");
+        });
+    }
 
-                    File worldDir = findWorldDirectory(tempDir);
-                    if (worldDir == null) {
-                        callback.onError("Invalid world file - no world data found");
-                        return;
-                    }
+    private static ZipCentralDirectory readCentralDirectory(FileChannel channel) {
+        try {
+            return ZipCentralDirectory.read(channel);
+        } catch (IOException e) {
+            Log.i(TAG, "World file not seekable, streaming: " + e.getMessage());
+            return null;
+        }
+    }
 
-                    String worldName = generateUniqueWorldName(worldDir.getName());
-                    File targetDir = new File(worldsDirectory, worldName);
+    // Entry-name prefix of the shallowest level.dat ("" when it is at the top), or null if none.
+    private static String findWorldRootPrefix(ZipCentralDirectory cd) {
+        String root = null;
+        for (ZipCentralDirectory.Entry entry : cd.entries()) {
+            String name = entry.name;
+            if (!name.equals(LEVEL_DAT) && !name.endsWith("/" + LEVEL_DAT)) continue;
+            String prefix = name.substring(0, name.length() - LEVEL_DAT.length());
+            if (root == null || prefix.length() < root.length()) root = prefix;
+        }
+        return root;
+    }
 
-                    copyDirectory(worldDir, targetDir);
-                    
-                    callback.onSuccess("World imported successfully");
-                    
-                } finally {
-                    deleteDirectory(tempDir);
-                    inputStream.close();
-                }
+    // "a/b/My World/" -> "My World"
+    private static String lastPathSegment(String prefix) {
+        String trimmed = prefix.endsWith("/") ? prefix.substring(0, prefix.length() - 1) : prefix;
+        return trimmed.substring(trimmed.lastIndexOf('/') + 1);
+    }
 
-            } catch (Exception e) {
-                Log.e(TAG, "Failed to import world", e);
-                callback.onError("Import failed: " + e.getMessage());
+    /**
+     * Extracts only the entries under root into stagingDir, inflating files in parallel and
+     * checking each against its central directory CRC. Returns stagingDir.
+     */
+    private File extractWorldFromCentralDirectory(FileChannel channel, ZipCentralDirectory cd, String root,
+                                                  File stagingDir, WorldOperationCallback callback) throws IOException {
+        String canonicalStaging = stagingDir.getCanonicalPath() + File.separator;
+        List<ZipCentralDirectory.Entry> files = new ArrayList<>();
+        long totalBytes = 0;
+        for (ZipCentralDirectory.Entry entry : cd.entries()) {
+            if (!entry.name.startsWith(root) || entry.isDirectory()) continue;
+            File target = new File(stagingDir, entry.name.substring(root.length()));
+            if (!target.getCanonicalPath().startsWith(canonicalStaging)) continue;
+            files.add(entry);
+            totalBytes += entry.size;
+        }
+        if (!stagingDir.mkdirs()) throw new IOException("Failed to create " + stagingDir);
+
+        String worldRoot = root;
+        long total = totalBytes;
+        AtomicLong done = new AtomicLong();
+        AtomicInteger lastPercent = new AtomicInteger(-1);
+        int threads = Math.max(1, Math.min(files.size(), Math.min(Runtime.getRuntime().availableProcessors(), MAX_IMPORT_THREADS)));
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>(files.size());
+            for (ZipCentralDirectory.Entry entry : files) {
+                futures.add(pool.submit(() -> {
+                    File target = new File(stagingDir, entry.name.substring(worldRoot.length()));
+                    File parent = target.getParentFile();
+                    if (parent != null && !parent.isDirectory()) parent.mkdirs();
+                    ZipCentralDirectory.extract(channel, entry, target);
+                    reportProgress(callback, done.addAndGet(entry.size), total, lastPercent);
+                    return null;
+                }));
             }
-        });
+            for (Future<?> future : futures) future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            throw new IOException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("World import interrupted");
+        } finally {
+            pool.shutdownNow();
+        }
+        return stagingDir;
+    }
+
+    private static void reportProgress(WorldOperationCallback callback, long done, long total, AtomicInteger lastPercent) {
+        if (callback == null || total <= 0) return;
+        int percent = (int) (done * 100 / total);
+        int previous = lastPercent.get();
+        if (percent > previous && lastPercent.compareAndSet(previous, percent)) {
+            callback.onProgress(percent);
+        }
+    }
+
+    private String displayNameWithoutExtension(Uri uri) {
+        String name = null;
+        try (Cursor cursor = context.getContentResolver().query(uri, new String[]{OpenableColumns.DISPLAY_NAME}, null, null, null)) {
+            if (cursor != null && cursor.moveToFirst()) name = cursor.getString(0);
+        } catch (Exception e) {
+            Log.w(TAG, "Failed to query world file name", e);
+        }
+        if (name == null) name = uri.getLastPathSegment();
+        if (name == null || name.isEmpty()) return "world";
+        int slash = name.lastIndexOf('/');
+        if (slash >= 0) name = name.substring(slash + 1);
+        int dot = name.lastIndexOf('.');
+        return dot > 0 ? name.substring(0, dot) : name;
     }
 
     public void exportWorld(WorldItem world, Uri exportUri, WorldOperationCallback callback) {
@@ -146,7 +324,8 @@ public class WorldManager {
         executor.execute(() -> {
             try {
                 createBackup(world);
-                
+                ContentIndex.get(context).invalidate(world.getFile());
+
                 if (deleteDirectory(world.getFile())) {
                     callback.onSuccess("World deleted successfully");
                 } else {
@@ -173,6 +352,17 @@ public class WorldManager {
         });
     }
 
+    public void analyzeWorld(WorldItem world, WorldAnalysisCallback callback) {
+        executor.execute(() -> {
+            try {
+                callback.onResult(WorldDbAnalyzer.analyze(world.getFile()));
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to analyze world", e);
+                callback.onError("Analysis failed: " + e.getMessage());
+            }
+        });
+    }
+
     private void extractZip(InputStream inputStream, File targetDir, WorldOperationCallback callback) throws IOException {
         ZipInputStream zis = new ZipInputStream(inputStream);
         ZipEntry entry;
@@ -181,7 +371,7 @@ public class WorldManager {
         while ((entry = zis.getNextEntry()) != null) {
             File entryFile = new File(targetDir, entry.getName());
 
-            if (!entryFile.getCanonicalPath().startsWith(targetDir.getCanonicalPath())) {
+            if (!entryFile.getCanonicalPath().startsWith(targetDir.getCanonicalPath() + File.separator)) {
                 continue;
             }
             
@@ -199,25 +389,29 @@ public class WorldManager {
         }
     }
 
-    private File findWorldDirectory(File searchDir) {
-        File[] files = searchDir.listFiles();
-        if (files != null) {
-            for (File file : files) {
-                if (file.isDirectory()) {
-                    File levelDat = new File(file, "level.dat");
-                    if (levelDat.exists()) {
-                        return file;
-                    }
-                    File found = findWorldDirectory(file);
-                    if (found != null) {
-                        return found;
-                    }
-                }
-            }
+    // Breadth-first so the shallowest level.dat wins, matching the central directory path.
+    private File findWorldRoot(File searchDir) {
+        List<File> queue = new ArrayList<>();
+        queue.add(searchDir);
+        for (int i = 0; i < queue.size(); i++) {
+            File dir = queue.get(i);
+            if (new File(dir, LEVEL_DAT).isFile()) return dir;
+            File[] children = dir.listFiles(File::isDirectory);
+            if (children != null) queue.addAll(Arrays.asList(children));
         }
         return null;
     }
 
+    private void sweepStagingDirs(File worldsDir) {
+        File[] leftovers = worldsDir.listFiles(f -> f.isDirectory()
+                && (f.getName().startsWith(IMPORT_STAGING_PREFIX) || f.getName().startsWith(WorldSnapshotStore.RESTORE_STAGING_PREFIX)));
+        if (leftovers == null) return;
+        for (File dir : leftovers) {
+            Log.i(TAG, "Removing leftover staging dir " + dir.getName());
+            deleteDirectory(dir);
+        }
+    }
+
     private String generateUniqueWorldName(String baseName) {
         String worldName = baseName;
         int counter = 1;
@@ -230,79 +424,16 @@ public class WorldManager {
         return worldName;
     }
 
-    private void copyDirectory(File source, File target) throws IOException {
-        if (source.isDirectory()) {
-            if (!target.exists()) {
-                target.mkdirs();
-            }
-            
-            File[] files = source.listFiles();
-            if (files != null) {
-                for (File file : files) {
-                    copyDirectory(file, new File(target, file.getName()));
-                }
-            }
-        } else {
-            copyFile(source, target);
-        }
-    }
-
-    private void copyFile(File source, File target) throws IOException {
-        target.getParentFile().mkdirs();
-        try (FileInputStream fis = new FileInputStream(source);
-             FileOutputStream fos = new FileOutputStream(target)) {
-            
-            byte[] buffer = new byte[BUFFER_SIZE];
-            int len;
-            while ((len = fis.read(buffer)) > 0) {
-                fos.write(buffer, 0, len);
-            }
-        }
-    }
-
     private void createWorldZip(File worldDir, OutputStream outputStream, WorldOperationCallback callback) throws IOException {
-        ZipOutputStream zos = new ZipOutputStream(outputStream);
-        zipDirectory(worldDir, worldDir.getName(), zos);
-        zos.close();
-    }
-
-    private void zipDirectory(File dir, String basePath, ZipOutputStream zos) throws IOException {
-        File[] files = dir.listFiles();
-        if (files != null) {
-            for (File file : files) {
-                String entryPath = basePath + "/" + file.getName();
-                if (file.isDirectory()) {
-                    zipDirectory(file, entryPath, zos);
-                } else {
-                    ZipEntry entry = new ZipEntry(entryPath);
-                    zos.putNextEntry(entry);
-                    
-                    try (FileInputStream fis = new FileInputStream(file)) {
-                        byte[] buffer = new byte[BUFFER_SIZE];
-                        int len;
-                        while ((len = fis.read(buffer)) > 0) {
-                            zos.write(buffer, 0, len);
-                        }
-                    }
-                    zos.closeEntry();
-                }
-            }
-        }
+        AtomicInteger lastPercent = new AtomicInteger(-1);
+        ParallelZipWriter.zipDirectory(worldDir, worldDir.getName(), outputStream,
+                (done, total) -> reportProgress(callback, done, total, lastPercent));
     }
 
+    // A snapshot in WorldSnapshotStore: only files changed since the last backup are stored, and it
+    // can be restored as a new world or exported as .mcworld from the backups list.
     private String createBackup(WorldItem world) throws IOException {
-        File backupDir = new File(context.getExternalFilesDir("backups"), "worlds");
-        backupDir.mkdirs();
-        
-        String timestamp = new SimpleDateFormat("yyyyMMdd_HHmmss", Locale.getDefault()).format(new Date());
-        String backupName = world.getName() + "_" + timestamp + ".mcworld";
-        File backupFile = new File(backupDir, backupName);
-        
-        try (FileOutputStream fos = new FileOutputStream(backupFile)) {
-            createWorldZip(world.getFile(), fos, null);
-        }
-        
-        return backupFile.getAbsolutePath();
+        return WorldSnapshotStore.get(context).create(world.getFile(), world.getName()).id;
     }
 
     private boolean deleteDirectory(File dir) {
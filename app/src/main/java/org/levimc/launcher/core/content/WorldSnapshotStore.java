@@ -0,0 +1,307 @@
+package org.levimc.launcher.core.content;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.reflect.TypeToken;
+
+import org.levimc.launcher.util.JsonIOUtils;
+import org.levimc.launcher.util.ParallelZipWriter;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Content-addressed world backups. Every file of a world is stored once under its SHA-256 in
+ * objects/, and a snapshot is only a manifest listing paths and hashes. LevelDB never rewrites a
+ * .ldb table, so hourly snapshots of an active world mostly add the few new tables and logs.
+ */
+public class WorldSnapshotStore {
+    private static final String TAG = "WorldSnapshotStore";
+    private static final String MANIFEST_SUFFIX = ".json";
+    private static final String HASH_CACHE_FILE = "hash_cache.json";
+    static final String RESTORE_STAGING_PREFIX = ".restore_";
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // Applied after every new snapshot so the store stays bounded without a separate job.
+    private static final long RETENTION_MS = 30L * 24 * 60 * 60 * 1000;
+    private static final Gson gson = new Gson();
+
+    private static WorldSnapshotStore instance;
+
+    public static class FileRecord {
+        public String path;
+        public String sha256;
+        public long size;
+        public long mtime;
+    }
+
+    public static class Snapshot {
+        public String id;
+        public String worldDirName;
+        public String worldName;
+        public long createdAt;
+        public long totalSize;
+        public List<FileRecord> files = new ArrayList<>();
+    }
+
+    private final File objectsDir;
+    private final File manifestsDir;
+    private final File hashCacheFile;
+    // "<path>|<size>|<mtime>" -> sha256, so unchanged files aren't read again on the next snapshot.
+    private final Map<String, String> hashCache = new HashMap<>();
+
+    public static synchronized WorldSnapshotStore get(Context context) {
+        if (instance == null) {
+            instance = new WorldSnapshotStore(new File(context.getApplicationContext().getExternalFilesDir("backups"), "snapshots"));
+        }
+        return instance;
+    }
+
+    private WorldSnapshotStore(File root) {
+        this.objectsDir = new File(root, "objects");
+        this.manifestsDir = new File(root, "manifests");
+        this.hashCacheFile = new File(root, HASH_CACHE_FILE);
+        objectsDir.mkdirs();
+        manifestsDir.mkdirs();
+        String json = JsonIOUtils.read(hashCacheFile);
+        if (json != null) {
+            try {
+                Map<String, String> loaded = gson.fromJson(json, new TypeToken<HashMap<String, String>>() {
+                }.getType());
+                if (loaded != null) hashCache.putAll(loaded);
+            } catch (JsonSyntaxException e) {
+                Log.w(TAG, "Discarding corrupt hash cache", e);
+            }
+        }
+    }
+
+    public synchronized Snapshot create(File worldDir, String worldName) throws IOException {
+        if (!worldDir.isDirectory()) throw new IOException("World not found: " + worldDir);
+        Snapshot snapshot = new Snapshot();
+        snapshot.createdAt = System.currentTimeMillis();
+        snapshot.worldDirName = worldDir.getName();
+        snapshot.worldName = worldName != null ? worldName : worldDir.getName();
+        snapshot.id = worldDir.getName() + "_" + new SimpleDateFormat("yyyyMMdd_HHmmss_SSS", Locale.ROOT).format(new Date(snapshot.createdAt));
+
+        int reused = 0;
+        List<File> files = new ArrayList<>();
+        collect(worldDir, files);
+        String base = worldDir.getAbsolutePath() + File.separator;
+        for (File file : files) {
+            FileRecord record = new FileRecord();
+            record.path = file.getAbsolutePath().substring(base.length()).replace(File.separatorChar, '/');
+            record.size = file.length();
+            record.mtime = file.lastModified();
+            String cacheKey = file.getAbsolutePath() + "|" + record.size + "|" + record.mtime;
+            String known = hashCache.get(cacheKey);
+            if (known != null && objectFile(known).isFile()) {
+                record.sha256 = known;
+                reused++;
+            } else {
+                record.sha256 = storeObject(file);
+                hashCache.put(cacheKey, record.sha256);
+            }
+            snapshot.totalSize += record.size;
+            snapshot.files.add(record);
+        }
+
+        File manifest = manifestFile(snapshot.id);
+        File tmp = new File(manifest.getPath() + ".tmp");
+        if (!JsonIOUtils.write(tmp, gson.toJson(snapshot)) || !tmp.renameTo(manifest)) {
+            tmp.delete();
+            throw new IOException("Failed to write snapshot manifest");
+        }
+        saveHashCache();
+        Log.i(TAG, "Snapshot " + snapshot.id + ": " + files.size() + " files, " + reused + " unchanged");
+        pruneOlderThan(RETENTION_MS);
+        return snapshot;
+    }
+
+    /** Newest first; {@code worldDirName} null lists every world. */
+    public synchronized List<Snapshot> list(String worldDirName) {
+        List<Snapshot> result = new ArrayList<>();
+        File[] manifests = manifestsDir.listFiles((dir, name) -> name.endsWith(MANIFEST_SUFFIX));
+        if (manifests == null) return result;
+        for (File f : manifests) {
+            Snapshot s = readManifest(f);
+            if (s != null && (worldDirName == null || worldDirName.equals(s.worldDirName))) result.add(s);
+        }
+        result.sort((a, b) -> Long.compare(b.createdAt, a.createdAt));
+        return result;
+    }
+
+    /** Rebuilds the snapshot as a new directory inside worldsDir and returns it. */
+    public synchronized File restore(Snapshot snapshot, File worldsDir) throws IOException {
+        String name = snapshot.worldDirName;
+        File target = new File(worldsDir, name);
+        for (int i = 1; target.exists(); i++) target = new File(worldsDir, name + "_" + i);
+        File staging = new File(worldsDir, RESTORE_STAGING_PREFIX + System.currentTimeMillis());
+        try {
+            for (FileRecord record : snapshot.files) {
+                File object = objectFile(record.sha256);
+                if (!object.isFile()) throw new IOException("Missing object for " + record.path);
+                File out = new File(staging, record.path);
+                if (!out.getCanonicalPath().startsWith(staging.getCanonicalPath() + File.separator)) continue;
+                File parent = out.getParentFile();
+                if (parent != null && !parent.isDirectory()) parent.mkdirs();
+                Files.copy(object.toPath(), out.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                out.setLastModified(record.mtime);
+            }
+            if (!staging.exists()) staging.mkdirs();
+            if (!staging.renameTo(target)) throw new IOException("Failed to move restored world into place");
+            return target;
+        } finally {
+            if (staging.exists()) deleteRecursively(staging);
+        }
+    }
+
+    public synchronized void exportToMcworld(Snapshot snapshot, OutputStream out, ParallelZipWriter.ProgressListener listener) throws IOException {
+        Map<String, File> entries = new LinkedHashMap<>();
+        for (FileRecord record : snapshot.files) {
+            entries.put(snapshot.worldDirName + "/" + record.path, objectFile(record.sha256));
+        }
+        ParallelZipWriter.zipFiles(entries, out, listener);
+    }
+
+    public synchronized void delete(Snapshot snapshot) {
+        manifestFile(snapshot.id).delete();
+        collectGarbage();
+    }
+
+    /** Deletes snapshots older than maxAgeMillis, always keeping the newest one of each world. */
+    public synchronized int pruneOlderThan(long maxAgeMillis) {
+        long cutoff = System.currentTimeMillis() - maxAgeMillis;
+        Set<String> newestKept = new HashSet<>();
+        int removed = 0;
+        for (Snapshot s : list(null)) {
+            if (newestKept.add(s.worldDirName)) continue;
+            if (s.createdAt < cutoff && manifestFile(s.id).delete()) removed++;
+        }
+        if (removed > 0) collectGarbage();
+        return removed;
+    }
+
+    private void collectGarbage() {
+        Set<String> live = new HashSet<>();
+        for (Snapshot s : list(null)) {
+            for (FileRecord r : s.files) live.add(r.sha256);
+        }
+        File[] buckets = objectsDir.listFiles(File::isDirectory);
+        if (buckets != null) {
+            for (File bucket : buckets) {
+                File[] objects = bucket.listFiles();
+                if (objects == null) continue;
+                for (File object : objects) {
+                    if (!live.contains(object.getName())) object.delete();
+                }
+                bucket.delete();
+            }
+        }
+        if (hashCache.values().retainAll(live)) saveHashCache();
+    }
+
+    private String storeObject(File file) throws IOException {
+        File tmp = File.createTempFile("obj", ".tmp", objectsDir);
+        try {
+            MessageDigest md = newDigest();
+            try (InputStream in = new FileInputStream(file);
+                 OutputStream out = new FileOutputStream(tmp)) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int len;
+                while ((len = in.read(buffer)) != -1) {
+                    md.update(buffer, 0, len);
+                    out.write(buffer, 0, len);
+                }
+            }
+            String sha256 = hex(md.digest());
+            File object = objectFile(sha256);
+            if (!object.exists()) {
+                object.getParentFile().mkdirs();
+                if (!tmp.renameTo(object)) throw new IOException("Failed to store object for " + file.getName());
+                object.setLastModified(file.lastModified());
+            }
+            return sha256;
+        } finally {
+            tmp.delete();
+        }
+    }
+
+    private File objectFile(String sha256) {
+        return new File(new File(objectsDir, sha256.substring(0, 2)), sha256);
+    }
+
+    private File manifestFile(String id) {
+        return new File(manifestsDir, id + MANIFEST_SUFFIX);
+    }
+
+    private static Snapshot readManifest(File file) {
+        String json = JsonIOUtils.read(file);
+        if (json == null) return null;
+        try {
+            return gson.fromJson(json, Snapshot.class);
+        } catch (JsonSyntaxException e) {
+            Log.w(TAG, "Skipping corrupt snapshot " + file.getName(), e);
+            return null;
+        }
+    }
+
+    private void saveHashCache() {
+        File tmp = new File(hashCacheFile.getPath() + ".tmp");
+        if (!JsonIOUtils.write(tmp, gson.toJson(hashCache)) || !tmp.renameTo(hashCacheFile)) {
+            tmp.delete();
+        }
+    }
+
+    private static void collect(File dir, List<File> out) {
+        File[] files = dir.listFiles();
+        if (files == null) return;
+        for (File f : files) {
+            if (f.isDirectory()) collect(f, out);
+            else out.add(f);
+        }
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) deleteRecursively(child);
+        }
+        file.delete();
+    }
+
+    private static MessageDigest newDigest() throws IOException {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(String.format(Locale.ROOT, "%02x", b & 0xFF));
+        }
+        return sb.toString();
+    }
+}
@@ -4,6 +4,7 @@ import android.app.Application
 import android.content.Context
 import android.content.SharedPreferences
 import androidx.preference.PreferenceManager
+import org.levimc.launcher.core.auth.TokenRefreshScheduler
 import org.levimc.launcher.settings.FeatureSettings
 
 class LauncherApplication : Application() {
@@ -13,6 +14,7 @@ class LauncherApplication : Application() {
         context = applicationContext
         FeatureSettings.init(applicationContext)
         preferences = PreferenceManager.getDefaultSharedPreferences(this)
+        TokenRefreshScheduler.get(applicationContext).start()
 
     }
 
@@ -7,9 +7,13 @@ import android.content.res.AssetManager
 import android.os.Build
 import android.util.Log
 import org.levimc.launcher.core.versions.GameVersion
+import org.levimc.launcher.util.NativeLibCache
+import org.levimc.launcher.util.NativeLibExtractor
+import org.levimc.launcher.util.ZipCentralDirectory
 import java.io.File
-import java.io.FileOutputStream
-import java.util.zip.ZipFile
+import java.io.IOException
+import java.nio.channels.FileChannel
+import java.nio.file.StandardOpenOption
 
 class GamePackageManager private constructor(private val context: Context, private val version: GameVersion?) {
 
@@ -30,12 +34,14 @@ class GamePackageManager private constructor(private val context: Context, priva
         "libpairipcore.so"
     )
 
+    private val prepKey = prepKeyFor(version)
+
     init {
-        val packageName = detectGamePackage() ?: throw IllegalStateException("Minecraft not found")
-        packageContext = context.createPackageContext(
-            packageName,
-            Context.CONTEXT_IGNORE_SECURITY or Context.CONTEXT_INCLUDE_CODE
-        )
+        val prepCache = LaunchPrepCache.get(context)
+        val prepared = prepCache.lookup(prepKey)
+        packageContext = prepared?.let { createGamePackageContext(it.packageName) }
+            ?: createGamePackageContext(detectGamePackage() ?: throw IllegalStateException("Minecraft not found"))
+            ?: throw IllegalStateException("Minecraft not found")
         
         if (version != null && !version.isInstalled) {
             applicationInfo = MinecraftLauncher(context).createFakeApplicationInfo(version, MinecraftLauncher.MC_PACKAGE_NAME)
@@ -45,11 +51,48 @@ class GamePackageManager private constructor(private val context: Context, priva
             nativeLibDir = resolveNativeLibDir()
         }
         
-        extractLibraries()
+        if (prepared != null && prepared.packageName == packageContext.packageName
+            && prepared.nativeLibDir == nativeLibDir && prepared.apkPath == applicationInfo.sourceDir
+        ) {
+            Log.i(TAG, "Reusing prepared libraries in $nativeLibDir")
+        } else {
+            extractLibraries()
+            buildPrepRecord()?.let { prepCache.store(prepKey, it) } ?: prepCache.remove(prepKey)
+        }
         assetManager = createAssetManager()
         setupSecurityProvider()
     }
 
+    private fun createGamePackageContext(packageName: String): Context? {
+        return try {
+            context.createPackageContext(
+                packageName,
+                Context.CONTEXT_IGNORE_SECURITY or Context.CONTEXT_INCLUDE_CODE
+            )
+        } catch (e: PackageManager.NameNotFoundException) {
+            Log.w(TAG, "Game package $packageName not found")
+            null
+        }
+    }
+
+    private fun buildPrepRecord(): LaunchPrepCache.Record? {
+        val libDir = File(nativeLibDir)
+        val libs = requiredLibs.map { lib ->
+            val f = File(libDir, lib)
+            if (!f.exists() || f.length() == 0L) return null
+            LaunchPrepCache.LibRecord(lib, f.length(), f.lastModified())
+        }
+        val apk = File(applicationInfo.sourceDir)
+        return LaunchPrepCache.Record(
+            packageContext.packageName,
+            apk.absolutePath,
+            apk.length(),
+            apk.lastModified(),
+            nativeLibDir,
+            libs
+        )
+    }
+
     private fun detectGamePackage(): String? {
         val installedPackages = context.packageManager.getInstalledPackages(0)
         return installedPackages.firstOrNull { packageInfo ->
@@ -69,14 +112,6 @@ class GamePackageManager private constructor(private val context: Context, priva
         }
     }
 
-    private fun getDeviceAbi(): String {
-        return Build.SUPPORTED_64_BIT_ABIS.firstOrNull {
-            it.contains("arm64-v8a") || it.contains("x86_64")
-        } ?: Build.SUPPORTED_32_BIT_ABIS.firstOrNull {
-            it.contains("armeabi-v7a") || it.contains("x86")
-        } ?: (Build.SUPPORTED_ABIS.firstOrNull() ?: "armeabi-v7a")
-    }
-
     private fun extractLibraries() {
         val outputDir = File(nativeLibDir)
         if (!outputDir.exists()) {
@@ -155,22 +190,26 @@ class GamePackageManager private constructor(private val context: Context, priva
         }
 
         try {
-            ZipFile(apkPath).use { zip ->
-                val abiPath = "lib/$abi"
-                requiredLibs.forEach { lib ->
-                    val entry = zip.getEntry("$abiPath/$lib")
-                    if (entry == null) {
-                        return@forEach
-                    }
+            FileChannel.open(apkFile.toPath(), StandardOpenOption.READ).use { channel ->
+                val zip = ZipCentralDirectory.read(channel)
+                val entries = requiredLibs.mapNotNull { lib ->
+                    val entry = zip.get("lib/$abi/$lib") ?: return@mapNotNull null
                     val output = File(outputDir, lib)
                     if (output.exists() && output.length() > 0) {
-                        return@forEach
-                    }
-                    zip.getInputStream(entry).use { input ->
-                        FileOutputStream(output).use { out ->
-                            input.copyTo(out)
+                        if (output.length() == entry.size && matchesEntry(output, entry)) {
+                            return@mapNotNull null
                         }
+                        Log.w(TAG, "Size or CRC mismatch for $lib, re-extracting")
+                        output.delete()
                     }
+                    entry
+                }
+                if (entries.isEmpty()) {
+                    return
+                }
+                NativeLibExtractor.extract(channel, entries, outputDir, NativeLibCache.get(context), null)
+                entries.forEach { entry ->
+                    val output = File(outputDir, NativeLibExtractor.soName(entry))
                     output.setReadable(true)
                     output.setExecutable(true)
                 }
@@ -180,6 +219,15 @@ class GamePackageManager private constructor(private val context: Context, priva
         }
     }
 
+    private fun matchesEntry(file: File, entry: ZipCentralDirectory.Entry): Boolean {
+        return try {
+            FileChannel.open(file.toPath(), StandardOpenOption.READ).use { ZipCentralDirectory.verify(it, 0, entry) }
+            true
+        } catch (e: IOException) {
+            false
+        }
+    }
+
     private fun verifyLibraries(dir: File) {
         val missing = requiredLibs.filterNot {
             File(dir, it).let { f -> f.exists() && f.length() > 0 }
@@ -296,6 +344,8 @@ class GamePackageManager private constructor(private val context: Context, priva
 
     fun getApplicationInfo(): ApplicationInfo = applicationInfo
 
+    fun getNativeLibDir(): String = nativeLibDir
+
     fun getVersionName(): String? {
         return try {
             context.packageManager.getPackageInfo(packageContext.packageName, 0).versionName
@@ -310,11 +360,32 @@ class GamePackageManager private constructor(private val context: Context, priva
         @Volatile
         private var instance: GamePackageManager? = null
 
+        private fun getDeviceAbi(): String {
+            return Build.SUPPORTED_64_BIT_ABIS.firstOrNull {
+                it.contains("arm64-v8a") || it.contains("x86_64")
+            } ?: Build.SUPPORTED_32_BIT_ABIS.firstOrNull {
+                it.contains("armeabi-v7a") || it.contains("x86")
+            } ?: (Build.SUPPORTED_ABIS.firstOrNull() ?: "armeabi-v7a")
+        }
+
+        private fun prepKeyFor(version: GameVersion?): String {
+            return if (version == null) {
+                "default|${getDeviceAbi()}"
+            } else {
+                "${version.directoryName}|${version.isInstalled}|${version.versionDir?.absolutePath}|${getDeviceAbi()}"
+            }
+        }
+
         @JvmStatic
         fun getInstance(context: Context, version: GameVersion? = null): GamePackageManager {
             return synchronized(this) {
-                instance = null // Reset instance to ensure fresh initialization
-                instance ?: GamePackageManager(context.applicationContext, version).also { instance = it }
+                val current = instance
+                val key = prepKeyFor(version)
+                if (current != null && current.prepKey == key && LaunchPrepCache.get(context).lookup(key) != null) {
+                    current
+                } else {
+                    GamePackageManager(context.applicationContext, version).also { instance = it }
+                }
             }
         }
 
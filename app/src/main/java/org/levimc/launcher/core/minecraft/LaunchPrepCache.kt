@@ -0,0 +1,99 @@
+package org.levimc.launcher.core.minecraft
+
+import android.content.Context
+import android.util.Log
+import com.google.gson.Gson
+import com.google.gson.JsonSyntaxException
+import com.google.gson.reflect.TypeToken
+import org.levimc.launcher.util.JsonIOUtils
+import java.io.File
+
+internal class LaunchPrepCache private constructor(context: Context) {
+
+    class LibRecord(
+        var name: String = "",
+        var size: Long = 0,
+        var mtime: Long = 0
+    )
+
+    class Record(
+        var packageName: String = "",
+        var apkPath: String = "",
+        var apkSize: Long = 0,
+        var apkMtime: Long = 0,
+        var nativeLibDir: String = "",
+        var libs: List<LibRecord> = emptyList()
+    )
+
+    private val file = File(context.filesDir, FILE_NAME)
+    private val gson = Gson()
+    private val records: MutableMap<String, Record> = load()
+
+    @Synchronized
+    fun lookup(key: String): Record? {
+        val record = records[key] ?: return null
+        val apk = File(record.apkPath)
+        if (apk.length() != record.apkSize || apk.lastModified() != record.apkMtime) {
+            Log.d(TAG, "APK changed for $key")
+            return drop(key)
+        }
+        val stale = record.libs.firstOrNull { lib ->
+            val f = File(record.nativeLibDir, lib.name)
+            f.length() != lib.size || f.lastModified() != lib.mtime
+        }
+        if (stale != null) {
+            Log.d(TAG, "Library ${stale.name} changed for $key")
+            return drop(key)
+        }
+        return record
+    }
+
+    @Synchronized
+    fun store(key: String, record: Record) {
+        records[key] = record
+        save()
+    }
+
+    @Synchronized
+    fun remove(key: String) {
+        if (records.remove(key) != null) save()
+    }
+
+    private fun drop(key: String): Record? {
+        records.remove(key)
+        save()
+        return null
+    }
+
+    private fun load(): MutableMap<String, Record> {
+        val json = JsonIOUtils.read(file) ?: return HashMap()
+        return try {
+            gson.fromJson<MutableMap<String, Record>>(json, object : TypeToken<HashMap<String, Record>>() {}.type)
+                ?: HashMap()
+        } catch (e: JsonSyntaxException) {
+            Log.w(TAG, "Discarding corrupt launch cache", e)
+            HashMap()
+        }
+    }
+
+    private fun save() {
+        val tmp = File(file.path + ".tmp")
+        if (!JsonIOUtils.write(tmp, gson.toJson(records)) || !tmp.renameTo(file)) {
+            tmp.delete()
+        }
+    }
+
+    companion object {
+        private const val TAG = "LaunchPrepCache"
+        private const val FILE_NAME = "launch_prep_cache.json"
+
+        @Volatile
+        private var instance: LaunchPrepCache? = null
+
+        fun get(context: Context): LaunchPrepCache {
+            return instance ?: synchronized(this) {
+                instance ?: LaunchPrepCache(context.applicationContext).also { instance = it }
+            }
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package org.levimc.launcher.core.minecraft;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.Log;
+
+import org.levimc.launcher.core.mods.ModManager;
+import org.levimc.launcher.core.mods.ModNativeLoader;
+import org.levimc.launcher.core.versions.GameVersion;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs the launch work that does not depend on the game process (library verification,
+ * asset path setup, mod staging) for the selected version while the user is still in the launcher.
+ * Nothing is System.load'ed here: a loaded library can't be unloaded if the selection changes.
+ */
+public class LaunchPreparer {
+    private static final String TAG = "LaunchPreparer";
+    private static final String MAIN_LIB = "libminecraftpe.so";
+    private static final int PAGE_SIZE = 4096;
+    private static final long PAGE_IN_CHUNK = 1024 * 1024;
+
+    private static volatile LaunchPreparer instance;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "LaunchPreparer");
+        t.setPriority(Thread.MIN_PRIORITY);
+        return t;
+    });
+    private Future<Prepared> pending;
+    private GameVersion pendingVersion;
+
+    public static class Prepared {
+        public final GameVersion version;
+        // Null when the mods could not be staged ahead of time (e.g. ModManager points at another version).
+        public final List<File> stagedMods;
+
+        Prepared(GameVersion version, List<File> stagedMods) {
+            this.version = version;
+            this.stagedMods = stagedMods;
+        }
+    }
+
+    private LaunchPreparer() {}
+
+    public static LaunchPreparer getInstance() {
+        LaunchPreparer result = instance;
+        if (result == null) {
+            synchronized (LaunchPreparer.class) {
+                result = instance;
+                if (result == null) {
+                    instance = result = new LaunchPreparer();
+                }
+            }
+        }
+        return result;
+    }
+
+    public synchronized void prepare(Context context, GameVersion version) {
+        cancel();
+        if (version == null || version.needsRepair) return;
+        Context appContext = context.getApplicationContext();
+        pendingVersion = version;
+        pending = executor.submit(() -> doPrepare(appContext, version));
+    }
+
+    public synchronized void cancel() {
+        if (pending != null) {
+            pending.cancel(true);
+            pending = null;
+            pendingVersion = null;
+        }
+    }
+
+    /**
+     * Hands the preparation for {@code version} over to the launch, waiting for it if it is still
+     * running. A preparation for any other version is cancelled. Returns null if nothing usable exists.
+     */
+    public Prepared take(GameVersion version) {
+        Future<Prepared> future;
+        synchronized (this) {
+            if (pending == null || !isSameVersion(pendingVersion, version)) {
+                cancel();
+                return null;
+            }
+            future = pending;
+            pending = null;
+            pendingVersion = null;
+        }
+        try {
+            return future.get();
+        } catch (CancellationException | ExecutionException e) {
+            Log.w(TAG, "Preparation unusable, launching cold: " + e.getMessage());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private Prepared doPrepare(Context context, GameVersion version) throws IOException {
+        long start = SystemClock.elapsedRealtime();
+        GamePackageManager gameManager = GamePackageManager.Companion.getInstance(context, version);
+        checkInterrupted();
+        pageIn(new File(gameManager.getNativeLibDir(), MAIN_LIB));
+        checkInterrupted();
+
+        List<File> stagedMods = null;
+        ModManager modManager = ModManager.getInstance();
+        if (isSameVersion(modManager.getCurrentVersion(), version)) {
+            stagedMods = ModNativeLoader.stageEnabledSoMods(modManager, context.getCacheDir());
+        }
+        checkInterrupted();
+        Log.i(TAG, "Prepared " + version.directoryName + " in " + (SystemClock.elapsedRealtime() - start) + " ms");
+        return new Prepared(version, stagedMods);
+    }
+
+    // Touches one byte per page so the dynamic linker finds the library in the page cache.
+    private static void pageIn(File lib) throws IOException {
+        if (!lib.isFile()) return;
+        try (FileChannel channel = FileChannel.open(lib.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (long pos = 0; pos < size; pos += PAGE_IN_CHUNK) {
+                checkInterrupted();
+                MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, pos, Math.min(PAGE_IN_CHUNK, size - pos));
+                for (int i = 0; i < chunk.limit(); i += PAGE_SIZE) {
+                    chunk.get(i);
+                }
+            }
+        }
+    }
+
+    private static void checkInterrupted() throws InterruptedIOException {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedIOException("Launch preparation cancelled");
+        }
+    }
+
+    static boolean isSameVersion(GameVersion a, GameVersion b) {
+        if (a == b) return true;
+        if (a == null || b == null) return false;
+        return a.isInstalled == b.isInstalled
+                && Objects.equals(a.directoryName, b.directoryName)
+                && Objects.equals(a.versionDir, b.versionDir);
+    }
+}
@@ -86,9 +86,10 @@ public class MinecraftLauncher {
                 loadingDialog = new LoadingDialog(activity);
                 loadingDialog.show();
             });
+            LaunchPreparer.Prepared prepared = LaunchPreparer.getInstance().take(version);
             gameManager = GamePackageManager.Companion.getInstance(context.getApplicationContext(), version);
             fillIntentWithMcPath(sourceIntent, version);
-            launchMinecraftActivity(sourceIntent, version, false);
+            launchMinecraftActivity(sourceIntent, version, false, prepared);
         } catch (Exception e) {
             Log.e(TAG, "Launch failed: " + e.getMessage(), e);
             dismissLoading();
@@ -106,7 +107,7 @@ public class MinecraftLauncher {
         }
     }
 
-    private void launchMinecraftActivity(Intent sourceIntent, GameVersion version, boolean modsEnabled) {
+    private void launchMinecraftActivity(Intent sourceIntent, GameVersion version, boolean modsEnabled, LaunchPreparer.Prepared prepared) {
         Activity activity = (Activity) context;
 
         new Thread(() -> {
@@ -135,7 +136,11 @@ public class MinecraftLauncher {
                     gameManager.loadLibrary("MediaDecoders_Android");
                     gameManager.loadLibrary("minecraftpe");
     }
-                ModNativeLoader.loadEnabledSoMods(ModManager.getInstance(), context.getCacheDir());
+                if (prepared != null && prepared.stagedMods != null) {
+                    ModNativeLoader.loadStagedSoMods(prepared.stagedMods);
+                } else {
+                    ModNativeLoader.loadEnabledSoMods(ModManager.getInstance(), context.getCacheDir());
+                }
 
                 activity.runOnUiThread(() -> {
                     dismissLoading();
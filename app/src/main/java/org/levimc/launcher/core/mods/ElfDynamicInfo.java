@@ -0,0 +1,126 @@
+package org.levimc.launcher.core.mods;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reads the DT_NEEDED and DT_SONAME entries of a shared object through its PT_DYNAMIC segment,
+ * which stays valid even when section headers are stripped.
+ */
+public final class ElfDynamicInfo {
+    private static final int ELF_MAGIC = 0x464C457F;
+    private static final int ELFCLASS64 = 2;
+    private static final int ELFDATA2MSB = 2;
+    private static final int PT_LOAD = 1;
+    private static final int PT_DYNAMIC = 2;
+    private static final long DT_NULL = 0;
+    private static final long DT_NEEDED = 1;
+    private static final long DT_STRTAB = 5;
+    private static final long DT_STRSZ = 10;
+    private static final long DT_SONAME = 14;
+    private static final int MAX_DYNAMIC_SIZE = 1 << 20;
+
+    public final String soname;
+    public final List<String> needed;
+
+    private ElfDynamicInfo(String soname, List<String> needed) {
+        this.soname = soname;
+        this.needed = Collections.unmodifiableList(needed);
+    }
+
+    public static ElfDynamicInfo read(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer ident = read(channel, 0, 16, ByteOrder.LITTLE_ENDIAN);
+            if (ident.getInt(0) != ELF_MAGIC) throw new IOException(file.getName() + " is not an ELF file");
+            boolean is64 = ident.get(4) == ELFCLASS64;
+            ByteOrder order = ident.get(5) == ELFDATA2MSB ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+
+            ByteBuffer header = read(channel, 0, is64 ? 64 : 52, order);
+            long phOff = is64 ? header.getLong(32) : header.getInt(28) & 0xFFFFFFFFL;
+            int phEntSize = header.getShort(is64 ? 54 : 42) & 0xFFFF;
+            int phNum = header.getShort(is64 ? 56 : 44) & 0xFFFF;
+            if (phEntSize == 0 || phNum == 0) throw new IOException(file.getName() + " has no program headers");
+            ByteBuffer phdrs = read(channel, phOff, phEntSize * phNum, order);
+
+            List<long[]> loads = new ArrayList<>();
+            long dynOffset = -1;
+            long dynSize = 0;
+            for (int i = 0; i < phNum; i++) {
+                int base = i * phEntSize;
+                int type = phdrs.getInt(base);
+                long offset = is64 ? phdrs.getLong(base + 8) : phdrs.getInt(base + 4) & 0xFFFFFFFFL;
+                long vaddr = is64 ? phdrs.getLong(base + 16) : phdrs.getInt(base + 8) & 0xFFFFFFFFL;
+                long fileSize = is64 ? phdrs.getLong(base + 32) : phdrs.getInt(base + 16) & 0xFFFFFFFFL;
+                if (type == PT_LOAD) {
+                    loads.add(new long[]{vaddr, offset, fileSize});
+                } else if (type == PT_DYNAMIC) {
+                    dynOffset = offset;
+                    dynSize = fileSize;
+                }
+            }
+            if (dynOffset < 0) return new ElfDynamicInfo(null, new ArrayList<>());
+
+            int entSize = is64 ? 16 : 8;
+            ByteBuffer dyn = read(channel, dynOffset, (int) Math.min(dynSize, MAX_DYNAMIC_SIZE), order);
+            List<Long> neededOffsets = new ArrayList<>();
+            long sonameOffset = -1;
+            long strtabAddr = -1;
+            long strtabSize = 0;
+            for (int pos = 0; pos + entSize <= dyn.limit(); pos += entSize) {
+                long tag = is64 ? dyn.getLong(pos) : dyn.getInt(pos);
+                long val = is64 ? dyn.getLong(pos + 8) : dyn.getInt(pos + 4) & 0xFFFFFFFFL;
+                if (tag == DT_NULL) break;
+                if (tag == DT_NEEDED) neededOffsets.add(val);
+                else if (tag == DT_SONAME) sonameOffset = val;
+                else if (tag == DT_STRTAB) strtabAddr = val;
+                else if (tag == DT_STRSZ) strtabSize = val;
+            }
+            if (strtabAddr < 0) throw new IOException(file.getName() + " has no dynamic string table");
+
+            long strtabOffset = -1;
+            for (long[] load : loads) {
+                if (strtabAddr >= load[0] && strtabAddr < load[0] + load[2]) {
+                    strtabOffset = load[1] + (strtabAddr - load[0]);
+                    break;
+                }
+            }
+            if (strtabOffset < 0) throw new IOException(file.getName() + " has an unmapped string table");
+            long strtabLimit = Math.min(strtabSize > 0 ? strtabSize : MAX_DYNAMIC_SIZE, channel.size() - strtabOffset);
+            ByteBuffer strtab = read(channel, strtabOffset, (int) Math.min(strtabLimit, MAX_DYNAMIC_SIZE), order);
+
+            List<String> needed = new ArrayList<>(neededOffsets.size());
+            for (long offset : neededOffsets) {
+                String name = string(strtab, offset);
+                if (name != null) needed.add(name);
+            }
+            return new ElfDynamicInfo(sonameOffset >= 0 ? string(strtab, sonameOffset) : null, needed);
+        }
+    }
+
+    private static String string(ByteBuffer strtab, long offset) {
+        if (offset < 0 || offset >= strtab.limit()) return null;
+        int start = (int) offset;
+        int end = start;
+        while (end < strtab.limit() && strtab.get(end) != 0) end++;
+        byte[] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++) bytes[i] = strtab.get(start + i);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length, ByteOrder order) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(order);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) break;
+        }
+        buffer.flip();
+        return buffer;
+    }
+}
@@ -0,0 +1,160 @@
+package org.levimc.launcher.core.mods;
+
+import android.util.Log;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+
+import org.levimc.launcher.util.JsonIOUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Timings and dependency information for the mods loaded by the last launch. Written next to the
+ * staged mods and shown from the mods screen.
+ */
+public class ModLoadReport {
+    private static final String TAG = "ModLoadReport";
+    private static final String FILE_NAME = "load_report.json";
+    private static final String GAME_LIBRARY = "libminecraftpe.so";
+    private static final Gson gson = new Gson();
+
+    public static class Entry {
+        public String fileName;
+        public long stageMillis = -1;
+        public long loadMillis = -1;
+        public boolean loaded;
+        public String error;
+        public List<String> needed = new ArrayList<>();
+        public List<String> modDependencies = new ArrayList<>();
+        public boolean needsGameLibrary;
+    }
+
+    public long timestamp;
+    public long totalStageMillis;
+    public long totalLoadMillis;
+    public List<Entry> entries = new ArrayList<>();
+    public List<String> proposedOrder = new ArrayList<>();
+    public boolean orderSatisfied = true;
+    public boolean hasCycle;
+
+    Entry entry(String fileName) {
+        for (Entry e : entries) {
+            if (e.fileName.equals(fileName)) return e;
+        }
+        Entry e = new Entry();
+        e.fileName = fileName;
+        entries.add(e);
+        return e;
+    }
+
+    /**
+     * Reads DT_NEEDED from each staged mod, links them to the other mods and to the game library,
+     * and proposes the closest order to the current one in which every mod follows its dependencies.
+     */
+    void analyzeDependencies(List<File> staged) {
+        Map<String, String> providers = new HashMap<>();
+        Map<String, ElfDynamicInfo> infos = new LinkedHashMap<>();
+        for (File file : staged) {
+            Entry e = entry(file.getName());
+            try {
+                ElfDynamicInfo info = ElfDynamicInfo.read(file);
+                infos.put(file.getName(), info);
+                e.needed = new ArrayList<>(info.needed);
+                providers.put(file.getName(), file.getName());
+                if (info.soname != null) providers.put(info.soname, file.getName());
+            } catch (IOException | RuntimeException ex) {
+                Log.w(TAG, "Can't read dynamic section of " + file.getName() + ": " + ex.getMessage());
+            }
+        }
+        for (Map.Entry<String, ElfDynamicInfo> item : infos.entrySet()) {
+            Entry e = entry(item.getKey());
+            e.modDependencies.clear();
+            for (String lib : item.getValue().needed) {
+                if (GAME_LIBRARY.equals(lib)) e.needsGameLibrary = true;
+                String provider = providers.get(lib);
+                if (provider != null && !provider.equals(item.getKey()) && !e.modDependencies.contains(provider)) {
+                    e.modDependencies.add(provider);
+                }
+            }
+        }
+
+        List<String> current = new ArrayList<>();
+        for (File file : staged) current.add(file.getName());
+        List<String> remaining = new ArrayList<>(current);
+        proposedOrder = new ArrayList<>(current.size());
+        hasCycle = false;
+        while (!remaining.isEmpty()) {
+            String next = null;
+            for (String name : remaining) {
+                if (proposedOrder.containsAll(dependenciesIn(entry(name), remaining))) {
+                    next = name;
+                    break;
+                }
+            }
+            if (next == null) {
+                hasCycle = true;
+                proposedOrder.addAll(remaining);
+                break;
+            }
+            proposedOrder.add(next);
+            remaining.remove(next);
+        }
+        orderSatisfied = proposedOrder.equals(current);
+    }
+
+    private static List<String> dependenciesIn(Entry e, List<String> remaining) {
+        List<String> result = new ArrayList<>();
+        for (String dep : e.modDependencies) {
+            if (remaining.contains(dep)) result.add(dep);
+        }
+        return result;
+    }
+
+    public String format() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "Staging %d ms, loading %d ms\n", totalStageMillis, totalLoadMillis));
+        for (Entry e : entries) {
+            sb.append('\n').append(e.fileName).append(": ");
+            if (e.loaded) {
+                sb.append(String.format(Locale.ROOT, "stage %d ms, load %d ms", Math.max(e.stageMillis, 0), e.loadMillis));
+            } else {
+                sb.append("failed");
+                if (e.error != null) sb.append(" (").append(e.error).append(')');
+            }
+            if (!e.modDependencies.isEmpty()) sb.append("\n  needs ").append(String.join(", ", e.modDependencies));
+            if (e.needsGameLibrary) sb.append("\n  links ").append(GAME_LIBRARY);
+        }
+        if (hasCycle) sb.append("\n\nCircular dependency between mods");
+        if (!orderSatisfied) {
+            sb.append("\n\nSuggested order:\n").append(String.join("\n", proposedOrder));
+        }
+        return sb.toString();
+    }
+
+    void save(File stageDir) {
+        File file = new File(stageDir, FILE_NAME);
+        File tmp = new File(file.getPath() + ".tmp");
+        if (!JsonIOUtils.write(tmp, gson.toJson(this)) || !tmp.renameTo(file)) {
+            tmp.delete();
+        }
+    }
+
+    public static ModLoadReport load(File cacheDir) {
+        String json = JsonIOUtils.read(new File(new File(cacheDir, ModNativeLoader.STAGE_DIR), FILE_NAME));
+        if (json == null) return null;
+        try {
+            return gson.fromJson(json, ModLoadReport.class);
+        } catch (JsonSyntaxException e) {
+            Log.w(TAG, "Discarding corrupt mod load report", e);
+            return null;
+        }
+    }
+}
@@ -10,10 +10,12 @@ import java.io.FileReader;
 import java.io.FileWriter;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 
 public class ModManager {
     private static volatile ModManager instance;
@@ -22,6 +24,8 @@ public class ModManager {
     private final Map<String, Boolean> enabledMap = new LinkedHashMap<>();
     private final List<String> modOrder = new ArrayList<>();
     private FileObserver modDirObserver;
+    private final Set<String> listedFiles = new HashSet<>();
+    private volatile boolean listingDirty = true;
     private GameVersion currentVersion;
     private final MutableLiveData<Void> modsChangedLiveData = new MutableLiveData<>();
     private final Gson gson = new Gson();
@@ -45,6 +49,7 @@ public class ModManager {
         if (Objects.equals(currentVersion, version)) return;
         stopFileObserver();
         currentVersion = version;
+        listingDirty = true;
 
         if (version != null && version.modsDir != null) {
             modsDir = version.modsDir;
@@ -65,29 +70,34 @@ public class ModManager {
         return currentVersion;
     }
 
-    public List<Mod> getMods() {
+    // The directory is only re-listed after the observer reports a change, so repeated calls
+    // (UI refreshes, launch staging) don't stat every mod file again.
+    public synchronized List<Mod> getMods() {
         if (modsDir == null) return new ArrayList<>();
 
         List<Mod> mods = new ArrayList<>();
-        File[] files = modsDir.listFiles((dir, name) -> name.endsWith(".so"));
         boolean changed = false;
+        if (listingDirty) {
+            listingDirty = false;
+            listedFiles.clear();
+            File[] files = modsDir.listFiles((dir, name) -> name.endsWith(".so"));
+            if (files != null) {
+                for (File file : files) listedFiles.add(file.getName());
+            }
+        }
 
         // Add new mods
-        if (files != null) {
-            for (File file : files) {
-                String fileName = file.getName();
-                if (!enabledMap.containsKey(fileName)) {
-                    enabledMap.put(fileName, true);
-                    modOrder.add(fileName);
-                    changed = true;
-                }
+        for (String fileName : listedFiles) {
+            if (!enabledMap.containsKey(fileName)) {
+                enabledMap.put(fileName, true);
+                modOrder.add(fileName);
+                changed = true;
             }
         }
 
         // Remove deleted mods
-        modOrder.removeIf(fileName -> {
-            File file = new File(modsDir, fileName);
-            if (!file.exists()) {
+        changed |= modOrder.removeIf(fileName -> {
+            if (!listedFiles.contains(fileName)) {
                 enabledMap.remove(fileName);
                 return true;
             }
@@ -177,6 +187,7 @@ public class ModManager {
                 FileObserver.CREATE | FileObserver.DELETE | FileObserver.MOVED_FROM | FileObserver.MOVED_TO) {
             @Override
             public void onEvent(int event, String path) {
+                listingDirty = true;
                 notifyModsChanged();
             }
         };
@@ -196,6 +207,7 @@ public class ModManager {
 
         File modFile = new File(modsDir, fileName);
         if (modFile.exists() && modFile.delete()) {
+            listedFiles.remove(fileName);
             enabledMap.remove(fileName);
             modOrder.remove(fileName);
             saveConfig();
@@ -223,6 +235,7 @@ public class ModManager {
     }
 
     public synchronized void refreshMods() {
+        listingDirty = true;
         notifyModsChanged();
     }
 }
\ No newline at end of file
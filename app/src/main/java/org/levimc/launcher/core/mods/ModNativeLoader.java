@@ -1,45 +1,200 @@
 package org.levimc.launcher.core.mods;
 
 import android.annotation.SuppressLint;
+import android.os.SystemClock;
 import android.util.Log;
 
+import org.levimc.launcher.core.versions.GameVersion;
+
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class ModNativeLoader {
     private static final String TAG = "ModNativeLoader";
-    @SuppressLint("UnsafeDynamicallyLoadedCode")
+    private static final int MAX_STAGE_THREADS = 4;
+    static final String STAGE_DIR = "mods";
+    private static final Object stageLock = new Object();
+    // Staging results waiting for the load phase, which completes and saves the report.
+    private static ModLoadReport pendingReport;
+    private static File pendingStageDir;
+
+    /**
+     * Brings cacheDir/mods up to date with the enabled mods of the current version and returns the
+     * staged files in load order. Mods whose source is unchanged since the last staging are reused.
+     */
+    public static List<File> stageEnabledSoMods(ModManager modManager, File cacheDir) {
+        List<File> staged = new ArrayList<>();
+        GameVersion version = modManager.getCurrentVersion();
+        if (version == null) return staged;
+        List<String> enabled = new ArrayList<>();
+        for (Mod mod : modManager.getMods()) {
+            if (mod.isEnabled()) enabled.add(mod.getFileName());
+        }
+        if (enabled.isEmpty()) return staged;
+
+        File dir = new File(cacheDir, STAGE_DIR);
+        if (!dir.exists()) dir.mkdirs();
+        ModLoadReport report = new ModLoadReport();
+        long start = SystemClock.elapsedRealtime();
+        synchronized (stageLock) {
+            StagedModManifest manifest = new StagedModManifest(dir);
+            int threads = Math.min(enabled.size(), Math.min(Runtime.getRuntime().availableProcessors(), MAX_STAGE_THREADS));
+            ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+            try {
+                List<Future<File>> futures = new ArrayList<>(enabled.size());
+                for (String fileName : enabled) {
+                    File src = new File(version.modsDir, fileName);
+                    ModLoadReport.Entry entry = report.entry(fileName);
+                    futures.add(pool.submit(() -> {
+                        long t = SystemClock.elapsedRealtime();
+                        File dst = stageMod(src, new File(dir, fileName), manifest);
+                        entry.stageMillis = SystemClock.elapsedRealtime() - t;
+                        return dst;
+                    }));
+                }
+                // Collected in submission order so the load phase keeps the order from modOrder.
+                for (int i = 0; i < futures.size(); i++) {
+                    try {
+                        staged.add(futures.get(i).get());
+                    } catch (ExecutionException e) {
+                        Log.e(TAG, "Can't stage " + enabled.get(i) + ": " + e.getCause().getMessage());
+                        report.entry(enabled.get(i)).error = "staging failed: " + e.getCause().getMessage();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                pool.shutdownNow();
+                manifest.save();
+            }
+            report.totalStageMillis = SystemClock.elapsedRealtime() - start;
+            pendingReport = report;
+            pendingStageDir = dir;
+        }
+        return staged;
+    }
+
     public static void loadEnabledSoMods(ModManager modManager, File cacheDir) {
-        List<Mod> mods = modManager.getMods();
-        for (Mod mod : mods) {
-            if (!mod.isEnabled()) continue;
-            File src = new File(modManager.getCurrentVersion().modsDir, mod.getFileName());
-            File dir = new File(cacheDir, "mods");
-            if (!dir.exists()) dir.mkdirs();
-            File dst = new File(dir, mod.getFileName());
+        loadStagedSoMods(stageEnabledSoMods(modManager, cacheDir));
+    }
+
+    @SuppressLint("UnsafeDynamicallyLoadedCode")
+    public static void loadStagedSoMods(List<File> staged) {
+        ModLoadReport report;
+        File stageDir;
+        synchronized (stageLock) {
+            report = pendingReport != null ? pendingReport : new ModLoadReport();
+            stageDir = pendingStageDir != null ? pendingStageDir : staged.isEmpty() ? null : staged.get(0).getParentFile();
+            pendingReport = null;
+            pendingStageDir = null;
+        }
+        report.analyzeDependencies(staged);
+        if (!report.orderSatisfied) {
+            Log.w(TAG, "Mod order doesn't satisfy DT_NEEDED dependencies, suggested: " + report.proposedOrder);
+        }
+
+        long start = SystemClock.elapsedRealtime();
+        for (File dst : staged) {
+            ModLoadReport.Entry entry = report.entry(dst.getName());
+            long t = SystemClock.elapsedRealtime();
             try {
-                copyFile(src, dst);
                 System.load(dst.getAbsolutePath());
+                entry.loaded = true;
                 Log.i(TAG, "Loaded so: " + dst.getName());
-            } catch (IOException | UnsatisfiedLinkError e) {
-                Log.e(TAG, "Can't load " + src.getName() + ": " + e.getMessage());
+            } catch (UnsatisfiedLinkError e) {
+                entry.error = e.getMessage();
+                Log.e(TAG, "Can't load " + dst.getName() + ": " + e.getMessage());
             }
+            // System.load runs JNI_OnLoad, so this covers the mod's own initialisation too.
+            entry.loadMillis = SystemClock.elapsedRealtime() - t;
         }
+        report.totalLoadMillis = SystemClock.elapsedRealtime() - start;
+        report.timestamp = System.currentTimeMillis();
+        if (stageDir != null) report.save(stageDir);
     }
 
-    private static void copyFile(File src, File dst) throws IOException {
-        try (InputStream in = new FileInputStream(src);
-             OutputStream out = new FileOutputStream(dst)) {
-            byte[] buf = new byte[8192];
+    private static File stageMod(File src, File dst, StagedModManifest manifest) throws IOException {
+        String fileName = dst.getName();
+        long srcSize = src.length();
+        long srcMtime = src.lastModified();
+        if (srcSize == 0 && !src.isFile()) {
+            manifest.remove(fileName);
+            throw new IOException(src + " not found");
+        }
+        StagedModManifest.Record record = manifest.get(fileName);
+        boolean stagedIntact = record != null && src.getAbsolutePath().equals(record.source)
+                && dst.isFile() && dst.length() == record.sourceSize && dst.lastModified() == record.stagedMtime;
+        if (stagedIntact && record.sourceSize == srcSize) {
+            if (record.sourceMtime == srcMtime) return dst;
+            // Touched but possibly identical (e.g. re-imported): compare contents before copying.
+            if (sha256(src).equals(record.sha256)) {
+                record.sourceMtime = srcMtime;
+                manifest.put(fileName, record);
+                return dst;
+            }
+        }
+
+        File tmp = new File(dst.getPath() + ".tmp");
+        String hash;
+        try (DigestInputStream in = new DigestInputStream(new FileInputStream(src), newDigest())) {
+            Files.copy(in, tmp.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            hash = hex(in.getMessageDigest().digest());
+        } catch (IOException e) {
+            tmp.delete();
+            throw e;
+        }
+        Files.move(tmp.toPath(), dst.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+        StagedModManifest.Record updated = new StagedModManifest.Record();
+        updated.source = src.getAbsolutePath();
+        updated.sourceSize = srcSize;
+        updated.sourceMtime = srcMtime;
+        updated.stagedMtime = dst.lastModified();
+        updated.sha256 = hash;
+        manifest.put(fileName, updated);
+        Log.d(TAG, "Staged " + fileName);
+        return dst;
+    }
+
+    private static String sha256(File file) throws IOException {
+        MessageDigest md = newDigest();
+        try (InputStream in = new FileInputStream(file)) {
+            byte[] buffer = new byte[64 * 1024];
             int len;
-            while ((len = in.read(buf)) > 0) {
-                out.write(buf, 0, len);
+            while ((len = in.read(buffer)) != -1) {
+                md.update(buffer, 0, len);
             }
         }
+        return hex(md.digest());
+    }
+
+    private static MessageDigest newDigest() throws IOException {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(String.format(Locale.ROOT, "%02x", b & 0xFF));
+        }
+        return sb.toString();
     }
 }
@@ -0,0 +1,68 @@
+package org.levimc.launcher.core.mods;
+
+import android.util.Log;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.reflect.TypeToken;
+
+import org.levimc.launcher.util.JsonIOUtils;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+class StagedModManifest {
+    private static final String TAG = "StagedModManifest";
+    private static final String FILE_NAME = "staged_mods.json";
+    private static final Gson gson = new Gson();
+
+    static class Record {
+        String source;
+        long sourceSize;
+        long sourceMtime;
+        long stagedMtime;
+        String sha256;
+    }
+
+    private final File file;
+    private final Map<String, Record> records = new ConcurrentHashMap<>();
+    private volatile boolean dirty;
+
+    StagedModManifest(File stageDir) {
+        this.file = new File(stageDir, FILE_NAME);
+        String json = JsonIOUtils.read(file);
+        if (json == null) return;
+        try {
+            Map<String, Record> loaded = gson.fromJson(json, new TypeToken<HashMap<String, Record>>() {
+            }.getType());
+            if (loaded != null) records.putAll(loaded);
+        } catch (JsonSyntaxException e) {
+            Log.w(TAG, "Discarding corrupt staged mod manifest", e);
+        }
+    }
+
+    Record get(String fileName) {
+        return records.get(fileName);
+    }
+
+    void put(String fileName, Record record) {
+        records.put(fileName, record);
+        dirty = true;
+    }
+
+    void remove(String fileName) {
+        if (records.remove(fileName) != null) dirty = true;
+    }
+
+    synchronized void save() {
+        if (!dirty) return;
+        File tmp = new File(file.getPath() + ".tmp");
+        if (JsonIOUtils.write(tmp, gson.toJson(records)) && tmp.renameTo(file)) {
+            dirty = false;
+        } else {
+            tmp.delete();
+        }
+    }
+}
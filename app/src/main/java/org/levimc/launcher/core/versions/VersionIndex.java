@@ -0,0 +1,289 @@
+package org.levimc.launcher.core.versions;
+
+import android.content.Context;
+import android.content.pm.ChangedPackages;
+import android.content.pm.PackageManager;
+import android.os.Build;
+import android.os.FileObserver;
+import android.provider.Settings;
+import android.system.ErrnoException;
+import android.system.Os;
+import android.system.StructStat;
+import android.util.Log;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+
+import org.levimc.launcher.util.JsonIOUtils;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+class VersionIndex {
+    private static final String TAG = "VersionIndex";
+    private static final String INDEX_FILE = "version_index.json";
+    private static final String APK_FILE_NAME = "base.apk.levi";
+    private static final Gson gson = new Gson();
+
+    static class InstalledEntry {
+        String packageName;
+        String versionName;
+        int versionCode;
+        long lastUpdateTime;
+        String label;
+        String nativeLibraryDir;
+        boolean hasSoFiles;
+    }
+
+    static class CustomEntry {
+        String dirName;
+        long dirMtime;
+        long apkSize;
+        long apkMtime;
+        long dataMtime;
+        long libMtime;
+        String versionTxt;
+        String displayNameTxt;
+        boolean libOk;
+        boolean txtOk;
+        String abiList;
+    }
+
+    private static class Snapshot {
+        int bootCount = -1;
+        int packageSequence = -1;
+        List<InstalledEntry> installed = new ArrayList<>();
+        List<CustomEntry> custom = new ArrayList<>();
+    }
+
+    private final Context context;
+    private final File indexFile;
+    private final File baseDir;
+    private final Map<String, InstalledEntry> installed = new LinkedHashMap<>();
+    private final Map<String, CustomEntry> custom = new LinkedHashMap<>();
+    private final Set<String> dirtyDirs = ConcurrentHashMap.newKeySet();
+    private final Map<String, FileObserver> dirObservers = new HashMap<>();
+    private FileObserver baseDirObserver;
+    private volatile boolean baseDirDirty = true;
+    private int bootCount = -1;
+    private int packageSequence = -1;
+    private boolean installedLoaded;
+    private boolean dirty;
+
+    VersionIndex(Context context, File baseDir) {
+        this.context = context;
+        this.baseDir = baseDir;
+        this.indexFile = new File(context.getFilesDir(), INDEX_FILE);
+        load();
+    }
+
+    private void load() {
+        String json = JsonIOUtils.read(indexFile);
+        if (json == null) return;
+        try {
+            Snapshot snapshot = gson.fromJson(json, Snapshot.class);
+            if (snapshot == null) return;
+            if (snapshot.bootCount == currentBootCount()) {
+                bootCount = snapshot.bootCount;
+                packageSequence = snapshot.packageSequence;
+                if (snapshot.installed != null) {
+                    for (InstalledEntry e : snapshot.installed) installed.put(e.packageName, e);
+                    installedLoaded = true;
+                }
+            }
+            if (snapshot.custom != null) {
+                for (CustomEntry e : snapshot.custom) custom.put(e.dirName, e);
+            }
+        } catch (JsonSyntaxException e) {
+            Log.w(TAG, "Discarding corrupt version index", e);
+        }
+    }
+
+    synchronized void save() {
+        if (!dirty) return;
+        Snapshot snapshot = new Snapshot();
+        snapshot.bootCount = bootCount;
+        snapshot.packageSequence = packageSequence;
+        snapshot.installed = new ArrayList<>(installed.values());
+        snapshot.custom = new ArrayList<>(custom.values());
+        File tmp = new File(indexFile.getPath() + ".tmp");
+        if (JsonIOUtils.write(tmp, gson.toJson(snapshot)) && tmp.renameTo(indexFile)) {
+            dirty = false;
+        } else {
+            tmp.delete();
+        }
+    }
+
+    // Re-queries only packages reported by getChangedPackages since the last check; falls back
+    // to a full scan after a reboot, on first run or below API 26.
+    synchronized List<InstalledEntry> installedEntries(PackageManager pm, InstalledScanner scanner) {
+        int boot = currentBootCount();
+        boolean fullScan = !installedLoaded || Build.VERSION.SDK_INT < Build.VERSION_CODES.O
+                || boot != bootCount || packageSequence < 0;
+        if (fullScan) {
+            installed.clear();
+            for (InstalledEntry e : scanner.scanAll()) installed.put(e.packageName, e);
+            installedLoaded = true;
+            bootCount = boot;
+            packageSequence = -1;
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+                ChangedPackages all = pm.getChangedPackages(0);
+                packageSequence = all != null ? all.getSequenceNumber() : 0;
+            }
+            dirty = true;
+        } else {
+            ChangedPackages changed = pm.getChangedPackages(packageSequence);
+            if (changed != null) {
+                packageSequence = changed.getSequenceNumber();
+                for (String name : changed.getPackageNames()) {
+                    if (!scanner.accepts(name)) continue;
+                    InstalledEntry e = scanner.scan(name);
+                    if (e != null) installed.put(name, e);
+                    else installed.remove(name);
+                }
+                dirty = true;
+            }
+        }
+        return new ArrayList<>(installed.values());
+    }
+
+    // Lists version directories under the base dir, reusing cached entries whose keys still match.
+    synchronized List<CustomEntry> customEntries(CustomScanner scanner) {
+        List<CustomEntry> result = new ArrayList<>();
+        File[] dirs = baseDir.listFiles();
+        Map<String, CustomEntry> next = new LinkedHashMap<>();
+        boolean trusted = baseDirObserver != null && !baseDirDirty;
+        baseDirDirty = false;
+        if (dirs != null) {
+            for (File dir : dirs) {
+                String name = dir.getName();
+                CustomEntry cached = custom.get(name);
+                boolean forced = dirtyDirs.remove(name);
+                // The lib dir lives under the app's data dir, which no observer watches, so it is
+                // checked even on the trusted path.
+                long libMtime = libMtime(scanner.dataDir(name));
+                if (trusted && cached != null && !forced && cached.libMtime == libMtime) {
+                    next.put(name, cached);
+                    result.add(cached);
+                    continue;
+                }
+                if (forced) {
+                    FileObserver stale = dirObservers.remove(name);
+                    if (stale != null) stale.stopWatching();
+                }
+                StructStat apk = stat(new File(dir, APK_FILE_NAME));
+                if (apk == null) continue;
+                long dirMtime = mtime(dir);
+                long dataMtime = mtime(scanner.dataDir(name));
+                if (forced || cached == null || cached.apkSize != apk.st_size || cached.apkMtime != apk.st_mtime
+                        || cached.dirMtime != dirMtime || cached.dataMtime != dataMtime || cached.libMtime != libMtime) {
+                    cached = new CustomEntry();
+                    cached.dirName = name;
+                    cached.apkSize = apk.st_size;
+                    cached.apkMtime = apk.st_mtime;
+                    cached.dirMtime = dirMtime;
+                    cached.dataMtime = dataMtime;
+                    cached.libMtime = libMtime;
+                    scanner.scan(dir, cached);
+                    dirty = true;
+                }
+                next.put(name, cached);
+                result.add(cached);
+            }
+        }
+        if (!next.keySet().equals(custom.keySet())) dirty = true;
+        custom.clear();
+        custom.putAll(next);
+        watch(next.keySet());
+        return result;
+    }
+
+    void invalidate(String dirName) {
+        if (dirName != null) dirtyDirs.add(dirName);
+    }
+
+    void invalidateAll() {
+        baseDirDirty = true;
+    }
+
+    private void watch(Set<String> dirNames) {
+        if (baseDirObserver == null && baseDir.isDirectory()) {
+            baseDirObserver = new FileObserver(baseDir.getAbsolutePath(),
+                    FileObserver.CREATE | FileObserver.DELETE | FileObserver.MOVED_FROM | FileObserver.MOVED_TO | FileObserver.DELETE_SELF) {
+                @Override
+                public void onEvent(int event, String path) {
+                    baseDirDirty = true;
+                    if (path != null) dirtyDirs.add(path);
+                }
+            };
+            baseDirObserver.startWatching();
+        }
+        dirObservers.entrySet().removeIf(e -> {
+            if (dirNames.contains(e.getKey())) return false;
+            e.getValue().stopWatching();
+            return true;
+        });
+        for (String name : dirNames) {
+            if (dirObservers.containsKey(name)) continue;
+            FileObserver observer = new FileObserver(new File(baseDir, name).getAbsolutePath(),
+                    FileObserver.CLOSE_WRITE | FileObserver.CREATE | FileObserver.DELETE | FileObserver.MOVED_FROM
+                            | FileObserver.MOVED_TO | FileObserver.DELETE_SELF) {
+                @Override
+                public void onEvent(int event, String path) {
+                    dirtyDirs.add(name);
+                }
+            };
+            observer.startWatching();
+            dirObservers.put(name, observer);
+        }
+    }
+
+    private int currentBootCount() {
+        return Settings.Global.getInt(context.getContentResolver(), Settings.Global.BOOT_COUNT, -1);
+    }
+
+    private static StructStat stat(File file) {
+        try {
+            return Os.stat(file.getAbsolutePath());
+        } catch (ErrnoException e) {
+            return null;
+        }
+    }
+
+    // Newest mtime of lib/ and its per-ABI directories: adding, removing or replacing a .so
+    // touches the ABI directory rather than lib/ itself.
+    private static long libMtime(File dataDir) {
+        File libDir = new File(dataDir, "lib");
+        long newest = mtime(libDir);
+        File[] abiDirs = libDir.listFiles(File::isDirectory);
+        if (abiDirs != null) {
+            for (File abiDir : abiDirs) newest = Math.max(newest, mtime(abiDir));
+        }
+        return newest;
+    }
+
+    private static long mtime(File file) {
+        StructStat st = stat(file);
+        return st != null ? st.st_mtime : -1;
+    }
+
+    interface InstalledScanner {
+        boolean accepts(String packageName);
+
+        InstalledEntry scan(String packageName);
+
+        List<InstalledEntry> scanAll();
+    }
+
+    interface CustomScanner {
+        File dataDir(String dirName);
+
+        void scan(File dir, CustomEntry entry);
+    }
+}
@@ -12,13 +12,14 @@ import android.os.Environment;
 import androidx.annotation.NonNull;
 
 import org.levimc.launcher.R;
+import org.levimc.launcher.core.content.WorldSnapshotStore;
 import org.levimc.launcher.core.mods.ModManager;
 import org.levimc.launcher.ui.activities.MainActivity;
 import org.levimc.launcher.ui.dialogs.CustomAlertDialog;
 import org.levimc.launcher.ui.dialogs.LibsRepairDialog;
-import org.levimc.launcher.util.ApkUtils;
+import org.levimc.launcher.util.NativeLibCache;
+import org.levimc.launcher.util.NativeLibExtractor;
 
-import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -27,15 +28,12 @@ import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
 
 public class VersionManager {
     private static final String PREFS_NAME = "version_manager";
     private static final String KEY_SELECTED_TYPE = "selected_type";
     private static final String KEY_SELECTED_PACKAGE = "selected_package";
     private static final String KEY_SELECTED_DIR = "selected_dir";
-    private static final int BUFFER_SIZE = 8192;
 
     private static VersionManager instance;
     private final Context context;
@@ -43,6 +41,7 @@ public class VersionManager {
     private final List<GameVersion> customVersions = new ArrayList<>();
     private GameVersion selectedVersion;
     private final SharedPreferences prefs;
+    private final VersionIndex versionIndex;
 
     public interface LibsRepairCallback {
         void onRepairStarted();
@@ -80,6 +79,7 @@ public class VersionManager {
     private VersionManager(Context ctx) {
         this.context = ctx;
         this.prefs = ctx.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        this.versionIndex = new VersionIndex(ctx, getCustomBaseDir());
         loadAllVersions();
     }
 
@@ -109,19 +109,7 @@ public class VersionManager {
 
     private String inferAbiFromNativeLibDir(String nativeLibDir, GameVersion version) {
         if (version != null && !version.isInstalled) {
-            File libDir = new File(context.getDataDir(), "minecraft/" + version.directoryName + "/lib/");
-            String[] abiDirs = {"arm64", "arm", "x86_64", "x86"};
-            for (String abiDir : abiDirs) {
-                File soFile = new File(libDir, abiDir + "/libminecraftpe.so");
-                if (soFile.exists()) {
-                    return switch (abiDir) {
-                        case "arm64" -> "arm64-v8a";
-                        case "arm" -> "armeabi-v7a";
-                        default -> abiDir;
-                    };
-                }
-            }
-            return "unknown";
+            return inferAbiFromDataLibDir(version.directoryName);
         }
         if (nativeLibDir == null) return "unknown";
         if (nativeLibDir.contains("arm64")) return "arm64-v8a";
@@ -131,6 +119,22 @@ public class VersionManager {
         return "unknown";
     }
 
+    private String inferAbiFromDataLibDir(String dirName) {
+        File libDir = new File(context.getDataDir(), "minecraft/" + dirName + "/lib/");
+        String[] abiDirs = {"arm64", "arm", "x86_64", "x86"};
+        for (String abiDir : abiDirs) {
+            File soFile = new File(libDir, abiDir + "/libminecraftpe.so");
+            if (soFile.exists()) {
+                return switch (abiDir) {
+                    case "arm64" -> "arm64-v8a";
+                    case "arm" -> "armeabi-v7a";
+                    default -> abiDir;
+                };
+            }
+        }
+        return "unknown";
+    }
+
     private String getApkVersionName(File apkFile) {
         try (net.dongliu.apk.parser.ApkFile apk = new net.dongliu.apk.parser.ApkFile(apkFile)) {
             net.dongliu.apk.parser.bean.ApkMeta meta = apk.getApkMeta();
@@ -164,50 +168,30 @@ public class VersionManager {
 
                 if (onlyVersionTxt) {
                     writeVersionTxt(apkFile, dataDir);
+                    versionIndex.invalidate(dataDirName);
                     callback.onRepairCompleted(true);
                     return;
                 }
 
-                long totalSize = getLibsTotalSize(apkFile);
-                if (totalSize == 0) totalSize = 1;
-
                 File libDir = new File(dataDir, "lib");
                 if (libDir.exists()) {
                     deleteDir(libDir);
                 }
-                long[] progress = {0};
                 int[] lastPercent = {-1};
-
-                try (ZipInputStream zis = new ZipInputStream(new BufferedInputStream(new FileInputStream(apkFile)))) {
-                    ZipEntry entry;
-                    byte[] buffer = new byte[BUFFER_SIZE];
-                    while ((entry = zis.getNextEntry()) != null) {
-                        if (entry.getName().startsWith("lib/") && !entry.isDirectory()) {
-                            String[] parts = entry.getName().split("/");
-                            if (parts.length >= 3) {
-                                File outFile = new File(libDir, ApkUtils.abiToSystemLibDir(parts[1]) + "/" + parts[2]);
-                                if (!outFile.getParentFile().exists()) outFile.getParentFile().mkdirs();
-
-                                try (FileOutputStream fos = new FileOutputStream(outFile)) {
-                                    int len;
-                                    while ((len = zis.read(buffer)) != -1) {
-                                        fos.write(buffer, 0, len);
-                                        progress[0] += len;
-                                    }
-                                }
-
-                                int percent = (int) ((progress[0] * 100) / totalSize);
-                                if (percent != lastPercent[0]) {
-                                    callback.onRepairProgress(percent);
-                                    lastPercent[0] = percent;
-                                }
-                            }
+                try {
+                    NativeLibExtractor.extract(apkFile, libDir, NativeLibCache.get(context), (done, total) -> {
+                        int percent = (int) (done * 100 / Math.max(total, 1));
+                        if (percent != lastPercent[0]) {
+                            callback.onRepairProgress(percent);
+                            lastPercent[0] = percent;
                         }
-                    }
+                    });
+                    writeVersionTxt(apkFile, dataDir);
+                } finally {
+                    // The lib dir was deleted above, so the cached libOk is stale even if this failed.
+                    versionIndex.invalidate(dataDirName);
                 }
 
-                writeVersionTxt(apkFile, dataDir);
-
                 callback.onRepairCompleted(true);
 
             } catch (Exception e) {
@@ -222,58 +206,24 @@ public class VersionManager {
         writeStringToFile(new File(dataDir, "version.txt"), versionName);
     }
 
-    private long getLibsTotalSize(File apkFile) throws IOException {
-        long totalSize = 0;
-        try (java.util.zip.ZipFile zipFile = new java.util.zip.ZipFile(apkFile)) {
-            java.util.Enumeration<? extends java.util.zip.ZipEntry> entries = zipFile.entries();
-            while (entries.hasMoreElements()) {
-                java.util.zip.ZipEntry entry = entries.nextElement();
-                String name = entry.getName();
-                if (name != null && name.startsWith("lib/") && !entry.isDirectory()) {
-                    long size = entry.getSize();
-                    if (size < 0) {
-                        size = entry.getCompressedSize();
-                    }
-                    if (size > 0) {
-                        totalSize += size;
-                    }
-                }
-            }
-        }
-        return totalSize;
-    }
-
-    public void loadAllVersions() {
+    public synchronized void loadAllVersions() {
         installedVersions.clear();
         customVersions.clear();
 
         PackageManager pm = context.getPackageManager();
-        List<PackageInfo> pkgs = pm.getInstalledPackages(0);
-
-        for (PackageInfo pi : pkgs) {
-            if (!isMinecraftPackage(pi.packageName)) continue;
-
-            File versionDir = getVersionDirForPackage(pi.packageName);
-            if (!versionDir.exists()) versionDir.mkdirs();
-            
-            File gamesDir = new File(versionDir, "games/com.mojang");
-            if (!gamesDir.exists()) gamesDir.mkdirs();
-
-            String displayName = pi.applicationInfo.loadLabel(pm) + " (" + pi.versionName + ")";
-            boolean hasSoFiles = hasSoFilesInDir(new File(pi.applicationInfo.nativeLibraryDir));
-
+        for (VersionIndex.InstalledEntry entry : versionIndex.installedEntries(pm, installedScanner)) {
             GameVersion gv = new GameVersion(
-                    pi.packageName + "_" + pi.versionCode,
-                    displayName,
-                    pi.versionName,
-                    versionDir,
+                    entry.packageName + "_" + entry.versionCode,
+                    entry.label + " (" + entry.versionName + ")",
+                    entry.versionName,
+                    getVersionDirForPackage(entry.packageName),
                     true,
-                    pi.packageName,
+                    entry.packageName,
                     "unknown"
             );
 
             gv.needsRepair = false;
-            if (!hasSoFiles) {
+            if (!entry.hasSoFiles) {
                 gv.isExtractFalse = true;
                 boolean libOk = hasLibSoUnderLibDir(gv.directoryName);
                 if (!libOk) {
@@ -281,37 +231,97 @@ public class VersionManager {
                 }
             }
 
-            gv.abiList = inferAbiFromNativeLibDir(pi.applicationInfo.nativeLibraryDir, gv);
+            gv.abiList = inferAbiFromNativeLibDir(entry.nativeLibraryDir, gv);
             installedVersions.add(gv);
         }
 
-        File baseDir = new File(Environment.getExternalStorageDirectory(), "games/org.levimc/minecraft/");
-        File[] dirs = baseDir.listFiles(File::isDirectory);
-
-        if (dirs != null) {
-            for (File dir : dirs) {
-                File apk = new File(dir, "base.apk.levi");
-                if (!apk.exists()) continue;
+        for (VersionIndex.CustomEntry entry : versionIndex.customEntries(customScanner)) {
+            GameVersion gv = getGameVersion(new File(getCustomBaseDir(), entry.dirName), entry);
+            gv.needsRepair = false;
+            gv.onlyVersionTxt = false;
+
+            if (!entry.libOk) {
+                gv.needsRepair = true;
+                appendRepairMark(gv);
+            } else if (!entry.txtOk) {
+                gv.needsRepair = true;
+                gv.onlyVersionTxt = true;
+                appendRepairMark(gv);
+            }
+            customVersions.add(gv);
+        }
+        versionIndex.save();
+        restoreSelectedVersion();
+    }
 
-                boolean libOk = hasLibSoUnderLibDir(dir.getName());
-                boolean txtOk = hasValidVersionTxt(dir.getName());
+    private final VersionIndex.InstalledScanner installedScanner = new VersionIndex.InstalledScanner() {
+        @Override
+        public boolean accepts(String packageName) {
+            return isMinecraftPackage(packageName);
+        }
 
-                GameVersion gv = getGameVersion(dir);
-                gv.needsRepair = false;
-                gv.onlyVersionTxt = false;
+        @Override
+        public VersionIndex.InstalledEntry scan(String packageName) {
+            try {
+                return toInstalledEntry(context.getPackageManager().getPackageInfo(packageName, 0));
+            } catch (PackageManager.NameNotFoundException e) {
+                return null;
+            }
+        }
 
-                if (!libOk) {
-                    gv.needsRepair = true;
-                    appendRepairMark(gv);
-                } else if (!txtOk) {
-                    gv.needsRepair = true;
-                    gv.onlyVersionTxt = true;
-                    appendRepairMark(gv);
-                }
-                customVersions.add(gv);
+        @Override
+        public List<VersionIndex.InstalledEntry> scanAll() {
+            List<VersionIndex.InstalledEntry> result = new ArrayList<>();
+            for (PackageInfo pi : context.getPackageManager().getInstalledPackages(0)) {
+                if (isMinecraftPackage(pi.packageName)) result.add(toInstalledEntry(pi));
             }
+            return result;
         }
-        restoreSelectedVersion();
+    };
+
+    private final VersionIndex.CustomScanner customScanner = new VersionIndex.CustomScanner() {
+        @Override
+        public File dataDir(String dirName) {
+            return new File(context.getDataDir(), "minecraft/" + dirName);
+        }
+
+        @Override
+        public void scan(File dir, VersionIndex.CustomEntry entry) {
+            String dirName = dir.getName();
+            entry.libOk = hasLibSoUnderLibDir(dirName);
+            entry.txtOk = hasValidVersionTxt(dirName);
+            entry.versionTxt = readFileToString(new File(dataDir(dirName), "version.txt"));
+            entry.displayNameTxt = readFileToString(new File(dataDir(dirName), "display_name.txt"));
+            entry.abiList = inferAbiFromDataLibDir(dirName);
+        }
+    };
+
+    private VersionIndex.InstalledEntry toInstalledEntry(PackageInfo pi) {
+        PackageManager pm = context.getPackageManager();
+        File versionDir = getVersionDirForPackage(pi.packageName);
+        if (!versionDir.exists()) versionDir.mkdirs();
+
+        File gamesDir = new File(versionDir, "games/com.mojang");
+        if (!gamesDir.exists()) gamesDir.mkdirs();
+
+        VersionIndex.InstalledEntry entry = new VersionIndex.InstalledEntry();
+        entry.packageName = pi.packageName;
+        entry.versionName = pi.versionName;
+        entry.versionCode = pi.versionCode;
+        entry.lastUpdateTime = pi.lastUpdateTime;
+        entry.label = String.valueOf(pi.applicationInfo.loadLabel(pm));
+        entry.nativeLibraryDir = pi.applicationInfo.nativeLibraryDir;
+        entry.hasSoFiles = hasSoFilesInDir(new File(pi.applicationInfo.nativeLibraryDir));
+        return entry;
+    }
+
+    public void invalidateVersion(String dirName) {
+        versionIndex.invalidate(dirName);
+    }
+
+    @NonNull
+    private File getCustomBaseDir() {
+        return new File(Environment.getExternalStorageDirectory(), "games/org.levimc/minecraft/");
     }
 
     @NonNull
@@ -351,25 +361,16 @@ public class VersionManager {
     }
 
     @NonNull
-    private GameVersion getGameVersion(File dir) {
+    private GameVersion getGameVersion(File dir, VersionIndex.CustomEntry entry) {
         String versionCode = dir.getName();
         String displayName = dir.getName();
 
-        // Read version code from version.txt
-        File versionTxt = new File(context.getDataDir(), "minecraft/" + dir.getName() + "/version.txt");
-        if (versionTxt.exists()) {
-            String txt = readFileToString(versionTxt);
-            if (!txt.isEmpty()) {
-                versionCode = txt;
-            }
+        if (entry.versionTxt != null && !entry.versionTxt.isEmpty()) {
+            versionCode = entry.versionTxt;
         }
 
-        File displayNameTxt = new File(context.getDataDir(), "minecraft/" + dir.getName() + "/display_name.txt");
-        if (displayNameTxt.exists()) {
-            String customName = readFileToString(displayNameTxt);
-            if (!customName.isEmpty()) {
-                displayName = customName;
-            }
+        if (entry.displayNameTxt != null && !entry.displayNameTxt.isEmpty()) {
+            displayName = entry.displayNameTxt;
         }
 
         displayName = displayName + " (" + versionCode + ")";
@@ -387,7 +388,7 @@ public class VersionManager {
         gv.isExtractFalse = false;
         gv.directoryName = dir.getName();
 
-        gv.abiList = inferAbiFromNativeLibDir(null, gv);
+        gv.abiList = entry.abiList != null ? entry.abiList : "unknown";
 
         return gv;
     }
@@ -554,6 +555,7 @@ public class VersionManager {
 
                 File displayNameFile = new File(dataDir, "display_name.txt");
                 boolean success = writeStringToFile(displayNameFile, newDisplayName.trim());
+                versionIndex.invalidate(version.directoryName);
 
                 if (success) {
                     reload();
@@ -591,20 +593,16 @@ public class VersionManager {
                 if (extDir != null && extDir.exists()) {
                     File worldsDir = new File(extDir, "games/com.mojang/minecraftWorlds");
                     if (worldsDir.exists() && worldsDir.isDirectory()) {
-                        String backupBase = context.getExternalFilesDir("backups").getAbsolutePath();
-                        String timeStr = new java.text.SimpleDateFormat("yyyyMMdd_HHmmss", java.util.Locale.getDefault()).format(new java.util.Date());
-                        File backupDir = new File(backupBase, timeStr);
-                        backupDir.mkdirs();
-
+                        WorldSnapshotStore snapshots = WorldSnapshotStore.get(context);
                         File[] worldFolders = worldsDir.listFiles(file -> file.isDirectory());
                         if (worldFolders != null) {
                             for (File worldFolder : worldFolders) {
-                                File destFolder = new File(backupDir, worldFolder.getName());
-                                copyDirectory(worldFolder, destFolder);
+                                snapshots.create(worldFolder, null);
                             }
                         }
                     }
                     deleteDir(extDir);
+                    versionIndex.invalidate(extDir.getName());
                 }
 
                 File intBaseDir = new File(context.getDataDir(), "minecraft");
@@ -616,6 +614,7 @@ public class VersionManager {
                 if (intDir.exists()) {
                     deleteDir(intDir);
                 }
+                NativeLibCache.get(context).prune();
 
                 if (isSelected) {
                     selectedVersion = null;
@@ -640,21 +639,6 @@ public class VersionManager {
         }).start();
     }
 
-    private void copyDirectory(File sourceDir, File targetDir) throws IOException {
-        if (sourceDir.isDirectory()) {
-            if (!targetDir.exists())
-                targetDir.mkdirs();
-            String[] children = sourceDir.list();
-            if (children != null) {
-                for (String child : children) {
-                    copyDirectory(new File(sourceDir, child), new File(targetDir, child));
-                }
-            }
-        } else {
-            java.nio.file.Files.copy(sourceDir.toPath(), targetDir.toPath(), java.nio.file.StandardCopyOption.REPLACE_EXISTING);
-        }
-    }
-
     private boolean deleteDir(File file) {
         if (file == null || !file.exists()) return true;
         if (file.isDirectory()) {
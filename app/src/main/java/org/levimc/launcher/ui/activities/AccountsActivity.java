@@ -17,6 +17,7 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import org.levimc.launcher.R;
 import org.levimc.launcher.core.auth.MsftAccountStore;
 import org.levimc.launcher.core.auth.MsftAuthManager;
+import org.levimc.launcher.core.auth.TokenRefreshScheduler;
 import org.levimc.launcher.ui.adapter.AccountsAdapter;
 import org.levimc.launcher.ui.animation.DynamicAnim;
 import org.levimc.launcher.ui.dialogs.LoadingDialog;
@@ -182,6 +183,7 @@ public class AccountsActivity extends BaseActivity {
             @Override
             public void onDelete(MsftAccountStore.MsftAccount account) {
                 MsftAccountStore.remove(AccountsActivity.this, account.id);
+                TokenRefreshScheduler.get(AccountsActivity.this).forget(account.msUserId);
                 Toast.makeText(AccountsActivity.this, R.string.ms_delete, Toast.LENGTH_SHORT).show();
                 refreshUI();
             }
@@ -3,6 +3,10 @@ package org.levimc.launcher.ui.activities;
 import android.content.Intent;
 import android.net.Uri;
 import android.os.Bundle;
+import android.text.format.Formatter;
+import android.view.Menu;
+import android.view.View;
+import android.widget.PopupMenu;
 import android.widget.Toast;
 
 import androidx.activity.result.ActivityResultLauncher;
@@ -15,8 +19,10 @@ import org.levimc.launcher.R;
 import org.levimc.launcher.core.content.ContentManager;
 import org.levimc.launcher.core.content.ResourcePackItem;
 import org.levimc.launcher.core.content.ResourcePackManager;
+import org.levimc.launcher.core.content.WorldDbAnalyzer;
 import org.levimc.launcher.core.content.WorldItem;
 import org.levimc.launcher.core.content.WorldManager;
+import org.levimc.launcher.core.content.WorldSnapshotStore;
 import org.levimc.launcher.core.versions.GameVersion;
 import org.levimc.launcher.core.versions.VersionManager;
 import org.levimc.launcher.databinding.ActivityContentManagementBinding;
@@ -25,6 +31,11 @@ import org.levimc.launcher.ui.adapter.WorldsAdapter;
 import org.levimc.launcher.ui.dialogs.CustomAlertDialog;
 import org.levimc.launcher.ui.animation.DynamicAnim;
 
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
 public class ContentManagementActivity extends BaseActivity {
     
     private ActivityContentManagementBinding binding;
@@ -40,6 +51,7 @@ public class ContentManagementActivity extends BaseActivity {
     private ActivityResultLauncher<Intent> packImportLauncher;
     
     private WorldItem pendingExportWorld;
+    private WorldSnapshotStore.Snapshot pendingExportSnapshot;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -78,13 +90,16 @@ public class ContentManagementActivity extends BaseActivity {
         worldExportLauncher = registerForActivityResult(
             new ActivityResultContracts.StartActivityForResult(),
             result -> {
-                if (result.getResultCode() == RESULT_OK && result.getData() != null && pendingExportWorld != null) {
+                if (result.getResultCode() == RESULT_OK && result.getData() != null) {
                     Uri uri = result.getData().getData();
-                    if (uri != null) {
+                    if (uri != null && pendingExportWorld != null) {
                         exportWorld(pendingExportWorld, uri);
+                    } else if (uri != null && pendingExportSnapshot != null) {
+                        exportSnapshot(pendingExportSnapshot, uri);
                     }
                 }
                 pendingExportWorld = null;
+                pendingExportSnapshot = null;
             }
         );
 
@@ -125,6 +140,8 @@ public class ContentManagementActivity extends BaseActivity {
 
         binding.importWorldButton.setOnClickListener(v -> startWorldImport());
         binding.importPackButton.setOnClickListener(v -> startPackImport());
+        binding.worldBackupsButton.setOnClickListener(this::showWorldBackups);
+        DynamicAnim.applyPressScale(binding.worldBackupsButton);
         DynamicAnim.applyPressScale(binding.importWorldButton);
         DynamicAnim.applyPressScale(binding.importPackButton);
 
@@ -151,6 +168,11 @@ public class ContentManagementActivity extends BaseActivity {
             public void onWorldBackup(WorldItem world) {
                 backupWorld(world);
             }
+
+            @Override
+            public void onWorldAnalyze(WorldItem world) {
+                analyzeWorld(world);
+            }
         });
 
         binding.worldsRecyclerView.setLayoutManager(new LinearLayoutManager(this));
@@ -229,12 +251,14 @@ public class ContentManagementActivity extends BaseActivity {
             case 0: // Worlds
                 binding.worldsRecyclerView.setVisibility(android.view.View.VISIBLE);
                 binding.importWorldButton.setVisibility(android.view.View.VISIBLE);
+                binding.worldBackupsButton.setVisibility(android.view.View.VISIBLE);
                 binding.importPackButton.setVisibility(android.view.View.GONE);
                 DynamicAnim.staggerRecyclerChildren(binding.worldsRecyclerView);
                 break;
             case 1: // Resource Packs
                 binding.resourcePacksRecyclerView.setVisibility(android.view.View.VISIBLE);
                 binding.importWorldButton.setVisibility(android.view.View.GONE);
+                binding.worldBackupsButton.setVisibility(android.view.View.GONE);
                 binding.importPackButton.setVisibility(android.view.View.VISIBLE);
                 binding.importPackButton.setText(getString(R.string.import_resource_pack));
                 DynamicAnim.staggerRecyclerChildren(binding.resourcePacksRecyclerView);
@@ -242,6 +266,7 @@ public class ContentManagementActivity extends BaseActivity {
             case 2: // Behavior Packs
                 binding.behaviorPacksRecyclerView.setVisibility(android.view.View.VISIBLE);
                 binding.importWorldButton.setVisibility(android.view.View.GONE);
+                binding.worldBackupsButton.setVisibility(android.view.View.GONE);
                 binding.importPackButton.setVisibility(android.view.View.VISIBLE);
                 binding.importPackButton.setText(getString(R.string.import_behavior_pack));
                 DynamicAnim.staggerRecyclerChildren(binding.behaviorPacksRecyclerView);
@@ -286,6 +311,15 @@ public class ContentManagementActivity extends BaseActivity {
         worldExportLauncher.launch(intent);
     }
 
+    private void startSnapshotExport(WorldSnapshotStore.Snapshot snapshot) {
+        pendingExportSnapshot = snapshot;
+        Intent intent = new Intent(Intent.ACTION_CREATE_DOCUMENT);
+        intent.addCategory(Intent.CATEGORY_OPENABLE);
+        intent.setType("application/zip");
+        intent.putExtra(Intent.EXTRA_TITLE, snapshot.id + ".mcworld");
+        worldExportLauncher.launch(intent);
+    }
+
     private void startPackImport() {
         Intent intent = new Intent(Intent.ACTION_GET_CONTENT);
         intent.setType("*/*");
@@ -329,6 +363,24 @@ public class ContentManagementActivity extends BaseActivity {
         });
     }
 
+    private void exportSnapshot(WorldSnapshotStore.Snapshot snapshot, Uri uri) {
+        contentManager.exportSnapshot(snapshot, uri, new WorldManager.WorldOperationCallback() {
+            @Override
+            public void onSuccess(String message) {
+                runOnUiThread(() -> Toast.makeText(ContentManagementActivity.this, message, Toast.LENGTH_SHORT).show());
+            }
+
+            @Override
+            public void onError(String error) {
+                runOnUiThread(() -> Toast.makeText(ContentManagementActivity.this, error, Toast.LENGTH_LONG).show());
+            }
+
+            @Override
+            public void onProgress(int progress) {
+            }
+        });
+    }
+
     private void importResourcePack(Uri uri) {
         contentManager.importResourcePack(uri, new ResourcePackManager.PackOperationCallback() {
             @Override
@@ -405,6 +457,84 @@ public class ContentManagementActivity extends BaseActivity {
 
 
 
+    // Lists every world's backups, deleted worlds included, newest first.
+    private void showWorldBackups(View anchor) {
+        new Thread(() -> {
+            List<WorldSnapshotStore.Snapshot> snapshots = contentManager.getSnapshots(null);
+            runOnUiThread(() -> {
+                if (isFinishing() || isDestroyed()) return;
+                if (snapshots.isEmpty()) {
+                    Toast.makeText(this, getString(R.string.no_world_backups), Toast.LENGTH_SHORT).show();
+                    return;
+                }
+                PopupMenu popup = new PopupMenu(this, anchor);
+                for (int i = 0; i < snapshots.size(); i++) {
+                    WorldSnapshotStore.Snapshot snapshot = snapshots.get(i);
+                    popup.getMenu().add(Menu.NONE, i, i, snapshot.worldName + " · " + formatSnapshotDate(snapshot));
+                }
+                popup.setOnMenuItemClickListener(item -> {
+                    showWorldBackupDialog(snapshots.get(item.getItemId()));
+                    return true;
+                });
+                popup.show();
+            });
+        }).start();
+    }
+
+    private void showWorldBackupDialog(WorldSnapshotStore.Snapshot snapshot) {
+        new CustomAlertDialog(this)
+                .setTitleText(getString(R.string.world_backups))
+                .setMessage(getString(R.string.world_backup_details, snapshot.worldName,
+                        formatSnapshotDate(snapshot), Formatter.formatShortFileSize(this, snapshot.totalSize)))
+                .setPositiveButton(getString(R.string.restore_backup), (dialog) -> restoreSnapshot(snapshot))
+                .setNeutralButton(getString(R.string.export_backup), (dialog) -> startSnapshotExport(snapshot))
+                .setNegativeButton(getString(R.string.cancel), null)
+                .show();
+    }
+
+    private static String formatSnapshotDate(WorldSnapshotStore.Snapshot snapshot) {
+        return new SimpleDateFormat("MMM dd, yyyy HH:mm", Locale.getDefault()).format(new Date(snapshot.createdAt));
+    }
+
+    private void restoreSnapshot(WorldSnapshotStore.Snapshot snapshot) {
+        contentManager.restoreSnapshot(snapshot, new WorldManager.WorldOperationCallback() {
+            @Override
+            public void onSuccess(String message) {
+                runOnUiThread(() -> Toast.makeText(ContentManagementActivity.this, message, Toast.LENGTH_SHORT).show());
+            }
+
+            @Override
+            public void onError(String error) {
+                runOnUiThread(() -> Toast.makeText(ContentManagementActivity.this, error, Toast.LENGTH_LONG).show());
+            }
+
+            @Override
+            public void onProgress(int progress) {}
+        });
+    }
+
+    private void analyzeWorld(WorldItem world) {
+        Toast.makeText(this, getString(R.string.world_analysis_running), Toast.LENGTH_SHORT).show();
+        contentManager.analyzeWorld(world, new WorldManager.WorldAnalysisCallback() {
+            @Override
+            public void onResult(WorldDbAnalyzer.Report report) {
+                runOnUiThread(() -> {
+                    if (isFinishing() || isDestroyed()) return;
+                    new CustomAlertDialog(ContentManagementActivity.this)
+                            .setTitleText(getString(R.string.world_analysis_title, world.getWorldName()))
+                            .setMessage(report.format())
+                            .setPositiveButton(getString(R.string.dialog_positive_ok), null)
+                            .show();
+                });
+            }
+
+            @Override
+            public void onError(String error) {
+                runOnUiThread(() -> Toast.makeText(ContentManagementActivity.this, error, Toast.LENGTH_LONG).show());
+            }
+        });
+    }
+
     private void deleteResourcePack(ResourcePackItem pack) {
         contentManager.deleteResourcePack(pack, new ResourcePackManager.PackOperationCallback() {
             @Override
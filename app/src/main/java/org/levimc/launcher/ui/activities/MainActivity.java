@@ -20,6 +20,7 @@ import androidx.recyclerview.widget.SimpleItemAnimator;
 import androidx.dynamicanimation.animation.SpringAnimation;
 import androidx.dynamicanimation.animation.SpringForce;
 import org.levimc.launcher.R;
+import org.levimc.launcher.core.minecraft.LaunchPreparer;
 import org.levimc.launcher.core.minecraft.MinecraftLauncher;
 import org.levimc.launcher.core.mods.FileHandler;
 import org.levimc.launcher.core.mods.Mod;
@@ -887,6 +888,7 @@ import okhttp3.OkHttpClient;
              DynamicAnim.staggerRecyclerChildren(binding.modsRecycler);
          }
          lastModsCount = count;
+         prepareSelectedLaunch();
          if (binding == null) return;
          int modCount = (mods != null) ? mods.size() : 0;
          binding.modsTitleText.setText(getString(R.string.mods_title, modCount));
@@ -898,6 +900,14 @@ import okhttp3.OkHttpClient;
 
     @Override
     protected void onDestroy() {
+        LaunchPreparer.getInstance().cancel();
         super.onDestroy();
     }
+
+    // Mods are reloaded whenever the selected version or its mod list changes, so this keeps the
+    // background launch preparation in step with both.
+    private void prepareSelectedLaunch() {
+        if (versionManager == null) return;
+        LaunchPreparer.getInstance().prepare(this, versionManager.getSelectedVersion());
+    }
 }
@@ -20,9 +20,11 @@ import androidx.core.app.ActivityOptionsCompat;
 import org.levimc.launcher.R;
 import org.levimc.launcher.core.mods.FileHandler;
 import org.levimc.launcher.core.mods.Mod;
+import org.levimc.launcher.core.mods.ModLoadReport;
 import org.levimc.launcher.core.versions.VersionManager;
 import org.levimc.launcher.ui.adapter.ModsAdapter;
 import org.levimc.launcher.ui.animation.DynamicAnim;
+import org.levimc.launcher.ui.dialogs.CustomAlertDialog;
 import org.levimc.launcher.ui.views.MainViewModel;
 import org.levimc.launcher.ui.views.MainViewModelFactory;
 import java.util.ArrayList;
@@ -88,10 +90,23 @@ public class ModsFullscreenActivity extends BaseActivity {
         });
         DynamicAnim.applyPressScale(addModButton);
 
+        Button loadReportButton = findViewById(R.id.mod_load_report_button);
+        loadReportButton.setOnClickListener(v -> showLoadReport());
+        DynamicAnim.applyPressScale(loadReportButton);
+
         totalModsCount = findViewById(R.id.total_mods_count);
         enabledModsCount = findViewById(R.id.enabled_mods_count);
     }
     
+    private void showLoadReport() {
+        ModLoadReport report = ModLoadReport.load(getCacheDir());
+        new CustomAlertDialog(this)
+                .setTitleText(getString(R.string.mod_load_report))
+                .setMessage(report != null ? report.format() : getString(R.string.mod_load_report_empty))
+                .setPositiveButton(getString(R.string.dialog_positive_ok), null)
+                .show();
+    }
+
     private void startFilePicker() {
         Intent intent = new Intent(Intent.ACTION_GET_CONTENT);
         intent.addCategory(Intent.CATEGORY_OPENABLE);
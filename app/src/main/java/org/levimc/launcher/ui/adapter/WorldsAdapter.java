@@ -24,6 +24,7 @@ public class WorldsAdapter extends RecyclerView.Adapter<WorldsAdapter.WorldViewH
         void onWorldExport(WorldItem world);
         void onWorldDelete(WorldItem world);
         void onWorldBackup(WorldItem world);
+        void onWorldAnalyze(WorldItem world);
     }
 
     public WorldsAdapter() {
@@ -52,7 +53,7 @@ public class WorldsAdapter extends RecyclerView.Adapter<WorldsAdapter.WorldViewH
         
         holder.worldName.setText(world.getWorldName());
         holder.worldSize.setText(holder.itemView.getContext().getString(R.string.world_size, world.getFormattedSize()));
-        holder.worldLastPlayed.setText(holder.itemView.getContext().getString(R.string.world_last_played, world.getFormattedLastModified()));
+        holder.worldLastPlayed.setText(holder.itemView.getContext().getString(R.string.world_last_played, world.getFormattedLastPlayed()));
         holder.worldDescription.setText(world.getDescription());
 
         holder.exportButton.setOnClickListener(v -> {
@@ -72,6 +73,12 @@ public class WorldsAdapter extends RecyclerView.Adapter<WorldsAdapter.WorldViewH
                 onWorldActionListener.onWorldDelete(world);
             }
         });
+
+        holder.itemView.setOnLongClickListener(v -> {
+            if (onWorldActionListener == null) return false;
+            onWorldActionListener.onWorldAnalyze(world);
+            return true;
+        });
     }
 
     @Override
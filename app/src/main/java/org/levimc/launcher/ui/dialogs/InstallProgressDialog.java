@@ -6,13 +6,15 @@ import android.os.Bundle;
 import android.view.View;
 import android.view.Window;
 import android.view.WindowManager;
+import android.widget.ProgressBar;
 
 import org.levimc.launcher.R;
 import org.levimc.launcher.ui.animation.DynamicAnim;
 
 public class InstallProgressDialog extends Dialog {
 
-    //private ProgressBar progressBar;
+    private ProgressBar progressBar;
+    private int pendingProgress = 0;
 
     public InstallProgressDialog(Context context) {
         super(context);
@@ -24,7 +26,8 @@ public class InstallProgressDialog extends Dialog {
         super.onCreate(savedInstanceState);
         requestWindowFeature(Window.FEATURE_NO_TITLE);
         setContentView(R.layout.dialog_install_progress);
-
+        progressBar = findViewById(R.id.progress_bar);
+        progressBar.setProgress(pendingProgress);
 
         Window window = getWindow();
         if (window != null) {
@@ -43,6 +46,11 @@ public class InstallProgressDialog extends Dialog {
         }
     }
 
+    public void setProgress(int progress) {
+        pendingProgress = progress;
+        if (progressBar != null) progressBar.setProgress(progress);
+    }
+
     @Override
     public void dismiss() {
         Window window = getWindow();
@@ -45,11 +45,12 @@ public class ApkImportManager {
                 .setCallback(new ApkVersionConfirmDialog.Callback() {
                     @Override
                     public void onInstallClicked(String versionName) {
+                        String dirName = versionName;
                         showProgress();
                         ApkInstaller installer = new ApkInstaller(activity, Executors.newSingleThreadExecutor(), new ApkInstaller.InstallCallback() {
                             @Override
                             public void onProgress(int progress) {
-
+                                activity.runOnUiThread(() -> progressDialog.setProgress(progress));
                             }
 
                             @Override
@@ -61,7 +62,9 @@ public class ApkImportManager {
                                             activity.getString(R.string.install_done, versionName),
                                             Toast.LENGTH_LONG
                                     ).show();
-                                    VersionManager.get(activity).loadAllVersions();
+                                    VersionManager versionManager = VersionManager.get(activity);
+                                    versionManager.invalidateVersion(dirName);
+                                    versionManager.loadAllVersions();
                                 });
                             }
 
@@ -70,6 +73,8 @@ public class ApkImportManager {
                                 activity.runOnUiThread(() -> {
                                     dismissProgress();
                                     Toast.makeText(activity, errorMsg, Toast.LENGTH_LONG).show();
+                                    // A failed install may still have written part of the lib dir.
+                                    VersionManager.get(activity).invalidateVersion(dirName);
                                 });
                             }
                         });
@@ -84,7 +89,7 @@ public class ApkImportManager {
     }
 
     void showProgress() {
-        //progressDialog.setProgress(0);
+        progressDialog.setProgress(0);
         if (!progressDialog.isShowing()) progressDialog.show();
     }
 
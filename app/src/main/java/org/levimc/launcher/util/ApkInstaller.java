@@ -13,15 +13,13 @@ import net.dongliu.apk.parser.bean.ApkMeta;
 
 import java.io.BufferedInputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.FileWriter;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Writer;
-import java.util.HashSet;
 import java.util.concurrent.ExecutorService;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
@@ -37,7 +35,8 @@ public class ApkInstaller {
     }
 
     private static final String APK_FILE_NAME = "base.apk.levi";
-    private static final int BUFFER_SIZE = 8192;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int COPY_PROGRESS_WEIGHT = 80;
 
     private final Context context;
     private final ExecutorService executor;
@@ -49,14 +48,6 @@ public class ApkInstaller {
         this.callback = callback;
     }
 
-    public static class VersionAbi {
-        public final String versionName;
-
-        public VersionAbi(String versionName) {
-            this.versionName = versionName;
-        }
-    }
-
     public void install(final Uri apkOrApksUri, final String dirName) {
         executor.submit(() -> {
             try {
@@ -67,9 +58,6 @@ public class ApkInstaller {
                 if (externalDir.exists() && !deleteDir(externalDir))
                     return;
 
-                VersionAbi info = extractVersionAndAbi(apkOrApksUri);
-                String versionName = info.versionName;
-
                 File libTargetDir = new File(internalDir, "lib");
                 if (libTargetDir.exists()) {
                     deleteDir(libTargetDir);
@@ -80,62 +68,46 @@ public class ApkInstaller {
                     return;
                 }
 
+                File dstApkFile = new File(baseDir, APK_FILE_NAME);
+                long sourceSize = getFileSize(apkOrApksUri);
                 String fileName = getFileName(apkOrApksUri);
-                if (fileName != null && fileName.toLowerCase().endsWith(".apks")) {
-                    boolean foundApk = false;
-                    try (InputStream is = context.getContentResolver().openInputStream(apkOrApksUri);
-                         ZipInputStream zis = new ZipInputStream(new BufferedInputStream(is))) {
-                        ZipEntry entry;
-                        while ((entry = zis.getNextEntry()) != null) {
-                            String outputName = entry.isDirectory() ? entry.getName() : (entry.getName().equals("base.apk") ? APK_FILE_NAME : entry.getName());
-                            File outFile = new File(baseDir, outputName);
-                            if (entry.isDirectory()) {
-                                outFile.mkdirs();
-                                zis.closeEntry();
-                                continue;
-                            }
-                            File parent = outFile.getParentFile();
-                            if (!parent.exists()) parent.mkdirs();
-
-                            try (FileOutputStream fos = new FileOutputStream(outFile)) {
-                                copyStream(zis, fos);
-                            }
-
-                            if (outputName.equals(APK_FILE_NAME)) {
-                                try (InputStream is2 = new FileInputStream(outFile);
-                                     ZipInputStream zis2 = new ZipInputStream(new BufferedInputStream(is2))) {
-                                    ApkUtils.unzipLibsToSystemAbi(libTargetDir, zis2);
-                                }
-                                foundApk = true;
-                            } else if (outputName.endsWith(".apk")) {
-                                foundApk = true;
-                            }
-                            zis.closeEntry();
-                        }
-                    }
-                    if (!foundApk) {
-                        postError("No apk file");
+                File versionApk = dstApkFile;
+                try (InputStream is = context.getContentResolver().openInputStream(apkOrApksUri)) {
+                    if (is == null) {
+                        postError("Open apk failed");
                         return;
                     }
-                } else {
-                    File dstApkFile = new File(baseDir, APK_FILE_NAME);
-                    try (InputStream is = context.getContentResolver().openInputStream(apkOrApksUri);
-                         OutputStream os = new FileOutputStream(dstApkFile)) {
-                        if (is == null) {
-                            postError("Open apk failed");
+                    CountingInputStream counting = new CountingInputStream(is, sourceSize);
+                    if (fileName != null && fileName.toLowerCase().endsWith(".apks")) {
+                        versionApk = copyApksEntries(counting, baseDir);
+                        if (versionApk == null) {
+                            postError("No apk file");
                             return;
                         }
-                        copyStream(is, os);
-                    }
-                    try (InputStream is2 = new FileInputStream(dstApkFile);
-                         ZipInputStream zis2 = new ZipInputStream(new BufferedInputStream(is2))) {
-                        ApkUtils.unzipLibsToSystemAbi(libTargetDir, zis2);
+                    } else {
+                        try (OutputStream os = new FileOutputStream(dstApkFile)) {
+                            copyStream(counting, os);
+                        }
                     }
                 }
+                postProgress(COPY_PROGRESS_WEIGHT);
+
+                String versionName = extractApkVersionName(versionApk);
+                if (dstApkFile.exists()) {
+                    int[] lastPercent = {COPY_PROGRESS_WEIGHT};
+                    NativeLibExtractor.extract(dstApkFile, libTargetDir, NativeLibCache.get(context), (done, total) -> {
+                        int percent = COPY_PROGRESS_WEIGHT + (int) (done * (100 - COPY_PROGRESS_WEIGHT) / Math.max(total, 1));
+                        if (percent != lastPercent[0]) {
+                            lastPercent[0] = percent;
+                            postProgress(percent);
+                        }
+                    });
+                }
 
                 // version.txt
                 writeTextFile(new File(internalDir, "version.txt"), versionName);
 
+                postProgress(100);
                 postSuccess(versionName);
 
             } catch (Exception e) {
@@ -144,6 +116,37 @@ public class ApkInstaller {
         });
     }
 
+    // Returns the apk to read the version from: base.apk, or the first .apk when there is none.
+    private File copyApksEntries(InputStream source, File baseDir) throws IOException {
+        File baseApk = null;
+        File firstApk = null;
+        try (ZipInputStream zis = new ZipInputStream(new BufferedInputStream(source, BUFFER_SIZE))) {
+            ZipEntry entry;
+            while ((entry = zis.getNextEntry()) != null) {
+                String outputName = entry.isDirectory() ? entry.getName() : (entry.getName().equals("base.apk") ? APK_FILE_NAME : entry.getName());
+                File outFile = new File(baseDir, outputName);
+                if (entry.isDirectory()) {
+                    outFile.mkdirs();
+                    zis.closeEntry();
+                    continue;
+                }
+                File parent = outFile.getParentFile();
+                if (!parent.exists()) parent.mkdirs();
+
+                try (FileOutputStream fos = new FileOutputStream(outFile)) {
+                    copyStream(zis, fos);
+                }
+                if (outputName.equals(APK_FILE_NAME)) {
+                    baseApk = outFile;
+                } else if (outputName.endsWith(".apk") && firstApk == null) {
+                    firstApk = outFile;
+                }
+                zis.closeEntry();
+            }
+        }
+        return baseApk != null ? baseApk : firstApk;
+    }
+
     private static void copyStream(InputStream is, OutputStream os) throws IOException {
         byte[] buffer = new byte[BUFFER_SIZE];
         int len;
@@ -152,6 +155,48 @@ public class ApkInstaller {
         }
     }
 
+    private class CountingInputStream extends FilterInputStream {
+        private final long total;
+        private long count;
+        private int lastPercent = -1;
+
+        CountingInputStream(InputStream in, long total) {
+            super(in);
+            this.total = total;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) onRead(1);
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) onRead(n);
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            if (skipped > 0) onRead(skipped);
+            return skipped;
+        }
+
+        private void onRead(long n) {
+            count += n;
+            if (total <= 0) return;
+            int percent = (int) (Math.min(count, total) * COPY_PROGRESS_WEIGHT / total);
+            if (percent != lastPercent) {
+                lastPercent = percent;
+                postProgress(percent);
+            }
+        }
+    }
+
     private static void writeTextFile(File file, String content) throws IOException {
         try (Writer writer = new FileWriter(file, false)) {
             writer.write(content);
@@ -176,42 +221,6 @@ public class ApkInstaller {
         });
     }
 
-    private VersionAbi extractVersionAndAbi(Uri apkOrApksUri) throws Exception {
-        File tempFile = new File(context.getCacheDir(), "temp_apk_" + System.currentTimeMillis() + ".apk");
-        String fileName = getFileName(apkOrApksUri);
-        try {
-            if (fileName != null && fileName.toLowerCase().endsWith(".apks")) {
-                try (InputStream apksIs = context.getContentResolver().openInputStream(apkOrApksUri);
-                     ZipInputStream zis = new ZipInputStream(new BufferedInputStream(apksIs));
-                     OutputStream os = new FileOutputStream(tempFile)) {
-                    boolean found = false;
-                    ZipEntry entry;
-                    while ((entry = zis.getNextEntry()) != null) {
-                        if (!entry.isDirectory() && entry.getName().endsWith(".apk")) {
-                            if (entry.getName().equals("base.apk") || !found) {
-                                copyStream(zis, os);
-                                found = true;
-                                if (entry.getName().equals("base.apk")) break;
-                            }
-                        }
-                        zis.closeEntry();
-                    }
-                    if (!found) throw new FileNotFoundException("apks no base.apk!");
-                }
-            } else {
-                try (InputStream is = context.getContentResolver().openInputStream(apkOrApksUri);
-                     OutputStream os = new FileOutputStream(tempFile)) {
-                    if (is == null) throw new FileNotFoundException("打开apk失败");
-                    copyStream(is, os);
-                }
-            }
-            String versionName = extractApkVersionName(tempFile);
-            return new VersionAbi(versionName);
-        } finally {
-            tempFile.delete();
-        }
-    }
-
     private String extractApkVersionName(File apkFile) {
         try (ApkFile apk = new ApkFile(apkFile)) {
             ApkMeta meta = apk.getApkMeta();
@@ -238,6 +247,19 @@ public class ApkInstaller {
         return result;
     }
 
+    private long getFileSize(Uri uri) {
+        try (Cursor cursor = context.getContentResolver().query(uri, new String[]{OpenableColumns.SIZE}, null, null, null)) {
+            if (cursor != null && cursor.moveToFirst()) {
+                int sizeIndex = cursor.getColumnIndex(OpenableColumns.SIZE);
+                if (sizeIndex != -1 && !cursor.isNull(sizeIndex)) {
+                    return cursor.getLong(sizeIndex);
+                }
+            }
+        } catch (Exception ignored) {
+        }
+        return -1;
+    }
+
     public static boolean deleteDir(File dir) {
         if (dir == null || !dir.exists()) return true;
         if (dir.isFile()) return dir.delete();
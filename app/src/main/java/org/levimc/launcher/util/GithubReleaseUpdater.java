@@ -13,14 +13,15 @@ import androidx.activity.result.ActivityResultLauncher;
 import androidx.core.content.FileProvider;
 
 import org.json.JSONArray;
+import org.json.JSONException;
 import org.json.JSONObject;
 import org.levimc.launcher.R;
 import org.levimc.launcher.ui.dialogs.CustomAlertDialog;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import okhttp3.Call;
 import okhttp3.Callback;
@@ -78,22 +79,22 @@ public class GithubReleaseUpdater {
                     JSONObject json = new JSONObject(body);
                     String latestVersion = json.getString("tag_name");
                     JSONArray assets = json.getJSONArray("assets");
-                    String downloadUrl = null;
+                    ReleaseAsset apkAsset = null;
                     for (int i = 0; i < assets.length(); i++) {
                         JSONObject asset = assets.getJSONObject(i);
                         String name = asset.getString("name");
                         if (name.endsWith(APK_ASSET_KEYWORD)) {
-                            downloadUrl = asset.getString("browser_download_url");
+                            apkAsset = ReleaseAsset.from(asset);
                             break;
                         }
                     }
-                    if (downloadUrl == null) {
+                    if (apkAsset == null) {
                         Log.e(TAG, "No APK asset found in release.");
                         return;
                     }
                     String localVersion = activity.getPackageManager().getPackageInfo(activity.getPackageName(), 0).versionName;
                     if (compareVersion(latestVersion, localVersion) > 0) {
-                        showUpdateDialog(latestVersion, downloadUrl);
+                        showUpdateDialog(latestVersion, apkAsset);
                     } else {
                         activity.runOnUiThread(() ->
                                 Toast.makeText(activity, activity.getString(R.string.already_latest_version, localVersion), Toast.LENGTH_SHORT).show());
@@ -121,16 +122,16 @@ public class GithubReleaseUpdater {
                     JSONObject json = new JSONObject(body);
                     String latestVersion = json.getString("tag_name");
                     JSONArray assets = json.getJSONArray("assets");
-                    String downloadUrl = null;
+                    ReleaseAsset apkAsset = null;
                     for (int i = 0; i < assets.length(); i++) {
                         JSONObject asset = assets.getJSONObject(i);
                         String name = asset.getString("name");
                         if (name.endsWith(APK_ASSET_KEYWORD)) {
-                            downloadUrl = asset.getString("browser_download_url");
+                            apkAsset = ReleaseAsset.from(asset);
                             break;
                         }
                     }
-                    if (downloadUrl == null) {
+                    if (apkAsset == null) {
                         Log.e(TAG, "No APK asset found in release.");
                         return;
                     }
@@ -140,7 +141,7 @@ public class GithubReleaseUpdater {
 
                     if (compareVersion(latestVersion, localVersion) > 0
                             && !ignoredVersion.equals(latestVersion)) {
-                        showUpdateDialogWithIgnore(latestVersion, downloadUrl);
+                        showUpdateDialogWithIgnore(latestVersion, apkAsset);
                     }
                 } catch (Exception e) {
                     Log.e(TAG, "Parse error: " + e.getMessage());
@@ -149,23 +150,23 @@ public class GithubReleaseUpdater {
         });
     }
 
-    private void showUpdateDialog(String version, String url) {
+    private void showUpdateDialog(String version, ReleaseAsset asset) {
         activity.runOnUiThread(() -> {
             CustomAlertDialog dialog = new CustomAlertDialog(activity);
             dialog.setTitleText(activity.getString(R.string.new_version_found, version));
             dialog.setMessage(activity.getString(R.string.update_question));
-            dialog.setPositiveButton(activity.getString(R.string.download_update), (d) -> downloadApk(url));
+            dialog.setPositiveButton(activity.getString(R.string.download_update), (d) -> downloadApk(asset));
             dialog.setNegativeButton(activity.getString(R.string.cancel), null);
             dialog.show();
         });
     }
 
-    private void showUpdateDialogWithIgnore(String version, String url) {
+    private void showUpdateDialogWithIgnore(String version, ReleaseAsset asset) {
         activity.runOnUiThread(() -> {
             CustomAlertDialog dialog = new CustomAlertDialog(activity);
             dialog.setTitleText(activity.getString(R.string.new_version_found, version));
             dialog.setMessage(activity.getString(R.string.update_question));
-            dialog.setPositiveButton(activity.getString(R.string.download_update), (d) -> downloadApk(url));
+            dialog.setPositiveButton(activity.getString(R.string.download_update), (d) -> downloadApk(asset));
             dialog.setNegativeButton(activity.getString(R.string.cancel), null);
             dialog.setNeutralButton(activity.getString(R.string.ignore_this_version), (d) -> ignoreThisVersion(version));
             dialog.show();
@@ -178,59 +179,31 @@ public class GithubReleaseUpdater {
         activity.runOnUiThread(() -> Toast.makeText(activity, activity.getString(R.string.version_ignored), Toast.LENGTH_SHORT).show());
     }
 
-    private void downloadApk(String url) {
+    private void downloadApk(ReleaseAsset asset) {
         activity.runOnUiThread(() -> Toast.makeText(activity, activity.getString(R.string.downloading_update), Toast.LENGTH_SHORT).show());
-        Request request = new Request.Builder().url(url).build();
-        client.newCall(request).enqueue(new Callback() {
-            @Override
-            public void onFailure(Call call, IOException e) {
+        new Thread(() -> {
+            File apkFile = new File(activity.getExternalCacheDir(), "update_apk.apk");
+            AtomicInteger shownPercent = new AtomicInteger(-1);
+            AtomicBoolean toastPending = new AtomicBoolean(false);
+            try {
+                new SegmentedDownloader(client).download(asset.url, apkFile, asset.size, asset.sha256, (downloaded, total) -> {
+                    if (total <= 0) return;
+                    int percent = (int) (downloaded * 100 / total);
+                    // Skip updates while the previous one is still queued on the UI thread.
+                    if (percent == shownPercent.get() || !toastPending.compareAndSet(false, true)) return;
+                    shownPercent.set(percent);
+                    activity.runOnUiThread(() -> {
+                        toastPending.set(false);
+                        Toast.makeText(activity, activity.getString(R.string.update_progress, percent), Toast.LENGTH_SHORT).show();
+                    });
+                });
+                installApk(apkFile);
+            } catch (Exception e) {
+                Log.e(TAG, "Update download failed", e);
                 activity.runOnUiThread(() ->
                         Toast.makeText(activity, activity.getString(R.string.update_failed, e.getMessage()), Toast.LENGTH_LONG).show());
             }
-
-            @Override
-            public void onResponse(Call call, Response response) {
-                InputStream is = null;
-                FileOutputStream fos = null;
-                try {
-                    byte[] buf = new byte[4096];
-                    int len;
-                    long downloaded = 0;
-                    long total = response.body().contentLength();
-                    is = response.body().byteStream();
-                    File apkFile = new File(activity.getExternalCacheDir(), "update_apk.apk");
-                    fos = new FileOutputStream(apkFile);
-
-                    long lastToastTime = 0;
-                    while ((len = is.read(buf)) > 0) {
-                        fos.write(buf, 0, len);
-                        downloaded += len;
-
-                        long now = System.currentTimeMillis();
-                        if (now - lastToastTime > 500 && total > 0) {
-                            int percent = (int) (downloaded * 100 / total);
-                            activity.runOnUiThread(() ->
-                                    Toast.makeText(activity, activity.getString(R.string.update_progress, percent), Toast.LENGTH_SHORT).show());
-                            lastToastTime = now;
-                        }
-                    }
-                    fos.flush();
-                    installApk(apkFile);
-                } catch (Exception e) {
-                    activity.runOnUiThread(() ->
-                            Toast.makeText(activity, activity.getString(R.string.update_failed, e.getMessage()), Toast.LENGTH_LONG).show());
-                } finally {
-                    try {
-                        if (is != null) is.close();
-                    } catch (Exception ignored) {
-                    }
-                    try {
-                        if (fos != null) fos.close();
-                    } catch (Exception ignored) {
-                    }
-                }
-            }
-        });
+        }).start();
     }
 
     private void installApk(File apkFile) {
@@ -272,4 +245,22 @@ public class GithubReleaseUpdater {
                 }
         );
     }
+
+    private static class ReleaseAsset {
+        final String url;
+        final long size;
+        final String sha256;
+
+        ReleaseAsset(String url, long size, String sha256) {
+            this.url = url;
+            this.size = size;
+            this.sha256 = sha256;
+        }
+
+        static ReleaseAsset from(JSONObject asset) throws JSONException {
+            String digest = asset.optString("digest", "");
+            String sha256 = digest.startsWith("sha256:") ? digest.substring("sha256:".length()) : null;
+            return new ReleaseAsset(asset.getString("browser_download_url"), asset.optLong("size", -1), sha256);
+        }
+    }
 }
\ No newline at end of file
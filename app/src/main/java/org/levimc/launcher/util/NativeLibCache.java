@@ -0,0 +1,202 @@
+package org.levimc.launcher.util;
+
+import android.content.Context;
+import android.system.ErrnoException;
+import android.system.Os;
+import android.util.Log;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+public final class NativeLibCache {
+    private static final String TAG = "NativeLibCache";
+    private static final String CACHE_DIR = "lib_cache";
+    private static final String INDEX_FILE = "index.json";
+    private static final String BLOB_SUFFIX = ".so";
+    private static final Gson gson = new Gson();
+
+    private static NativeLibCache instance;
+
+    private final File blobDir;
+    private final File indexFile;
+    private final Map<String, String> index = new ConcurrentHashMap<>();
+    private final Set<String> verified = ConcurrentHashMap.newKeySet();
+    private volatile boolean dirty;
+
+    public static synchronized NativeLibCache get(Context ctx) {
+        if (instance == null) {
+            instance = new NativeLibCache(new File(ctx.getApplicationContext().getDataDir(), CACHE_DIR));
+        }
+        return instance;
+    }
+
+    private NativeLibCache(File root) {
+        this.blobDir = new File(root, "blobs");
+        this.indexFile = new File(root, INDEX_FILE);
+        if (!blobDir.exists()) blobDir.mkdirs();
+        loadIndex();
+    }
+
+    private static String key(long crc, long size) {
+        return String.format(Locale.ROOT, "%08x-%d", crc, size);
+    }
+
+    private File blobFile(String sha256) {
+        return new File(blobDir, sha256 + BLOB_SUFFIX);
+    }
+
+    public File find(long crc, long size) {
+        String key = key(crc, size);
+        String sha256 = index.get(key);
+        if (sha256 == null) return null;
+        File blob = blobFile(sha256);
+        if (blob.isFile() && blob.length() == size && isIntact(blob, sha256)) return blob;
+        index.remove(key);
+        dirty = true;
+        return null;
+    }
+
+    // Blobs are named after their SHA-256; re-hash each one the first time this process reuses it,
+    // so a blob damaged on disk is dropped instead of being linked into another version.
+    private boolean isIntact(File blob, String sha256) {
+        if (verified.contains(sha256)) return true;
+        try {
+            if (sha256.equals(sha256(blob))) {
+                // Earlier builds marked blobs read-only, which also locked every linked lib/*.so.
+                if (!blob.canWrite()) blob.setWritable(true, true);
+                verified.add(sha256);
+                return true;
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to hash cached " + blob.getName(), e);
+            return false;
+        }
+        Log.w(TAG, "Dropping corrupt cached " + blob.getName());
+        blob.delete();
+        return false;
+    }
+
+    public boolean linkTo(File blob, File target) {
+        try {
+            Files.deleteIfExists(target.toPath());
+            Files.createLink(target.toPath(), blob.toPath());
+            return true;
+        } catch (IOException | UnsupportedOperationException e) {
+            Log.w(TAG, "Hard link failed for " + target.getName() + ", copying: " + e.getMessage());
+        }
+        try {
+            Files.copy(blob.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            return true;
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to reuse cached " + blob.getName(), e);
+            return false;
+        }
+    }
+
+    // extracted must already have passed the entry's CRC check. The blob is a hard link to it, so it
+    // shares the inode with every version's lib/*.so: nothing may write those files in place. The
+    // extractor and linkTo always replace them (delete or rename) instead.
+    public void store(long crc, long size, File extracted) {
+        try {
+            String sha256 = sha256(extracted);
+            File blob = blobFile(sha256);
+            if (!blob.exists()) {
+                try {
+                    Files.createLink(blob.toPath(), extracted.toPath());
+                } catch (FileAlreadyExistsException ignored) {
+                }
+            }
+            verified.add(sha256);
+            index.put(key(crc, size), sha256);
+            dirty = true;
+        } catch (IOException | UnsupportedOperationException e) {
+            Log.w(TAG, "Failed to cache " + extracted.getName() + ": " + e.getMessage());
+        }
+    }
+
+    public synchronized int prune() {
+        File[] blobs = blobDir.listFiles();
+        int removed = 0;
+        Set<String> alive = new HashSet<>();
+        if (blobs != null) {
+            for (File blob : blobs) {
+                String name = blob.getName();
+                if (!name.endsWith(BLOB_SUFFIX)) {
+                    blob.delete();
+                    continue;
+                }
+                try {
+                    if (Os.stat(blob.getAbsolutePath()).st_nlink <= 1 && blob.delete()) {
+                        removed++;
+                        continue;
+                    }
+                } catch (ErrnoException e) {
+                    Log.w(TAG, "stat failed for " + name, e);
+                }
+                alive.add(name.substring(0, name.length() - BLOB_SUFFIX.length()));
+            }
+        }
+        if (index.values().retainAll(alive) || removed > 0) dirty = true;
+        save();
+        return removed;
+    }
+
+    public synchronized void save() {
+        if (!dirty) return;
+        File tmp = new File(indexFile.getPath() + ".tmp");
+        if (JsonIOUtils.write(tmp, gson.toJson(index)) && tmp.renameTo(indexFile)) {
+            dirty = false;
+        } else {
+            tmp.delete();
+        }
+    }
+
+    private void loadIndex() {
+        String json = JsonIOUtils.read(indexFile);
+        if (json == null) return;
+        try {
+            Map<String, String> loaded = gson.fromJson(json, new TypeToken<Map<String, String>>() {
+            }.getType());
+            if (loaded != null) index.putAll(loaded);
+        } catch (JsonSyntaxException e) {
+            Log.w(TAG, "Discarding corrupt lib cache index", e);
+        }
+    }
+
+    private static String sha256(File file) throws IOException {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+        try (InputStream in = new FileInputStream(file)) {
+            byte[] buffer = new byte[64 * 1024];
+            int len;
+            while ((len = in.read(buffer)) != -1) {
+                md.update(buffer, 0, len);
+            }
+        }
+        StringBuilder sb = new StringBuilder(64);
+        for (byte b : md.digest()) {
+            sb.append(String.format(Locale.ROOT, "%02x", b & 0xFF));
+        }
+        return sb.toString();
+    }
+}
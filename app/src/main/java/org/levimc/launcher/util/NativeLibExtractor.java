@@ -0,0 +1,166 @@
+package org.levimc.launcher.util;
+
+import android.os.Build;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public final class NativeLibExtractor {
+    private static final int MAX_THREADS = 4;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long TRANSFER_CHUNK = 8L * 1024 * 1024;
+
+    public interface ProgressListener {
+        void onProgress(long extractedBytes, long totalBytes);
+    }
+
+    private NativeLibExtractor() {
+    }
+
+    public static String selectAbi(ZipCentralDirectory cd) {
+        for (String abi : Build.SUPPORTED_ABIS) {
+            if (!libEntries(cd, abi).isEmpty()) return abi;
+        }
+        return null;
+    }
+
+    public static List<ZipCentralDirectory.Entry> libEntries(ZipCentralDirectory cd, String abi) {
+        String prefix = "lib/" + abi + "/";
+        List<ZipCentralDirectory.Entry> result = new ArrayList<>();
+        for (ZipCentralDirectory.Entry entry : cd.entries()) {
+            String name = entry.name;
+            if (name.startsWith(prefix) && name.endsWith(".so") && name.indexOf('/', prefix.length()) == -1) {
+                result.add(entry);
+            }
+        }
+        return result;
+    }
+
+    public static String soName(ZipCentralDirectory.Entry entry) {
+        return entry.name.substring(entry.name.lastIndexOf('/') + 1);
+    }
+
+    public static String extract(File apkFile, File libBaseDir, NativeLibCache cache, ProgressListener listener) throws IOException {
+        try (FileChannel channel = FileChannel.open(apkFile.toPath(), StandardOpenOption.READ)) {
+            ZipCentralDirectory cd = ZipCentralDirectory.read(channel);
+            String abi = selectAbi(cd);
+            if (abi == null) return null;
+            File outDir = new File(libBaseDir, ApkUtils.abiToSystemLibDir(abi));
+            extract(channel, libEntries(cd, abi), outDir, cache, listener);
+            return abi;
+        }
+    }
+
+    public static void extract(FileChannel channel, List<ZipCentralDirectory.Entry> entries, File outDir, NativeLibCache cache, ProgressListener listener) throws IOException {
+        if (!outDir.exists() && !outDir.mkdirs()) {
+            throw new IOException("Failed to create " + outDir);
+        }
+        long total = 0;
+        for (ZipCentralDirectory.Entry entry : entries) {
+            total += entry.size;
+        }
+        Progress progress = new Progress(total, listener);
+        if (entries.isEmpty()) return;
+
+        int threads = Math.max(1, Math.min(entries.size(), Math.min(Runtime.getRuntime().availableProcessors(), MAX_THREADS)));
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>(entries.size());
+            for (ZipCentralDirectory.Entry entry : entries) {
+                futures.add(pool.submit(() -> {
+                    extractEntry(channel, entry, new File(outDir, soName(entry)), cache, progress);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            throw new IOException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Library extraction interrupted");
+        } finally {
+            pool.shutdownNow();
+            if (cache != null) cache.save();
+        }
+    }
+
+    static void extractEntry(FileChannel channel, ZipCentralDirectory.Entry entry, File target, NativeLibCache cache, Progress progress) throws IOException {
+        if (cache != null) {
+            File blob = cache.find(entry.crc, entry.size);
+            if (blob != null && cache.linkTo(blob, target)) {
+                if (progress != null) progress.add(entry.size);
+                return;
+            }
+        }
+        File tmp = new File(target.getPath() + ".tmp");
+        try {
+            if (entry.isStored()) {
+                long offset = ZipCentralDirectory.dataOffset(channel, entry);
+                try (FileChannel out = FileChannel.open(tmp.toPath(), StandardOpenOption.CREATE,
+                        StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    long pos = 0;
+                    while (pos < entry.size) {
+                        long n = channel.transferTo(offset + pos, Math.min(entry.size - pos, TRANSFER_CHUNK), out);
+                        if (n <= 0) throw new IOException("Short transfer for " + entry.name);
+                        pos += n;
+                        if (progress != null) progress.add(n);
+                    }
+                    ZipCentralDirectory.verify(out, 0, entry);
+                }
+            } else {
+                // The stream verifies CRC and size when it reaches the end.
+                try (InputStream in = ZipCentralDirectory.openStream(channel, entry);
+                     FileOutputStream out = new FileOutputStream(tmp)) {
+                    byte[] buffer = new byte[BUFFER_SIZE];
+                    int len;
+                    while ((len = in.read(buffer)) != -1) {
+                        out.write(buffer, 0, len);
+                        if (progress != null) progress.add(len);
+                    }
+                }
+            }
+            // Only verified bytes go into the shared cache.
+            if (cache != null) cache.store(entry.crc, entry.size, tmp);
+            if (target.exists() && !target.delete()) {
+                throw new IOException("Failed to replace " + target);
+            }
+            if (!tmp.renameTo(target)) {
+                throw new IOException("Failed to move " + tmp + " to " + target);
+            }
+        } catch (IOException | RuntimeException e) {
+            tmp.delete();
+            throw e;
+        }
+    }
+
+    static final class Progress {
+        private final long total;
+        private final ProgressListener listener;
+        private long done;
+
+        Progress(long total, ProgressListener listener) {
+            this.total = total;
+            this.listener = listener;
+        }
+
+        synchronized void add(long bytes) {
+            done += bytes;
+            if (listener != null) listener.onProgress(done, total);
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package org.levimc.launcher.util;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Streaming reader for Bedrock's little-endian NBT. Tags are reported to a {@link Handler} by
+ * dotted path as they are met; values nobody asked for are skipped without being decoded, and the
+ * walk stops as soon as the handler has what it needs.
+ */
+public final class NbtReader {
+    public static final int TAG_END = 0;
+    public static final int TAG_BYTE = 1;
+    public static final int TAG_SHORT = 2;
+    public static final int TAG_INT = 3;
+    public static final int TAG_LONG = 4;
+    public static final int TAG_FLOAT = 5;
+    public static final int TAG_DOUBLE = 6;
+    public static final int TAG_BYTE_ARRAY = 7;
+    public static final int TAG_STRING = 8;
+    public static final int TAG_LIST = 9;
+    public static final int TAG_COMPOUND = 10;
+    public static final int TAG_INT_ARRAY = 11;
+    public static final int TAG_LONG_ARRAY = 12;
+
+    private static final int MAX_DEPTH = 512;
+
+    public interface Handler {
+        /** Whether to descend into the compound at path; skipped compounds cost one pass over their bytes. */
+        boolean enterCompound(String path);
+
+        /** Called once every tag of an entered compound has been reported. */
+        void exitCompound(String path);
+
+        /** Whether to decode the scalar or string tag at path. */
+        boolean wants(String path, int type);
+
+        void onLong(String path, int type, long value);
+
+        void onDouble(String path, int type, double value);
+
+        void onString(String path, String value);
+
+        /** Checked after every reported value; true ends the walk early. */
+        boolean isDone();
+    }
+
+    private final InputStream in;
+    private final byte[] scratch = new byte[8];
+    private byte[] stringBuffer = new byte[64];
+    private boolean stopped;
+
+    public NbtReader(InputStream in) {
+        this.in = in;
+    }
+
+    /** Reads the named root tag, which for level.dat and LevelDB values is an unnamed compound. */
+    public void read(Handler handler) throws IOException {
+        stopped = false;
+        int type = readUnsignedByte();
+        if (type == TAG_END) return;
+        readString();
+        if (type == TAG_COMPOUND) {
+            readCompound("", handler, 0);
+        } else {
+            readValue("", type, handler, 0);
+        }
+    }
+
+    private void readCompound(String path, Handler handler, int depth) throws IOException {
+        if (depth > MAX_DEPTH) throw new IOException("NBT nested too deeply");
+        while (!stopped) {
+            int type = readUnsignedByte();
+            if (type == TAG_END) return;
+            String name = readString();
+            String child = path.isEmpty() ? name : path + "." + name;
+            readValue(child, type, handler, depth + 1);
+        }
+    }
+
+    private void readValue(String path, int type, Handler handler, int depth) throws IOException {
+        switch (type) {
+            case TAG_BYTE:
+            case TAG_SHORT:
+            case TAG_INT:
+            case TAG_LONG:
+                if (handler.wants(path, type)) {
+                    handler.onLong(path, type, readInteger(type));
+                    stopped = handler.isDone();
+                } else {
+                    skipFully(fixedSize(type));
+                }
+                break;
+            case TAG_FLOAT:
+                if (handler.wants(path, type)) {
+                    handler.onDouble(path, type, Float.intBitsToFloat((int) readLittleEndian(4)));
+                    stopped = handler.isDone();
+                } else {
+                    skipFully(4);
+                }
+                break;
+            case TAG_DOUBLE:
+                if (handler.wants(path, type)) {
+                    handler.onDouble(path, type, Double.longBitsToDouble(readLittleEndian(8)));
+                    stopped = handler.isDone();
+                } else {
+                    skipFully(8);
+                }
+                break;
+            case TAG_STRING:
+                if (handler.wants(path, type)) {
+                    handler.onString(path, readString());
+                    stopped = handler.isDone();
+                } else {
+                    skipFully(readLittleEndian(2));
+                }
+                break;
+            case TAG_BYTE_ARRAY:
+                skipFully(readLength());
+                break;
+            case TAG_INT_ARRAY:
+                skipFully(readLength() * 4L);
+                break;
+            case TAG_LONG_ARRAY:
+                skipFully(readLength() * 8L);
+                break;
+            case TAG_LIST:
+                skipList(depth);
+                break;
+            case TAG_COMPOUND:
+                if (handler.enterCompound(path)) {
+                    readCompound(path, handler, depth);
+                    if (!stopped) {
+                        handler.exitCompound(path);
+                        stopped = handler.isDone();
+                    }
+                } else {
+                    skipCompound(depth);
+                }
+                break;
+            default:
+                throw new IOException("Unknown NBT tag type " + type + " at " + path);
+        }
+    }
+
+    private void skipCompound(int depth) throws IOException {
+        if (depth > MAX_DEPTH) throw new IOException("NBT nested too deeply");
+        while (true) {
+            int type = readUnsignedByte();
+            if (type == TAG_END) return;
+            skipFully(readLittleEndian(2));
+            skipPayload(type, depth + 1);
+        }
+    }
+
+    private void skipList(int depth) throws IOException {
+        if (depth > MAX_DEPTH) throw new IOException("NBT nested too deeply");
+        int elementType = readUnsignedByte();
+        int length = readLength();
+        int size = fixedSize(elementType);
+        if (size > 0) {
+            skipFully((long) size * length);
+            return;
+        }
+        for (int i = 0; i < length; i++) skipPayload(elementType, depth + 1);
+    }
+
+    private void skipPayload(int type, int depth) throws IOException {
+        switch (type) {
+            case TAG_STRING:
+                skipFully(readLittleEndian(2));
+                break;
+            case TAG_BYTE_ARRAY:
+                skipFully(readLength());
+                break;
+            case TAG_INT_ARRAY:
+                skipFully(readLength() * 4L);
+                break;
+            case TAG_LONG_ARRAY:
+                skipFully(readLength() * 8L);
+                break;
+            case TAG_LIST:
+                skipList(depth);
+                break;
+            case TAG_COMPOUND:
+                skipCompound(depth);
+                break;
+            case TAG_END:
+                break;
+            default:
+                int size = fixedSize(type);
+                if (size <= 0) throw new IOException("Unknown NBT tag type " + type);
+                skipFully(size);
+        }
+    }
+
+    private static int fixedSize(int type) {
+        switch (type) {
+            case TAG_BYTE:
+                return 1;
+            case TAG_SHORT:
+                return 2;
+            case TAG_INT:
+            case TAG_FLOAT:
+                return 4;
+            case TAG_LONG:
+            case TAG_DOUBLE:
+                return 8;
+            default:
+                return 0;
+        }
+    }
+
+    private long readInteger(int type) throws IOException {
+        switch (type) {
+            case TAG_BYTE:
+                return (byte) readUnsignedByte();
+            case TAG_SHORT:
+                return (short) readLittleEndian(2);
+            case TAG_INT:
+                return (int) readLittleEndian(4);
+            default:
+                return readLittleEndian(8);
+        }
+    }
+
+    private int readLength() throws IOException {
+        int length = (int) readLittleEndian(4);
+        if (length < 0) throw new IOException("Negative NBT length " + length);
+        return length;
+    }
+
+    private String readString() throws IOException {
+        int length = (int) readLittleEndian(2);
+        if (length > stringBuffer.length) stringBuffer = new byte[Math.max(length, stringBuffer.length * 2)];
+        readFully(stringBuffer, length);
+        return new String(stringBuffer, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private long readLittleEndian(int bytes) throws IOException {
+        readFully(scratch, bytes);
+        long value = 0;
+        for (int i = bytes - 1; i >= 0; i--) {
+            value = (value << 8) | (scratch[i] & 0xFF);
+        }
+        return value;
+    }
+
+    private int readUnsignedByte() throws IOException {
+        int b = in.read();
+        if (b < 0) throw new EOFException("Truncated NBT");
+        return b;
+    }
+
+    private void readFully(byte[] buffer, int length) throws IOException {
+        int off = 0;
+        while (off < length) {
+            int n = in.read(buffer, off, length - off);
+            if (n < 0) throw new EOFException("Truncated NBT");
+            off += n;
+        }
+    }
+
+    private void skipFully(long count) throws IOException {
+        while (count > 0) {
+            long n = in.skip(count);
+            if (n <= 0) {
+                if (in.read() < 0) throw new EOFException("Truncated NBT");
+                n = 1;
+            }
+            count -= n;
+        }
+    }
+}
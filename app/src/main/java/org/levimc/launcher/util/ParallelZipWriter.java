@@ -0,0 +1,407 @@
+package org.levimc.launcher.util;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipException;
+
+/**
+ * Writes a directory tree as a ZIP archive, compressing entries on a worker pool and appending them
+ * to the output in directory order. Small files are deflated into memory by the workers; files
+ * above {@link #MAX_BUFFERED_SIZE} are streamed by the writer with a data descriptor. Formats that
+ * are compressed already (LevelDB tables, images) are stored.
+ */
+public final class ParallelZipWriter {
+    private static final int MAX_THREADS = 4;
+    private static final long MAX_BUFFERED_SIZE = 4L * 1024 * 1024;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final List<String> STORED_EXTENSIONS = Arrays.asList(".ldb", ".png", ".jpg", ".jpeg", ".zip", ".mcpack");
+
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int DATA_DESCRIPTOR_SIGNATURE = 0x08074b50;
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    private static final int EOCD_SIGNATURE = 0x06054b50;
+    private static final int ZIP64_EOCD_SIGNATURE = 0x06064b50;
+    private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+    private static final int FLAG_DATA_DESCRIPTOR = 1 << 3;
+    private static final int FLAG_UTF8 = 1 << 11;
+    private static final long MAX_32 = 0xFFFFFFFFL;
+    private static final int MAX_16 = 0xFFFF;
+
+    public interface ProgressListener {
+        void onProgress(long doneBytes, long totalBytes);
+    }
+
+    private static final class Source {
+        final File file;
+        final String name;
+        final boolean store;
+
+        Source(File file, String name, boolean store) {
+            this.file = file;
+            this.name = name;
+            this.store = store;
+        }
+    }
+
+    private static final class Prepared {
+        final Source source;
+        long crc;
+        long size;
+        byte[] compressed;
+        int compressedLength;
+
+        Prepared(Source source) {
+            this.source = source;
+        }
+    }
+
+    private static final class Record {
+        final byte[] name;
+        final int method;
+        final int flags;
+        final long dosTime;
+        final long crc;
+        final long compressedSize;
+        final long size;
+        final long offset;
+
+        Record(byte[] name, int method, int flags, long dosTime, long crc, long compressedSize, long size, long offset) {
+            this.name = name;
+            this.method = method;
+            this.flags = flags;
+            this.dosTime = dosTime;
+            this.crc = crc;
+            this.compressedSize = compressedSize;
+            this.size = size;
+            this.offset = offset;
+        }
+    }
+
+    private ParallelZipWriter() {
+    }
+
+    public static void zipDirectory(File dir, String basePath, OutputStream out, ProgressListener listener) throws IOException {
+        List<Source> sources = new ArrayList<>();
+        collect(dir, basePath, sources);
+        write(sources, out, listener);
+    }
+
+    /** Archives the given files under their map keys, in iteration order. */
+    public static void zipFiles(Map<String, File> entries, OutputStream out, ProgressListener listener) throws IOException {
+        List<Source> sources = new ArrayList<>(entries.size());
+        for (Map.Entry<String, File> e : entries.entrySet()) {
+            sources.add(new Source(e.getValue(), e.getKey(), isStored(e.getKey())));
+        }
+        write(sources, out, listener);
+    }
+
+    private static void write(List<Source> sources, OutputStream out, ProgressListener listener) throws IOException {
+        long total = 0;
+        for (Source s : sources) total += s.file.length();
+
+        CountingOutputStream counting = new CountingOutputStream(new BufferedOutputStream(out, BUFFER_SIZE));
+        List<Record> records = new ArrayList<>(sources.size());
+        int threads = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), MAX_THREADS));
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        // Bounded look-ahead keeps at most a few buffered entries in memory at once.
+        int window = threads * 2;
+        Deque<Future<Prepared>> inFlight = new ArrayDeque<>();
+        long done = 0;
+        try {
+            int next = 0;
+            while (next < sources.size() || !inFlight.isEmpty()) {
+                while (next < sources.size() && inFlight.size() < window) {
+                    Source source = sources.get(next++);
+                    inFlight.add(pool.submit(() -> prepare(source)));
+                }
+                Prepared prepared = inFlight.removeFirst().get();
+                records.add(writeEntry(counting, prepared));
+                done += prepared.size;
+                if (listener != null) listener.onProgress(done, total);
+            }
+            writeCentralDirectory(counting, records);
+            counting.flush();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            throw new IOException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Archive interrupted");
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static void collect(File dir, String basePath, List<Source> out) {
+        File[] files = dir.listFiles();
+        if (files == null) return;
+        Arrays.sort(files);
+        for (File file : files) {
+            String entryPath = basePath + "/" + file.getName();
+            if (file.isDirectory()) {
+                collect(file, entryPath, out);
+            } else {
+                out.add(new Source(file, entryPath, isStored(file.getName())));
+            }
+        }
+    }
+
+    private static boolean isStored(String name) {
+        String lower = name.toLowerCase(Locale.ROOT);
+        for (String ext : STORED_EXTENSIONS) {
+            if (lower.endsWith(ext)) return true;
+        }
+        return false;
+    }
+
+    // Runs on the pool: CRC for stored entries, CRC plus in-memory deflate for small ones.
+    private static Prepared prepare(Source source) throws IOException {
+        Prepared prepared = new Prepared(source);
+        long length = source.file.length();
+        if (!source.store && length > MAX_BUFFERED_SIZE) return prepared;
+
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        Deflater deflater = source.store ? null : new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        ByteArrayOutputStream compressed = source.store ? null : new ByteArrayOutputStream((int) Math.max(64, length / 2));
+        try (InputStream in = new FileInputStream(source.file)) {
+            long size = 0;
+            int len;
+            while ((len = in.read(buffer)) != -1) {
+                crc.update(buffer, 0, len);
+                size += len;
+                if (deflater != null) {
+                    deflater.setInput(buffer, 0, len);
+                    drain(deflater, compressed);
+                }
+            }
+            if (deflater != null) {
+                deflater.finish();
+                while (!deflater.finished()) drain(deflater, compressed);
+                prepared.compressed = compressed.toByteArray();
+                prepared.compressedLength = prepared.compressed.length;
+            }
+            prepared.size = size;
+            prepared.crc = crc.getValue();
+        } finally {
+            if (deflater != null) deflater.end();
+        }
+        return prepared;
+    }
+
+    private static void drain(Deflater deflater, ByteArrayOutputStream out) {
+        byte[] chunk = new byte[BUFFER_SIZE];
+        int n;
+        while ((n = deflater.deflate(chunk)) > 0) {
+            out.write(chunk, 0, n);
+        }
+    }
+
+    private static Record writeEntry(CountingOutputStream out, Prepared prepared) throws IOException {
+        Source source = prepared.source;
+        byte[] name = source.name.getBytes(StandardCharsets.UTF_8);
+        long dosTime = dosTime(source.file.lastModified());
+        long offset = out.count;
+
+        if (source.store) {
+            writeLocalHeader(out, name, 0, FLAG_UTF8, dosTime, prepared.crc, prepared.size, prepared.size);
+            long copied = copy(source.file, out, null, null);
+            if (copied != prepared.size) throw new ZipException(source.name + " changed while archiving");
+            return new Record(name, 0, FLAG_UTF8, dosTime, prepared.crc, prepared.size, prepared.size, offset);
+        }
+        if (prepared.compressed != null) {
+            writeLocalHeader(out, name, 8, FLAG_UTF8, dosTime, prepared.crc, prepared.compressedLength, prepared.size);
+            out.write(prepared.compressed, 0, prepared.compressedLength);
+            return new Record(name, 8, FLAG_UTF8, dosTime, prepared.crc, prepared.compressedLength, prepared.size, offset);
+        }
+
+        // Large file: deflate while streaming and put CRC and sizes in a data descriptor.
+        int flags = FLAG_UTF8 | FLAG_DATA_DESCRIPTOR;
+        writeLocalHeader(out, name, 8, flags, dosTime, 0, 0, 0);
+        CRC32 crc = new CRC32();
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        long start = out.count;
+        long size;
+        try {
+            size = copy(source.file, out, crc, deflater);
+        } finally {
+            deflater.end();
+        }
+        long compressedSize = out.count - start;
+        if (size >= MAX_32 || compressedSize >= MAX_32) throw new ZipException(source.name + " is too large");
+        writeInt(out, DATA_DESCRIPTOR_SIGNATURE);
+        writeInt(out, crc.getValue());
+        writeInt(out, compressedSize);
+        writeInt(out, size);
+        prepared.size = size;
+        return new Record(name, 8, flags, dosTime, crc.getValue(), compressedSize, size, offset);
+    }
+
+    private static long copy(File file, OutputStream out, CRC32 crc, Deflater deflater) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        byte[] chunk = deflater != null ? new byte[BUFFER_SIZE] : null;
+        long size = 0;
+        try (InputStream in = new FileInputStream(file)) {
+            int len;
+            while ((len = in.read(buffer)) != -1) {
+                size += len;
+                if (crc != null) crc.update(buffer, 0, len);
+                if (deflater == null) {
+                    out.write(buffer, 0, len);
+                    continue;
+                }
+                deflater.setInput(buffer, 0, len);
+                int n;
+                while ((n = deflater.deflate(chunk)) > 0) out.write(chunk, 0, n);
+            }
+        }
+        if (deflater != null) {
+            deflater.finish();
+            while (!deflater.finished()) {
+                int n = deflater.deflate(chunk);
+                out.write(chunk, 0, n);
+            }
+        }
+        return size;
+    }
+
+    private static void writeLocalHeader(OutputStream out, byte[] name, int method, int flags, long dosTime,
+                                         long crc, long compressedSize, long size) throws IOException {
+        if (size >= MAX_32 || compressedSize >= MAX_32) throw new ZipException("Entry too large");
+        writeInt(out, LOCAL_HEADER_SIGNATURE);
+        writeShort(out, 20);
+        writeShort(out, flags);
+        writeShort(out, method);
+        writeInt(out, dosTime);
+        writeInt(out, crc);
+        writeInt(out, compressedSize);
+        writeInt(out, size);
+        writeShort(out, name.length);
+        writeShort(out, 0);
+        out.write(name);
+    }
+
+    private static void writeCentralDirectory(CountingOutputStream out, List<Record> records) throws IOException {
+        long cdOffset = out.count;
+        for (Record r : records) {
+            boolean zip64Offset = r.offset >= MAX_32;
+            writeInt(out, CENTRAL_HEADER_SIGNATURE);
+            writeShort(out, zip64Offset ? 45 : 20);
+            writeShort(out, zip64Offset ? 45 : 20);
+            writeShort(out, r.flags);
+            writeShort(out, r.method);
+            writeInt(out, r.dosTime);
+            writeInt(out, r.crc);
+            writeInt(out, r.compressedSize);
+            writeInt(out, r.size);
+            writeShort(out, r.name.length);
+            writeShort(out, zip64Offset ? 12 : 0);
+            writeShort(out, 0);
+            writeShort(out, 0);
+            writeShort(out, 0);
+            writeInt(out, 0);
+            writeInt(out, zip64Offset ? MAX_32 : r.offset);
+            out.write(r.name);
+            if (zip64Offset) {
+                writeShort(out, 0x0001);
+                writeShort(out, 8);
+                writeLong(out, r.offset);
+            }
+        }
+        long cdSize = out.count - cdOffset;
+        boolean zip64 = records.size() >= MAX_16 || cdOffset >= MAX_32 || cdSize >= MAX_32;
+        if (zip64) {
+            long zip64EocdOffset = out.count;
+            writeInt(out, ZIP64_EOCD_SIGNATURE);
+            writeLong(out, 44);
+            writeShort(out, 45);
+            writeShort(out, 45);
+            writeInt(out, 0);
+            writeInt(out, 0);
+            writeLong(out, records.size());
+            writeLong(out, records.size());
+            writeLong(out, cdSize);
+            writeLong(out, cdOffset);
+            writeInt(out, ZIP64_LOCATOR_SIGNATURE);
+            writeInt(out, 0);
+            writeLong(out, zip64EocdOffset);
+            writeInt(out, 1);
+        }
+        writeInt(out, EOCD_SIGNATURE);
+        writeShort(out, 0);
+        writeShort(out, 0);
+        writeShort(out, zip64 ? MAX_16 : records.size());
+        writeShort(out, zip64 ? MAX_16 : records.size());
+        writeInt(out, zip64 ? MAX_32 : cdSize);
+        writeInt(out, zip64 ? MAX_32 : cdOffset);
+        writeShort(out, 0);
+    }
+
+    private static long dosTime(long millis) {
+        Calendar c = Calendar.getInstance();
+        c.setTimeInMillis(millis);
+        int year = c.get(Calendar.YEAR);
+        if (year < 1980) return (1 << 21) | (1 << 16);
+        return ((long) (year - 1980) << 25) | ((long) (c.get(Calendar.MONTH) + 1) << 21)
+                | ((long) c.get(Calendar.DAY_OF_MONTH) << 16) | ((long) c.get(Calendar.HOUR_OF_DAY) << 11)
+                | ((long) c.get(Calendar.MINUTE) << 5) | (c.get(Calendar.SECOND) >> 1);
+    }
+
+    private static void writeShort(OutputStream out, int v) throws IOException {
+        out.write(v & 0xFF);
+        out.write((v >>> 8) & 0xFF);
+    }
+
+    private static void writeInt(OutputStream out, long v) throws IOException {
+        writeShort(out, (int) (v & 0xFFFF));
+        writeShort(out, (int) ((v >>> 16) & 0xFFFF));
+    }
+
+    private static void writeLong(OutputStream out, long v) throws IOException {
+        writeInt(out, v & MAX_32);
+        writeInt(out, v >>> 32);
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+        long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
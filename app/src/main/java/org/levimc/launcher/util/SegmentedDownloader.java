@@ -0,0 +1,385 @@
+package org.levimc.launcher.util;
+
+import android.util.Log;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Call;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * Downloads a file in parallel HTTP Range segments into {@code <target>.part}. Progress of every
+ * segment is kept in {@code <target>.part.json} so an interrupted download, including one cut
+ * short by process death, continues where it stopped. Falls back to a single stream when the
+ * server ignores Range requests.
+ */
+public class SegmentedDownloader {
+    private static final String TAG = "SegmentedDownloader";
+    private static final int MAX_SEGMENTS = 4;
+    private static final long MIN_SEGMENT_SIZE = 1024 * 1024;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_ATTEMPTS = 4;
+    private static final long STATE_SAVE_INTERVAL = 1024 * 1024;
+    private static final long PROGRESS_INTERVAL_MS = 200;
+    private static final Gson gson = new Gson();
+
+    public interface ProgressListener {
+        void onProgress(long downloadedBytes, long totalBytes);
+    }
+
+    private static class Segment {
+        long start;
+        long end;
+        long done;
+
+        long remaining() {
+            return end - start + 1 - done;
+        }
+    }
+
+    private static class State {
+        String url;
+        long size;
+        String etag;
+        List<Segment> segments = new ArrayList<>();
+    }
+
+    private final OkHttpClient client;
+    private final List<Call> activeCalls = new ArrayList<>();
+    private volatile boolean cancelled;
+
+    public SegmentedDownloader(OkHttpClient client) {
+        this.client = client;
+    }
+
+    public void cancel() {
+        cancelled = true;
+        synchronized (activeCalls) {
+            for (Call call : activeCalls) call.cancel();
+        }
+    }
+
+    /**
+     * @param expectedSize   size announced by the server side (e.g. the GitHub asset), or -1
+     * @param expectedSha256 hex SHA-256 to verify against, or null
+     */
+    public void download(String url, File target, long expectedSize, String expectedSha256,
+                         ProgressListener listener) throws IOException {
+        File partFile = new File(target.getPath() + ".part");
+        File stateFile = new File(target.getPath() + ".part.json");
+        State state = loadState(stateFile);
+        if (state == null || !url.equals(state.url) || (expectedSize > 0 && state.size != expectedSize)
+                || !partFile.isFile() || partFile.length() != state.size) {
+            state = probe(url, expectedSize);
+            partFile.delete();
+            if (state == null) {
+                stateFile.delete();
+                downloadSingle(url, partFile, expectedSize, listener);
+                finish(partFile, target, stateFile, expectedSize, expectedSha256);
+                return;
+            }
+            try (RandomAccessFile raf = new RandomAccessFile(partFile, "rw")) {
+                raf.setLength(state.size);
+            }
+            saveState(stateFile, state);
+        } else {
+            Log.i(TAG, "Resuming " + target.getName() + " at " + downloaded(state) + "/" + state.size);
+        }
+
+        Progress progress = new Progress(state.size, downloaded(state), listener);
+        State current = state;
+        List<Segment> pending = new ArrayList<>();
+        for (Segment s : state.segments) {
+            if (s.remaining() > 0) pending.add(s);
+        }
+        if (!pending.isEmpty()) {
+            ExecutorService pool = Executors.newFixedThreadPool(pending.size());
+            try (RandomAccessFile raf = new RandomAccessFile(partFile, "rw")) {
+                FileChannel channel = raf.getChannel();
+                List<Future<?>> futures = new ArrayList<>();
+                for (Segment segment : pending) {
+                    futures.add(pool.submit(() -> {
+                        fetchSegment(current, segment, channel, stateFile, progress);
+                        return null;
+                    }));
+                }
+                for (Future<?> future : futures) future.get();
+            } catch (ExecutionException e) {
+                cancel();
+                Throwable cause = e.getCause();
+                if (cause instanceof RemoteChangedException) {
+                    partFile.delete();
+                    stateFile.delete();
+                    state = null;
+                }
+                if (cause instanceof IOException) throw (IOException) cause;
+                throw new IOException(cause);
+            } catch (InterruptedException e) {
+                cancel();
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Download interrupted");
+            } finally {
+                pool.shutdownNow();
+                if (state != null) saveState(stateFile, state);
+            }
+        }
+        progress.flush();
+        finish(partFile, target, stateFile, state.size, expectedSha256);
+    }
+
+    // Learns size and validator with a one-byte range request; returns null if ranges aren't supported.
+    private State probe(String url, long expectedSize) throws IOException {
+        Request request = new Request.Builder().url(url).header("Range", "bytes=0-0").build();
+        try (Response response = execute(request)) {
+            if (response.code() != 206) return null;
+            String contentRange = response.header("Content-Range");
+            long size = -1;
+            if (contentRange != null && contentRange.contains("/")) {
+                try {
+                    size = Long.parseLong(contentRange.substring(contentRange.lastIndexOf('/') + 1).trim());
+                } catch (NumberFormatException ignored) {
+                }
+            }
+            if (size <= 0) return null;
+            if (expectedSize > 0 && size != expectedSize) {
+                throw new IOException("Server reports " + size + " bytes, expected " + expectedSize);
+            }
+            State state = new State();
+            state.url = url;
+            state.size = size;
+            state.etag = response.header("ETag");
+            int count = (int) Math.max(1, Math.min(MAX_SEGMENTS, size / MIN_SEGMENT_SIZE));
+            long per = size / count;
+            for (int i = 0; i < count; i++) {
+                Segment s = new Segment();
+                s.start = i * per;
+                s.end = i == count - 1 ? size - 1 : (i + 1) * per - 1;
+                state.segments.add(s);
+            }
+            return state;
+        }
+    }
+
+    private void fetchSegment(State state, Segment segment, FileChannel channel, File stateFile,
+                              Progress progress) throws IOException {
+        IOException last = null;
+        for (int attempt = 0; attempt < MAX_ATTEMPTS && segment.remaining() > 0; attempt++) {
+            if (cancelled) throw new InterruptedIOException("Download cancelled");
+            if (attempt > 0) sleepBackoff(attempt);
+            Request.Builder builder = new Request.Builder().url(state.url)
+                    .header("Range", "bytes=" + (segment.start + segment.done) + "-" + segment.end);
+            if (state.etag != null) builder.header("If-Range", state.etag);
+            try (Response response = execute(builder.build())) {
+                if (response.code() == 200) {
+                    // If-Range mismatch: the remote file changed, the partial data is useless.
+                    throw new RemoteChangedException();
+                }
+                if (response.code() != 206) {
+                    throw new IOException("Unexpected HTTP " + response.code() + " for segment at " + segment.start);
+                }
+                ResponseBody body = response.body();
+                try (InputStream in = body.byteStream()) {
+                    byte[] buffer = new byte[BUFFER_SIZE];
+                    long sinceSave = 0;
+                    int len;
+                    while (segment.remaining() > 0 && (len = in.read(buffer, 0, (int) Math.min(buffer.length, segment.remaining()))) != -1) {
+                        ByteBuffer src = ByteBuffer.wrap(buffer, 0, len);
+                        long pos = segment.start + segment.done;
+                        while (src.hasRemaining()) pos += channel.write(src, pos);
+                        synchronized (state) {
+                            segment.done += len;
+                        }
+                        progress.add(len);
+                        sinceSave += len;
+                        if (sinceSave >= STATE_SAVE_INTERVAL) {
+                            saveState(stateFile, state);
+                            sinceSave = 0;
+                        }
+                    }
+                }
+                last = null;
+            } catch (RemoteChangedException e) {
+                throw e;
+            } catch (IOException e) {
+                if (cancelled) throw e;
+                last = e;
+                Log.w(TAG, "Segment at " + segment.start + " failed (attempt " + (attempt + 1) + "): " + e.getMessage());
+            }
+        }
+        if (segment.remaining() > 0) {
+            throw last != null ? last : new IOException("Segment at " + segment.start + " incomplete");
+        }
+    }
+
+    private void downloadSingle(String url, File partFile, long expectedSize, ProgressListener listener) throws IOException {
+        Request request = new Request.Builder().url(url).build();
+        try (Response response = execute(request)) {
+            if (!response.isSuccessful()) throw new IOException("HTTP " + response.code());
+            ResponseBody body = response.body();
+            long total = expectedSize > 0 ? expectedSize : body.contentLength();
+            Progress progress = new Progress(total, 0, listener);
+            try (InputStream in = body.byteStream();
+                 RandomAccessFile raf = new RandomAccessFile(partFile, "rw")) {
+                raf.setLength(0);
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int len;
+                while ((len = in.read(buffer)) != -1) {
+                    raf.write(buffer, 0, len);
+                    progress.add(len);
+                }
+            }
+            progress.flush();
+        }
+    }
+
+    private void finish(File partFile, File target, File stateFile, long expectedSize, String expectedSha256) throws IOException {
+        if (expectedSize > 0 && partFile.length() != expectedSize) {
+            partFile.delete();
+            stateFile.delete();
+            throw new IOException("Size mismatch: " + partFile.length() + " != " + expectedSize);
+        }
+        if (expectedSha256 != null) {
+            String actual = sha256(partFile);
+            if (!actual.equalsIgnoreCase(expectedSha256)) {
+                partFile.delete();
+                stateFile.delete();
+                throw new IOException("SHA-256 mismatch for " + target.getName());
+            }
+        }
+        if (target.exists() && !target.delete()) throw new IOException("Failed to replace " + target);
+        if (!partFile.renameTo(target)) throw new IOException("Failed to move " + partFile + " to " + target);
+        stateFile.delete();
+    }
+
+    private Response execute(Request request) throws IOException {
+        Call call = client.newCall(request);
+        synchronized (activeCalls) {
+            if (cancelled) throw new InterruptedIOException("Download cancelled");
+            activeCalls.add(call);
+        }
+        try {
+            return call.execute();
+        } finally {
+            synchronized (activeCalls) {
+                activeCalls.remove(call);
+            }
+        }
+    }
+
+    private static void sleepBackoff(int attempt) throws InterruptedIOException {
+        try {
+            Thread.sleep(500L << Math.min(attempt, 4));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Download interrupted");
+        }
+    }
+
+    private static long downloaded(State state) {
+        long sum = 0;
+        for (Segment s : state.segments) sum += s.done;
+        return sum;
+    }
+
+    private static State loadState(File file) {
+        String json = JsonIOUtils.read(file);
+        if (json == null) return null;
+        try {
+            return gson.fromJson(json, State.class);
+        } catch (JsonSyntaxException e) {
+            Log.w(TAG, "Discarding corrupt download state", e);
+            return null;
+        }
+    }
+
+    private static void saveState(File file, State state) {
+        String json;
+        synchronized (state) {
+            json = gson.toJson(state);
+        }
+        synchronized (SegmentedDownloader.class) {
+            File tmp = new File(file.getPath() + ".tmp");
+            if (!JsonIOUtils.write(tmp, json) || !tmp.renameTo(file)) tmp.delete();
+        }
+    }
+
+    private static String sha256(File file) throws IOException {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+        try (InputStream in = new FileInputStream(file)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int len;
+            while ((len = in.read(buffer)) != -1) {
+                md.update(buffer, 0, len);
+            }
+        }
+        StringBuilder sb = new StringBuilder(64);
+        for (byte b : md.digest()) {
+            sb.append(String.format(Locale.ROOT, "%02x", b & 0xFF));
+        }
+        return sb.toString();
+    }
+
+    private static final class RemoteChangedException extends IOException {
+        RemoteChangedException() {
+            super("Remote file changed, restart the download");
+        }
+    }
+
+    // Coalesces segment updates so the listener sees at most one call per interval, whatever the
+    // number of segments or the link speed.
+    private static final class Progress {
+        private final long total;
+        private final AtomicLong done;
+        private final ProgressListener listener;
+        private long lastReport;
+
+        Progress(long total, long initial, ProgressListener listener) {
+            this.total = total;
+            this.done = new AtomicLong(initial);
+            this.listener = listener;
+        }
+
+        void add(long bytes) {
+            long value = done.addAndGet(bytes);
+            if (listener == null) return;
+            synchronized (this) {
+                long now = System.currentTimeMillis();
+                if (now - lastReport < PROGRESS_INTERVAL_MS) return;
+                lastReport = now;
+            }
+            listener.onProgress(value, total);
+        }
+
+        void flush() {
+            if (listener != null) listener.onProgress(done.get(), total);
+        }
+    }
+}
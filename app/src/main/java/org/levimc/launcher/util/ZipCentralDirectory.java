@@ -0,0 +1,396 @@
+package org.levimc.launcher.util;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+public final class ZipCentralDirectory {
+    public static final int METHOD_STORED = 0;
+    public static final int METHOD_DEFLATED = 8;
+
+    private static final int EOCD_SIGNATURE = 0x06054b50;
+    private static final int EOCD_MIN_SIZE = 22;
+    private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+    private static final int ZIP64_LOCATOR_SIZE = 20;
+    private static final int ZIP64_EOCD_SIGNATURE = 0x06064b50;
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    private static final int CENTRAL_HEADER_SIZE = 46;
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int LOCAL_HEADER_SIZE = 30;
+    private static final int ZIP64_EXTRA_ID = 0x0001;
+    private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+    private static final int MAX_COMMENT_SIZE = 0xFFFF;
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
+    public static final class Entry {
+        public final String name;
+        public final int method;
+        public final long crc;
+        public final long compressedSize;
+        public final long size;
+        public final long localHeaderOffset;
+        public final long lastModifiedDosTime;
+
+        Entry(String name, int method, long crc, long compressedSize, long size, long localHeaderOffset, long lastModifiedDosTime) {
+            this.name = name;
+            this.method = method;
+            this.crc = crc;
+            this.compressedSize = compressedSize;
+            this.size = size;
+            this.localHeaderOffset = localHeaderOffset;
+            this.lastModifiedDosTime = lastModifiedDosTime;
+        }
+
+        public boolean isDirectory() {
+            return name.endsWith("/");
+        }
+
+        public boolean isStored() {
+            return method == METHOD_STORED;
+        }
+    }
+
+    private final List<Entry> entries;
+    private final Map<String, Entry> entriesByName;
+
+    private ZipCentralDirectory(List<Entry> entries) {
+        this.entries = Collections.unmodifiableList(entries);
+        this.entriesByName = new HashMap<>(entries.size() * 2);
+        for (Entry entry : entries) {
+            entriesByName.put(entry.name, entry);
+        }
+    }
+
+    public List<Entry> entries() {
+        return entries;
+    }
+
+    public Entry get(String name) {
+        return entriesByName.get(name);
+    }
+
+    public static ZipCentralDirectory read(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return read(channel);
+        }
+    }
+
+    public static ZipCentralDirectory read(FileChannel channel) throws IOException {
+        long fileSize = channel.size();
+        if (fileSize < EOCD_MIN_SIZE) throw new ZipException("Not a zip file");
+
+        int tailSize = (int) Math.min(fileSize, EOCD_MIN_SIZE + MAX_COMMENT_SIZE);
+        long tailStart = fileSize - tailSize;
+        ByteBuffer tail = readFully(channel, tailStart, tailSize);
+
+        int eocd = -1;
+        for (int i = tailSize - EOCD_MIN_SIZE; i >= 0; i--) {
+            if (tail.getInt(i) == EOCD_SIGNATURE) {
+                eocd = i;
+                break;
+            }
+        }
+        if (eocd < 0) throw new ZipException("End of central directory not found");
+
+        long totalEntries = tail.getShort(eocd + 10) & 0xFFFF;
+        long cdSize = tail.getInt(eocd + 12) & ZIP64_MAGIC;
+        long cdOffset = tail.getInt(eocd + 16) & ZIP64_MAGIC;
+
+        long locatorPos = tailStart + eocd - ZIP64_LOCATOR_SIZE;
+        if (locatorPos >= 0) {
+            ByteBuffer locator = readFully(channel, locatorPos, ZIP64_LOCATOR_SIZE);
+            if (locator.getInt(0) == ZIP64_LOCATOR_SIGNATURE) {
+                ByteBuffer zip64Eocd = readFully(channel, locator.getLong(8), 56);
+                if (zip64Eocd.getInt(0) != ZIP64_EOCD_SIGNATURE) {
+                    throw new ZipException("Invalid zip64 end of central directory");
+                }
+                totalEntries = zip64Eocd.getLong(32);
+                cdSize = zip64Eocd.getLong(40);
+                cdOffset = zip64Eocd.getLong(48);
+            }
+        }
+        if (cdOffset + cdSize > fileSize) throw new ZipException("Truncated central directory");
+
+        MappedByteBuffer cd = channel.map(FileChannel.MapMode.READ_ONLY, cdOffset, cdSize);
+        cd.order(ByteOrder.LITTLE_ENDIAN);
+
+        List<Entry> entries = new ArrayList<>((int) Math.min(totalEntries, 1 << 16));
+        int pos = 0;
+        while (pos + CENTRAL_HEADER_SIZE <= cdSize) {
+            if (cd.getInt(pos) != CENTRAL_HEADER_SIGNATURE) break;
+            int method = cd.getShort(pos + 10) & 0xFFFF;
+            long dosTime = cd.getInt(pos + 12) & ZIP64_MAGIC;
+            long crc = cd.getInt(pos + 16) & ZIP64_MAGIC;
+            long compressedSize = cd.getInt(pos + 20) & ZIP64_MAGIC;
+            long size = cd.getInt(pos + 24) & ZIP64_MAGIC;
+            int nameLength = cd.getShort(pos + 28) & 0xFFFF;
+            int extraLength = cd.getShort(pos + 30) & 0xFFFF;
+            int commentLength = cd.getShort(pos + 32) & 0xFFFF;
+            long localHeaderOffset = cd.getInt(pos + 42) & ZIP64_MAGIC;
+
+            byte[] nameBytes = new byte[nameLength];
+            cd.position(pos + CENTRAL_HEADER_SIZE);
+            cd.get(nameBytes);
+            String name = new String(nameBytes, StandardCharsets.UTF_8);
+
+            if (size == ZIP64_MAGIC || compressedSize == ZIP64_MAGIC || localHeaderOffset == ZIP64_MAGIC) {
+                int extra = pos + CENTRAL_HEADER_SIZE + nameLength;
+                int extraEnd = extra + extraLength;
+                while (extra + 4 <= extraEnd) {
+                    int id = cd.getShort(extra) & 0xFFFF;
+                    int length = cd.getShort(extra + 2) & 0xFFFF;
+                    if (id == ZIP64_EXTRA_ID) {
+                        int field = extra + 4;
+                        if (size == ZIP64_MAGIC) {
+                            size = cd.getLong(field);
+                            field += 8;
+                        }
+                        if (compressedSize == ZIP64_MAGIC) {
+                            compressedSize = cd.getLong(field);
+                            field += 8;
+                        }
+                        if (localHeaderOffset == ZIP64_MAGIC) {
+                            localHeaderOffset = cd.getLong(field);
+                        }
+                        break;
+                    }
+                    extra += 4 + length;
+                }
+            }
+
+            entries.add(new Entry(name, method, crc, compressedSize, size, localHeaderOffset, dosTime));
+            pos += CENTRAL_HEADER_SIZE + nameLength + extraLength + commentLength;
+        }
+        return new ZipCentralDirectory(entries);
+    }
+
+    public static long dataOffset(FileChannel channel, Entry entry) throws IOException {
+        ByteBuffer header = readFully(channel, entry.localHeaderOffset, LOCAL_HEADER_SIZE);
+        if (header.getInt(0) != LOCAL_HEADER_SIGNATURE) {
+            throw new ZipException("Invalid local header for " + entry.name);
+        }
+        int nameLength = header.getShort(26) & 0xFFFF;
+        int extraLength = header.getShort(28) & 0xFFFF;
+        return entry.localHeaderOffset + LOCAL_HEADER_SIZE + nameLength + extraLength;
+    }
+
+    // The returned stream checks the entry's CRC-32 and size against the central directory once it
+    // reaches the end, as ZipInputStream does, and throws ZipException on a mismatch.
+    public static InputStream openStream(FileChannel channel, Entry entry) throws IOException {
+        InputStream raw = new ChannelInputStream(channel, dataOffset(channel, entry), entry.compressedSize);
+        switch (entry.method) {
+            case METHOD_STORED:
+                return new VerifyingInputStream(raw, entry);
+            case METHOD_DEFLATED:
+                return new VerifyingInputStream(new EntryInflaterInputStream(raw), entry);
+            default:
+                raw.close();
+                throw new ZipException("Unsupported compression method " + entry.method + " for " + entry.name);
+        }
+    }
+
+    // Checks bytes already written to a file (e.g. by transferTo) against the entry.
+    public static void verify(FileChannel written, long position, Entry entry) throws IOException {
+        CRC32 crc = new CRC32();
+        ByteBuffer buffer = ByteBuffer.allocate(STREAM_BUFFER_SIZE);
+        long pos = position;
+        long end = written.size();
+        while (pos < end) {
+            buffer.clear();
+            int n = written.read(buffer, pos);
+            if (n <= 0) break;
+            crc.update(buffer.array(), 0, n);
+            pos += n;
+        }
+        verify(entry, crc.getValue(), pos - position);
+    }
+
+    static void verify(Entry entry, long crc, long size) throws ZipException {
+        if (size != entry.size) {
+            throw new ZipException("Size mismatch for " + entry.name + ": expected " + entry.size + ", got " + size);
+        }
+        if (crc != entry.crc) {
+            throw new ZipException(String.format(Locale.ROOT, "CRC mismatch for %s: expected %08x, got %08x", entry.name, entry.crc, crc));
+        }
+    }
+
+    // Writes one entry to target, using transferTo for stored entries so their bytes never pass
+    // through the Java heap; those are checked against the CRC by reading the written file back.
+    public static void extract(FileChannel channel, Entry entry, File target) throws IOException {
+        try (FileChannel out = FileChannel.open(target.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            if (entry.isStored()) {
+                long offset = dataOffset(channel, entry);
+                long pos = 0;
+                while (pos < entry.size) {
+                    long n = channel.transferTo(offset + pos, entry.size - pos, out);
+                    if (n <= 0) throw new EOFException("Short transfer for " + entry.name);
+                    pos += n;
+                }
+                verify(out, 0, entry);
+            } else {
+                try (InputStream in = openStream(channel, entry)) {
+                    byte[] buffer = new byte[STREAM_BUFFER_SIZE];
+                    int len;
+                    while ((len = in.read(buffer)) != -1) {
+                        ByteBuffer src = ByteBuffer.wrap(buffer, 0, len);
+                        while (src.hasRemaining()) out.write(src);
+                    }
+                }
+            }
+        }
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, position + buffer.position());
+            if (n < 0) throw new EOFException("Unexpected end of zip file");
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static final class ChannelInputStream extends InputStream {
+        private final FileChannel channel;
+        private long position;
+        private long remaining;
+
+        ChannelInputStream(FileChannel channel, long position, long length) {
+            this.channel = channel;
+            this.position = position;
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) == -1 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) return 0;
+            if (remaining <= 0) return -1;
+            int toRead = (int) Math.min(len, remaining);
+            int n = channel.read(ByteBuffer.wrap(b, off, toRead), position);
+            if (n <= 0) return -1;
+            position += n;
+            remaining -= n;
+            return n;
+        }
+
+        @Override
+        public long skip(long n) {
+            long skipped = Math.max(0, Math.min(n, remaining));
+            position += skipped;
+            remaining -= skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(remaining, Integer.MAX_VALUE);
+        }
+    }
+
+    private static final class VerifyingInputStream extends FilterInputStream {
+        private final Entry entry;
+        private final CRC32 crc = new CRC32();
+        private long count;
+        private boolean verified;
+
+        VerifyingInputStream(InputStream in, Entry entry) {
+            super(in);
+            this.entry = entry;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) == -1 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = in.read(b, off, len);
+            if (n > 0) {
+                crc.update(b, off, n);
+                count += n;
+            } else if (n == -1 && !verified) {
+                verified = true;
+                verify(entry, crc.getValue(), count);
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            // Skipped bytes still have to be checksummed.
+            byte[] buffer = new byte[(int) Math.min(n, 8192)];
+            long skipped = 0;
+            while (skipped < n) {
+                int r = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+                if (r == -1) break;
+                skipped += r;
+            }
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+    }
+
+    private static final class EntryInflaterInputStream extends InflaterInputStream {
+        private boolean eof;
+        private boolean closed;
+
+        EntryInflaterInputStream(InputStream in) {
+            super(in, new Inflater(true), STREAM_BUFFER_SIZE);
+        }
+
+        @Override
+        protected void fill() throws IOException {
+            if (eof) throw new EOFException("Unexpected end of deflated entry");
+            len = in.read(buf, 0, buf.length);
+            if (len == -1) {
+                // Raw inflate may need one trailing dummy byte to finish the stream.
+                buf[0] = 0;
+                len = 1;
+                eof = true;
+            }
+            inf.setInput(buf, 0, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) return;
+            closed = true;
+            try {
+                super.close();
+            } finally {
+                inf.end();
+            }
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package org.levimc.launcher.core.content;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Locale;
+
+/**
+ * Reads the level.dat fixtures next to this class. survival_experiments.dat follows the layout of
+ * a 1.21 world, legacy_creative.dat has neither experiments nor a seed, and nested_decoys.dat hides
+ * same-named tags inside lists and compounds ahead of the real ones.
+ */
+public class LevelDatTest {
+    private static final String[] FIXTURES = {"survival_experiments.dat", "legacy_creative.dat", "nested_decoys.dat"};
+    private static final int TIMING_ROUNDS = 20000;
+
+    @Test
+    public void readsSurvivalWorld() throws IOException {
+        LevelDat dat = read("survival_experiments.dat");
+
+        assertEquals(10, dat.storageVersion);
+        assertEquals(0, dat.gameType);
+        assertEquals("Survival", dat.getGameModeName());
+        assertEquals(1, dat.generator);
+        assertEquals("Infinite", dat.getGeneratorName());
+        assertEquals(1760781234L, dat.lastPlayed);
+        assertTrue(dat.hasSeed);
+        assertEquals(-3456789012345678901L, dat.randomSeed);
+        assertEquals("Survival éxperiments", dat.levelName);
+        // Disabled toggles and the experiments_ever_used/saved_with_toggled_experiments bookkeeping are left out.
+        assertEquals(Arrays.asList("gametest", "upcoming_creator_features", "y_2025_drop_3"), dat.enabledExperiments);
+    }
+
+    @Test
+    public void stopsAfterExperiments() throws IOException {
+        byte[] bytes = fixture("survival_experiments.dat");
+        ByteArrayInputStream in = new ByteArrayInputStream(bytes);
+
+        LevelDat.read(in);
+
+        // lastOpenedWithVersion, lightningLevel, rainTime and world_policies are never read.
+        assertTrue(in.available() > 0);
+    }
+
+    @Test
+    public void readsLegacyWorldWithoutExperimentsOrSeed() throws IOException {
+        LevelDat dat = read("legacy_creative.dat");
+
+        assertEquals(1, dat.gameType);
+        assertEquals("Creative", dat.getGameModeName());
+        assertEquals("Flat", dat.getGeneratorName());
+        assertEquals(1500000000L, dat.lastPlayed);
+        assertEquals("Flat", dat.levelName);
+        assertFalse(dat.hasSeed);
+        assertEquals(Collections.emptyList(), dat.enabledExperiments);
+    }
+
+    @Test
+    public void skipsNestedListsAndCompounds() throws IOException {
+        LevelDat dat = read("nested_decoys.dat");
+
+        assertEquals(6, dat.gameType);
+        assertEquals("Spectator", dat.getGameModeName());
+        assertEquals(0, dat.generator);
+        assertEquals(1700000000L, dat.lastPlayed);
+        assertEquals(42L, dat.randomSeed);
+        assertEquals("Decoys", dat.levelName);
+        assertEquals(Collections.singletonList("villager_trades_rebalance"), dat.enabledExperiments);
+    }
+
+    @Test
+    public void unknownModesHaveNoName() {
+        LevelDat dat = new LevelDat();
+        dat.gameType = 5;
+        dat.generator = 9;
+        assertNull(dat.getGameModeName());
+        assertNull(dat.getGeneratorName());
+    }
+
+    @Test
+    public void truncatedInputFailsOrMatchesFullRead() throws IOException {
+        for (String name : FIXTURES) {
+            byte[] bytes = fixture(name);
+            String full = describe(LevelDat.read(new ByteArrayInputStream(bytes)));
+            for (int cut = 0; cut < bytes.length; cut++) {
+                LevelDat dat;
+                try {
+                    dat = LevelDat.read(new ByteArrayInputStream(bytes, 0, cut));
+                } catch (IOException expected) {
+                    continue;
+                }
+                // Only a cut past the point where the reader stops early may succeed.
+                assertEquals(name + " cut at " + cut, full, describe(dat));
+            }
+        }
+    }
+
+    @Test
+    public void truncatedLegacyWorldAlwaysFails() throws IOException {
+        byte[] bytes = fixture("legacy_creative.dat");
+        for (int cut = 0; cut < bytes.length; cut++) {
+            try {
+                LevelDat.read(new ByteArrayInputStream(bytes, 0, cut));
+                fail("Read succeeded with only " + cut + " of " + bytes.length + " bytes");
+            } catch (IOException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void rejectsUnknownTagType() throws IOException {
+        byte[] bytes = fixture("legacy_creative.dat");
+        // The first tag inside the root compound: header (8), root type (1), empty root name (2).
+        bytes[11] = 13;
+        try {
+            LevelDat.read(new ByteArrayInputStream(bytes));
+            fail("Expected an unknown tag type to be rejected");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage(), expected.getMessage().contains("13"));
+        }
+    }
+
+    @Test
+    public void parseTime() throws IOException {
+        byte[][] data = new byte[FIXTURES.length][];
+        for (int i = 0; i < FIXTURES.length; i++) data[i] = fixture(FIXTURES[i]);
+        for (int i = 0; i < TIMING_ROUNDS / 10; i++) {
+            for (byte[] bytes : data) LevelDat.read(new ByteArrayInputStream(bytes));
+        }
+
+        for (int i = 0; i < FIXTURES.length; i++) {
+            long start = System.nanoTime();
+            for (int r = 0; r < TIMING_ROUNDS; r++) LevelDat.read(new ByteArrayInputStream(data[i]));
+            long elapsed = System.nanoTime() - start;
+            System.out.println(String.format(Locale.ROOT, "LevelDat.read %s (%d bytes): %.2f us/read",
+                    FIXTURES[i], data[i].length, elapsed / 1e3 / TIMING_ROUNDS));
+        }
+    }
+
+    private static String describe(LevelDat dat) {
+        return dat.storageVersion + "|" + dat.gameType + "|" + dat.generator + "|" + dat.lastPlayed + "|"
+                + dat.hasSeed + "|" + dat.randomSeed + "|" + dat.levelName + "|" + dat.enabledExperiments;
+    }
+
+    private static LevelDat read(String name) throws IOException {
+        return LevelDat.read(new ByteArrayInputStream(fixture(name)));
+    }
+
+    private static byte[] fixture(String name) throws IOException {
+        try (InputStream in = LevelDatTest.class.getResourceAsStream(name)) {
+            if (in == null) throw new IOException("Missing fixture " + name);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int n;
+            while ((n = in.read(buffer)) != -1) out.write(buffer, 0, n);
+            return out.toByteArray();
+        }
+    }
+}
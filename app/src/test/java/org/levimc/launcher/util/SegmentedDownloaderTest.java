@@ -0,0 +1,244 @@
+package org.levimc.launcher.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import okhttp3.OkHttpClient;
+
+public class SegmentedDownloaderTest {
+    // Large enough for the downloader to split into four segments.
+    private static final int SIZE = 4 * 1024 * 1024 + 123;
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private final List<String> ranges = Collections.synchronizedList(new ArrayList<>());
+    private volatile byte[] content;
+    private volatile String etag = "\"v1\"";
+    private volatile boolean rangesSupported = true;
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private String url;
+
+    @Before
+    public void setUp() throws IOException {
+        content = randomBytes(1);
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/file", this::handle);
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.start();
+        url = "http://127.0.0.1:" + server.getAddress().getPort() + "/file";
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    public void splitsIntoRangeSegments() throws Exception {
+        File target = new File(tmp.getRoot(), "file.bin");
+        long[] reported = {-1, -1};
+        newDownloader().download(url, target, SIZE, sha256(content), (done, total) -> {
+            reported[0] = done;
+            reported[1] = total;
+        });
+
+        assertArrayEquals(content, Files.readAllBytes(target.toPath()));
+        assertNoLeftovers(target);
+        assertEquals(SIZE, reported[0]);
+        assertEquals(SIZE, reported[1]);
+
+        assertEquals("bytes=0-0", ranges.get(0));
+        List<long[]> segments = new ArrayList<>();
+        for (String range : ranges.subList(1, ranges.size())) segments.add(parseRange(range));
+        segments.sort((a, b) -> Long.compare(a[0], b[0]));
+        assertEquals(4, segments.size());
+        long next = 0;
+        for (long[] s : segments) {
+            assertEquals(next, s[0]);
+            next = s[1] + 1;
+        }
+        assertEquals(SIZE, next);
+    }
+
+    @Test
+    public void resumesFromSavedState() throws Exception {
+        File target = new File(tmp.getRoot(), "file.bin");
+        int half = SIZE / 2;
+        writePartial(target, "\"v1\"", half, 1000);
+
+        newDownloader().download(url, target, SIZE, sha256(content), null);
+
+        assertArrayEquals(content, Files.readAllBytes(target.toPath()));
+        assertNoLeftovers(target);
+        // No probe and no refetch of the finished segment; only the missing tail is requested.
+        assertEquals(Collections.singletonList("bytes=" + (half + 1000) + "-" + (SIZE - 1)), ranges);
+    }
+
+    @Test
+    public void restartsWhenRemoteChanged() throws Exception {
+        File target = new File(tmp.getRoot(), "file.bin");
+        writePartial(target, "\"v1\"", SIZE / 2, 1000);
+        content = randomBytes(2);
+        etag = "\"v2\"";
+
+        try {
+            newDownloader().download(url, target, SIZE, sha256(content), null);
+            fail("Expected the If-Range mismatch to abort the download");
+        } catch (IOException expected) {
+        }
+        assertFalse(target.exists());
+        assertNoLeftovers(target);
+
+        ranges.clear();
+        newDownloader().download(url, target, SIZE, sha256(content), null);
+        assertArrayEquals(content, Files.readAllBytes(target.toPath()));
+        assertEquals("bytes=0-0", ranges.get(0));
+    }
+
+    @Test
+    public void fallsBackToSingleStreamWithoutRanges() throws Exception {
+        rangesSupported = false;
+        File target = new File(tmp.getRoot(), "file.bin");
+
+        newDownloader().download(url, target, SIZE, sha256(content), null);
+
+        assertArrayEquals(content, Files.readAllBytes(target.toPath()));
+        assertNoLeftovers(target);
+        // The ignored probe, then one plain GET.
+        assertEquals(2, ranges.size());
+        assertEquals("", ranges.get(1));
+    }
+
+    @Test
+    public void rejectsSha256Mismatch() throws Exception {
+        File target = new File(tmp.getRoot(), "file.bin");
+        String wrong = String.format(Locale.ROOT, "%064d", 0);
+
+        try {
+            newDownloader().download(url, target, SIZE, wrong, null);
+            fail("Expected a SHA-256 mismatch");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage(), expected.getMessage().contains("SHA-256"));
+        }
+        assertFalse(target.exists());
+        assertNoLeftovers(target);
+    }
+
+    private SegmentedDownloader newDownloader() {
+        return new SegmentedDownloader(new OkHttpClient());
+    }
+
+    // Leaves a .part file and matching state as an interrupted two-segment download would: the
+    // first segment finished, the second stopped tailDone bytes in.
+    private void writePartial(File target, String savedEtag, int half, int tailDone) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(target.getPath() + ".part", "rw")) {
+            raf.setLength(SIZE);
+            raf.write(content, 0, half + tailDone);
+        }
+        JsonObject state = new JsonObject();
+        state.addProperty("url", url);
+        state.addProperty("size", SIZE);
+        state.addProperty("etag", savedEtag);
+        JsonArray segments = new JsonArray();
+        segments.add(segment(0, half - 1, half));
+        segments.add(segment(half, SIZE - 1, tailDone));
+        state.add("segments", segments);
+        Files.write(new File(target.getPath() + ".part.json").toPath(), state.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static JsonObject segment(long start, long end, long done) {
+        JsonObject s = new JsonObject();
+        s.addProperty("start", start);
+        s.addProperty("end", end);
+        s.addProperty("done", done);
+        return s;
+    }
+
+    private static void assertNoLeftovers(File target) {
+        assertFalse(new File(target.getPath() + ".part").exists());
+        assertFalse(new File(target.getPath() + ".part.json").exists());
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String range = exchange.getRequestHeaders().getFirst("Range");
+            String ifRange = exchange.getRequestHeaders().getFirst("If-Range");
+            byte[] body = content;
+            String currentEtag = etag;
+            ranges.add(range != null ? range : "");
+            exchange.getResponseHeaders().set("ETag", currentEtag);
+            if (rangesSupported && range != null && (ifRange == null || ifRange.equals(currentEtag))) {
+                long[] r = parseRange(range);
+                long end = Math.min(r[1], body.length - 1);
+                exchange.getResponseHeaders().set("Content-Range", "bytes " + r[0] + "-" + end + "/" + body.length);
+                exchange.sendResponseHeaders(206, end - r[0] + 1);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body, (int) r[0], (int) (end - r[0] + 1));
+                }
+            } else {
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+        } catch (IOException ignored) {
+            // The client hung up early, e.g. after an If-Range mismatch.
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static long[] parseRange(String range) {
+        String[] bounds = range.substring("bytes=".length()).split("-");
+        return new long[]{Long.parseLong(bounds[0]), Long.parseLong(bounds[1])};
+    }
+
+    private static byte[] randomBytes(long seed) {
+        byte[] bytes = new byte[SIZE];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static String sha256(byte[] data) throws Exception {
+        StringBuilder sb = new StringBuilder(64);
+        for (byte b : MessageDigest.getInstance("SHA-256").digest(data)) {
+            sb.append(String.format(Locale.ROOT, "%02x", b & 0xFF));
+        }
+        return sb.toString();
+    }
+}
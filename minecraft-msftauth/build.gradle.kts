@@ -34,4 +34,5 @@ dependencies {
     api(libs.httpclient)
     api(libs.bcprov.jdk15on)
     api(libs.okhttp)
+    testImplementation(libs.junit)
 }
\ No newline at end of file
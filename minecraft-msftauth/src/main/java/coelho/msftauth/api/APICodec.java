@@ -0,0 +1,88 @@
+package coelho.msftauth.api;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import coelho.msftauth.util.GsonUtil;
+import okhttp3.FormBody;
+import okhttp3.ResponseBody;
+
+/**
+ * Per-type encode/decode state, built once per class and reused for every request. Form bodies are
+ * written straight from the request's fields and JSON responses are read from the OkHttp source
+ * as they arrive, so neither side goes through an intermediate string.
+ */
+final class APICodec {
+    private static final Map<Class<?>, FormField[]> FORM_FIELDS = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, TypeAdapter<?>> ADAPTERS = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, Boolean> WITH_STATUS = new ConcurrentHashMap<>();
+
+    private APICodec() {
+    }
+
+    private static final class FormField {
+        final Field field;
+        final String name;
+
+        FormField(Field field, String name) {
+            this.field = field;
+            this.name = name;
+        }
+    }
+
+    /** Same fields, names and order Gson would serialize; null values are left out as Gson does. */
+    static FormBody encodeForm(Object object) {
+        FormBody.Builder form = new FormBody.Builder();
+        for (FormField f : FORM_FIELDS.computeIfAbsent(object.getClass(), APICodec::formFields)) {
+            Object value;
+            try {
+                value = f.field.get(object);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+            if (value != null) form.add(f.name, String.valueOf(value));
+        }
+        return form.build();
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> T decodeJson(ResponseBody body, Class<T> cls) throws IOException {
+        TypeAdapter<T> adapter = (TypeAdapter<T>) ADAPTERS.computeIfAbsent(cls, GsonUtil.GSON_MIN::getAdapter);
+        JsonReader reader = GsonUtil.GSON_MIN.newJsonReader(body.charStream());
+        try {
+            reader.peek();
+        } catch (EOFException e) {
+            // Empty body; Gson.fromJson would have returned null here too.
+            return null;
+        }
+        return adapter.read(reader);
+    }
+
+    static boolean expectsStatus(Class<?> cls) {
+        return WITH_STATUS.computeIfAbsent(cls, APIRequestWithStatus.class::isAssignableFrom);
+    }
+
+    private static FormField[] formFields(Class<?> cls) {
+        List<FormField> fields = new ArrayList<>();
+        for (Class<?> c = cls; c != null && c != Object.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic()) continue;
+                field.setAccessible(true);
+                SerializedName name = field.getAnnotation(SerializedName.class);
+                fields.add(new FormField(field, name != null ? name.value() : field.getName()));
+            }
+        }
+        return fields.toArray(new FormField[0]);
+    }
+}
@@ -1,14 +1,9 @@
 package coelho.msftauth.api;
 
-import com.google.gson.reflect.TypeToken;
-
 import java.io.IOException;
-import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Objects;
 
 import coelho.msftauth.util.GsonUtil;
-import okhttp3.FormBody;
 import okhttp3.MediaType;
 import okhttp3.Request.Builder;
 import okhttp3.RequestBody;
@@ -17,13 +12,7 @@ import okhttp3.Response;
 public enum APIEncoding implements APIEncodingEncode, APIEncodingDecode {
     QUERY {
         public void encode(Builder requestBuilder, Object object) {
-            Map<String, String> formMap = GsonUtil.GSON.fromJson(GsonUtil.GSON.toJson(object), new TypeToken<Map<String, String>>() {
-            }.getType());
-            FormBody.Builder formBuilder = new FormBody.Builder();
-            for (Entry<String, String> entry : formMap.entrySet()) {
-                formBuilder.add(entry.getKey(), entry.getValue());
-            }
-            requestBuilder.post(formBuilder.build());
+            requestBuilder.post(APICodec.encodeForm(object));
         }
 
         public <T> T decode(Response response, Class<T> cls) {
@@ -31,14 +20,16 @@ public enum APIEncoding implements APIEncodingEncode, APIEncodingDecode {
         }
     },
     JSON {
+        private final MediaType mediaType = MediaType.parse("application/json");
+
         public void encode(Builder requestBuilder, Object object) {
-            String json = GsonUtil.GSON.toJson(object);
+            String json = GsonUtil.GSON_MIN.toJson(object);
             requestBuilder.addHeader("Accept", "application/json");
-            requestBuilder.post(RequestBody.create(json, MediaType.parse("application/json")));
+            requestBuilder.post(RequestBody.create(json, mediaType));
         }
 
         public <T> T decode(Response response, Class<T> objectClass) throws IOException {
-            return GsonUtil.GSON.fromJson(Objects.requireNonNull(response.body()).charStream(), objectClass);
+            return APICodec.decodeJson(Objects.requireNonNull(response.body()), objectClass);
         }
     };
 }
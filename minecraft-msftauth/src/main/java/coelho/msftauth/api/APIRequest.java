@@ -9,6 +9,7 @@ import okhttp3.ResponseBody;
 
 public abstract class APIRequest<R> {
     private static final String TAG = "APIRequest";
+    private static final long MAX_LOGGED_BODY = 64 * 1024;
 
     public abstract String getHttpURL();
 
@@ -33,41 +34,30 @@ public abstract class APIRequest<R> {
         }
         applyHeader(requestBuilder);
 
-        Response response = client.newCall(requestBuilder.build()).execute();
-
-        ResponseBody body = response.body();
-        String bodyText = null;
-        try {
-            bodyText = body != null ? body.string() : null;
+        try (Response response = client.newCall(requestBuilder.build()).execute()) {
             Log.d(TAG, "Response Code: " + response.code());
-            Log.d(TAG, "Response Body: " + (bodyText != null ? bodyText : "null"));
-        } catch (Exception e) {
-            Log.e(TAG, "Error reading response body", e);
-        }
-
-        boolean contains = false;
-        for (Class<?> klass : getResponseClass().getInterfaces()) {
-            if (klass == APIRequestWithStatus.class) {
-                contains = true;
+            if (Log.isLoggable(TAG, Log.DEBUG)) {
+                // Peeking copies the body, so it only happens with APIRequest debug logging switched on.
+                Log.d(TAG, "Response Body: " + response.peekBody(MAX_LOGGED_BODY).string());
             }
-        }
-        if (contains || response.code() == 200) {
-            Response newResponse = response.newBuilder()
-                    .body(okhttp3.ResponseBody.create(bodyText, body != null ? body.contentType() : null))
-                    .build();
 
-            R decoded = getResponseEncoding().decode(newResponse, getResponseClass());
-            if (decoded instanceof APIResponseExt) {
-                ((APIResponseExt) decoded).applyResponse(newResponse);
+            Class<R> responseClass = getResponseClass();
+            if (APICodec.expectsStatus(responseClass) || response.code() == 200) {
+                R decoded = getResponseEncoding().decode(response, responseClass);
+                if (decoded instanceof APIResponseExt) {
+                    ((APIResponseExt) decoded).applyResponse(response);
+                }
+                if (decoded instanceof APIRequestWithStatus) {
+                    ((APIRequestWithStatus) decoded).setStatus(response.code());
+                }
+                return decoded;
             }
-            if (decoded instanceof APIRequestWithStatus) {
-                ((APIRequestWithStatus) decoded).setStatus(response.code());
-            }
-            return decoded;
-        }
 
-        throw new IllegalStateException("status code: " + response.code() +
-                (bodyText != null && !bodyText.isEmpty() ? "; body: " + bodyText : ""));
+            ResponseBody body = response.body();
+            String bodyText = body != null ? body.string() : null;
+            throw new IllegalStateException("status code: " + response.code() +
+                    (bodyText != null && !bodyText.isEmpty() ? "; body: " + bodyText : ""));
+        }
     }
 
     public void applyHeader(Builder requestBuilder) {
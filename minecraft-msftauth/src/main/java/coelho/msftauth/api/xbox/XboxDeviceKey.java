@@ -9,10 +9,9 @@ import android.util.Log;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigInteger;
 import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
-import java.nio.charset.StandardCharsets;
 import java.security.GeneralSecurityException;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.KeyFactory;
@@ -26,20 +25,34 @@ import java.security.interfaces.ECPublicKey;
 import java.security.spec.ECGenParameterSpec;
 import java.security.spec.PKCS8EncodedKeySpec;
 import java.security.spec.X509EncodedKeySpec;
-import java.time.Instant;
 import java.util.Arrays;
 import java.util.Base64;
 import java.util.UUID;
 
-import coelho.msftauth.util.der.DerInputStream;
-import coelho.msftauth.util.der.DerValue;
+import coelho.msftauth.util.der.DerReader;
 import okhttp3.Request;
 import okhttp3.Request.Builder;
-import okio.Buffer;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+import okio.Okio;
 
 @SuppressWarnings("FieldMayBeFinal")
 public class XboxDeviceKey {
     private static final KeyPairGenerator KEY_PAIR_GEN;
+    // P-256 coordinates and signature halves are 32 bytes.
+    private static final int COORDINATE_SIZE = 32;
+    private static final String EC_PUBLIC_KEY_OID = "1.2.840.10045.2.1";
+    private static final String P256_CURVE_OID = "1.2.840.10045.3.1.7";
+    private static final ThreadLocal<Signer> SIGNERS = new ThreadLocal<Signer>() {
+        @Override
+        protected Signer initialValue() {
+            try {
+                return new Signer();
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    };
     private final KeyPair ecKey;
     private String id;
     private final XboxProofKey proofKey;
@@ -76,11 +89,16 @@ public class XboxDeviceKey {
 
     public void sign(Builder requestBuilder) {
         try {
-            Buffer buffer = new Buffer();
-            Request tempRequest = requestBuilder.build();
-            String authHeader = tempRequest.header("Authorization");
-            tempRequest.body().writeTo(buffer);
-            requestBuilder.addHeader("Signature", sign(tempRequest.url().encodedPath(), authHeader, tempRequest.method(), buffer.readByteArray()));
+            Request request = requestBuilder.build();
+            Signer signer = signer();
+            long time = signer.begin(request.method(), request.url().encodedPath(), request.header("Authorization"));
+            RequestBody body = request.body();
+            if (body != null) {
+                BufferedSink sink = Okio.buffer(Okio.sink(signer));
+                body.writeTo(sink);
+                sink.flush();
+            }
+            requestBuilder.addHeader("Signature", signer.finish(time));
         } catch (Exception exception) {
             throw new IllegalStateException(exception);
         }
@@ -88,74 +106,155 @@ public class XboxDeviceKey {
 
     public String sign(String path, String authHeader, String requestMethod, byte[] body) {
         try {
-            byte[] auth;
-            byte[] uri = path.getBytes(StandardCharsets.US_ASCII);
-            if (authHeader == null) {
-                auth = new byte[0];
-            } else {
-                auth = authHeader.getBytes(StandardCharsets.US_ASCII);
-            }
-            byte[] method = requestMethod.getBytes(StandardCharsets.US_ASCII);
-            if (body == null) {
-                body = new byte[0];
-            }
-            long time = (Instant.now().getEpochSecond() + 11644473600L) * 10000000;
-            ByteBuffer buffer = ByteBuffer.allocate(body.length + 256);
-            buffer.order(ByteOrder.BIG_ENDIAN);
-            buffer.put(new byte[]{(byte) 0, (byte) 0, (byte) 0, (byte) 1, (byte) 0});
-            buffer.putLong(time);
-            buffer.put((byte) 0);
-            buffer.put(method);
-            buffer.put((byte) 0);
-            buffer.put(uri);
-            buffer.put((byte) 0);
-            buffer.put(auth);
-            buffer.put((byte) 0);
-            buffer.put(body);
-            buffer.put((byte) 0);
-            buffer.flip();
-            byte[] arrSignature = ecdsaSign((ECPrivateKey) this.ecKey.getPrivate(), buffer);
-            buffer = ByteBuffer.allocate(arrSignature.length + 12);
-            buffer.putInt(1);
-            buffer.putLong(time);
-            buffer.put(arrSignature);
-            buffer.rewind();
-            byte[] arrFinal = new byte[buffer.remaining()];
-            buffer.get(arrFinal);
-            return Base64.getEncoder().encodeToString(arrFinal);
+            Signer signer = signer();
+            long time = signer.begin(requestMethod, path, authHeader);
+            if (body != null) signer.write(body, 0, body.length);
+            return signer.finish(time);
         } catch (Exception exception) {
             throw new IllegalStateException(exception);
         }
     }
 
-    private static byte[] ecdsaSign(ECPrivateKey privateKey, ByteBuffer buffer) throws Exception {
-        Signature signature = Signature.getInstance("SHA256withECDSA");
-        signature.initSign(privateKey);
-        signature.update(buffer);
-        return decodeSignature(signature.sign());
+    private Signer signer() {
+        Signer signer = SIGNERS.get();
+        signer.use((ECPrivateKey) this.ecKey.getPrivate());
+        return signer;
+    }
+
+    /**
+     * One per thread: an initialized SHA256withECDSA instance plus scratch space. The signed
+     * payload (version, FILETIME, method, path, Authorization, body, each NUL-terminated) is fed
+     * to it piece by piece, so it is never assembled in memory. begin() re-initializes the
+     * instance every time, so a body that failed half-way through can't leak into the next signature.
+     */
+    private static final class Signer extends OutputStream {
+        private final Signature signature;
+        private final byte[] scratch = new byte[256];
+        private ECPrivateKey key;
+
+        Signer() throws GeneralSecurityException {
+            this.signature = Signature.getInstance("SHA256withECDSA");
+        }
+
+        void use(ECPrivateKey privateKey) {
+            this.key = privateKey;
+        }
+
+        long begin(String method, String path, String authHeader) throws GeneralSecurityException {
+            signature.initSign(key);
+            long time = (System.currentTimeMillis() / 1000 + 11644473600L) * 10000000;
+            scratch[0] = 0;
+            scratch[1] = 0;
+            scratch[2] = 0;
+            scratch[3] = 1;
+            scratch[4] = 0;
+            putLong(scratch, 5, time);
+            scratch[13] = 0;
+            signature.update(scratch, 0, 14);
+            updateAscii(method);
+            updateAscii(path);
+            updateAscii(authHeader);
+            return time;
+        }
+
+        String finish(long time) throws SignatureException {
+            signature.update((byte) 0);
+            byte[] der = signature.sign();
+            // The header is version (1), FILETIME, then the raw r || s signature.
+            byte[] header = new byte[12 + 2 * COORDINATE_SIZE];
+            header[3] = 1;
+            putLong(header, 4, time);
+            decodeSignature(der, header, 12);
+            return Base64.getEncoder().encodeToString(header);
+        }
+
+        private void updateAscii(String value) throws SignatureException {
+            int length = value != null ? value.length() : 0;
+            int off = 0;
+            while (off < length) {
+                int n = Math.min(length - off, scratch.length);
+                for (int i = 0; i < n; i++) scratch[i] = (byte) value.charAt(off + i);
+                signature.update(scratch, 0, n);
+                off += n;
+            }
+            signature.update((byte) 0);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            try {
+                signature.update((byte) b);
+            } catch (SignatureException e) {
+                throw new IOException(e);
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            try {
+                signature.update(b, off, len);
+            } catch (SignatureException e) {
+                throw new IOException(e);
+            }
+        }
+    }
+
+    private static void putLong(byte[] out, int off, long value) {
+        for (int i = 7; i >= 0; i--) {
+            out[off + i] = (byte) value;
+            value >>>= 8;
+        }
     }
 
     public static byte[] decodeSignature(byte[] sig) throws SignatureException {
+        byte[] result = new byte[2 * COORDINATE_SIZE];
+        decodeSignature(sig, result, 0);
+        return result;
+    }
+
+    /** Converts an ECDSA-Sig-Value (SEQUENCE { INTEGER r, INTEGER s }) into the fixed-width r || s form JWS uses. */
+    static void decodeSignature(byte[] sig, byte[] out, int off) throws SignatureException {
         try {
-            DerInputStream in = new DerInputStream(sig, 0, sig.length, false);
-            DerValue[] values = in.getSequence(2);
-            if (values.length == 2 && in.available() == 0) {
-                BigInteger r = values[0].getPositiveBigInteger();
-                BigInteger s = values[1].getPositiveBigInteger();
-                byte[] rBytes = trimZeroes(r.toByteArray());
-                byte[] sBytes = trimZeroes(s.toByteArray());
-                int k = Math.max(rBytes.length, sBytes.length);
-                byte[] result = new byte[(k << 1)];
-                System.arraycopy(rBytes, 0, result, k - rBytes.length, rBytes.length);
-                System.arraycopy(sBytes, 0, result, result.length - sBytes.length, sBytes.length);
-                return result;
-            }
-            throw new IOException("Invalid encoding for signature");
-        } catch (Exception e) {
+            DerReader der = new DerReader(sig);
+            DerReader values = der.readSequence();
+            der.expectEnd();
+            values.readUnsignedInteger(out, off, COORDINATE_SIZE);
+            values.readUnsignedInteger(out, off + COORDINATE_SIZE, COORDINATE_SIZE);
+            values.expectEnd();
+        } catch (IOException e) {
             throw new SignatureException("Invalid encoding for signature", e);
         }
     }
 
+    /**
+     * Whether encoded is a P-256 key: a SubjectPublicKeyInfo when isPrivate is false, otherwise a
+     * PKCS#8 PrivateKeyInfo. Both carry the same AlgorithmIdentifier; anything else in the prefs
+     * is treated as corrupt and a new key is generated instead.
+     */
+    private static boolean isP256Key(byte[] encoded, boolean isPrivate) {
+        try {
+            DerReader der = new DerReader(encoded);
+            DerReader info = der.readSequence();
+            der.expectEnd();
+            if (isPrivate && info.readInt() != 0) return false;
+            DerReader algorithm = info.readSequence();
+            if (!EC_PUBLIC_KEY_OID.equals(algorithm.readOid()) || !P256_CURVE_OID.equals(algorithm.readOid())) return false;
+            if (isPrivate) {
+                info.readOctetString();
+                // Optional [0] attributes and [1] public key; they only have to be well-formed.
+                while (info.hasRemaining()) info.skip();
+            } else {
+                ByteBuffer point = info.readBitString();
+                // Uncompressed point: 0x04 || X || Y.
+                if (point.remaining() != 1 + 2 * COORDINATE_SIZE || point.get(0) != 0x04) return false;
+                info.expectEnd();
+            }
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
     public static byte[] trimZeroes(byte[] b) {
         int i = 0;
         while (i < b.length - 1 && b[i] == (byte) 0) {
@@ -220,6 +319,9 @@ public class XboxDeviceKey {
         try {
             byte[] pubBytes = android.util.Base64.decode(pubB64, android.util.Base64.NO_WRAP | android.util.Base64.NO_PADDING | android.util.Base64.URL_SAFE);
             byte[] privBytes = android.util.Base64.decode(privB64, android.util.Base64.NO_WRAP | android.util.Base64.NO_PADDING | android.util.Base64.URL_SAFE);
+            if (!isP256Key(pubBytes, false) || !isP256Key(privBytes, true)) {
+                return null;
+            }
             java.security.KeyFactory kf = java.security.KeyFactory.getInstance("EC");
             java.security.KeyPair kp = new java.security.KeyPair(
                     kf.generatePublic(new java.security.spec.X509EncodedKeySpec(pubBytes)),
@@ -0,0 +1,203 @@
+package coelho.msftauth.util.der;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Cursor over DER-encoded bytes. Every accessor reads the element at the cursor and moves past it;
+ * constructed elements come back as a child reader over the same bytes and primitive contents as
+ * read-only slices, so walking a structure never copies it. Only definite lengths and single-byte
+ * tags are accepted, which covers the keys and signatures this library handles.
+ */
+public final class DerReader {
+    public static final int TAG_INTEGER = 0x02;
+    public static final int TAG_BIT_STRING = 0x03;
+    public static final int TAG_OCTET_STRING = 0x04;
+    public static final int TAG_NULL = 0x05;
+    public static final int TAG_OID = 0x06;
+    public static final int TAG_SEQUENCE = 0x30;
+    public static final int TAG_SET = 0x31;
+
+    private final ByteBuffer data;
+    private final int end;
+    private int pos;
+    // Set by header(): where the current element's contents start and how long they are.
+    private int contentStart;
+    private int contentLength;
+
+    public DerReader(byte[] data) {
+        this(ByteBuffer.wrap(data));
+    }
+
+    public DerReader(byte[] data, int offset, int length) {
+        this(ByteBuffer.wrap(data, offset, length));
+    }
+
+    /** Reads buffer's remaining bytes; the buffer's own position and limit are left alone. */
+    public DerReader(ByteBuffer buffer) {
+        this(buffer, buffer.position(), buffer.limit());
+    }
+
+    private DerReader(ByteBuffer data, int start, int end) {
+        this.data = data;
+        this.pos = start;
+        this.end = end;
+    }
+
+    public boolean hasRemaining() {
+        return pos < end;
+    }
+
+    /** Tag of the element at the cursor, or -1 at the end. */
+    public int peekTag() {
+        return pos < end ? data.get(pos) & 0xFF : -1;
+    }
+
+    public DerReader readSequence() throws IOException {
+        return readConstructed(TAG_SEQUENCE);
+    }
+
+    public DerReader readSet() throws IOException {
+        return readConstructed(TAG_SET);
+    }
+
+    /** A reader over the contents of the constructed element with the given tag, e.g. 0xA0 for [0]. */
+    public DerReader readConstructed(int tag) throws IOException {
+        header(tag);
+        DerReader child = new DerReader(data, contentStart, contentStart + contentLength);
+        pos = contentStart + contentLength;
+        return child;
+    }
+
+    /** INTEGER magnitude without sign padding; negative values are rejected. */
+    public ByteBuffer readUnsignedInteger() throws IOException {
+        header(TAG_INTEGER);
+        int start = contentStart;
+        int stop = contentStart + contentLength;
+        checkInteger();
+        if ((data.get(start) & 0x80) != 0) throw new IOException("DER INTEGER is negative");
+        // At most the one sign byte checkInteger() allows.
+        if (start < stop - 1 && data.get(start) == 0) start++;
+        pos = stop;
+        return slice(start, stop - start);
+    }
+
+    /** Writes the INTEGER magnitude left-padded to width bytes at out[offset]. */
+    public void readUnsignedInteger(byte[] out, int offset, int width) throws IOException {
+        ByteBuffer value = readUnsignedInteger();
+        int length = value.remaining();
+        if (length > width) throw new IOException("DER INTEGER wider than " + width + " bytes");
+        Arrays.fill(out, offset, offset + width - length, (byte) 0);
+        value.get(out, offset + width - length, length);
+    }
+
+    /** An INTEGER that fits in an int, such as a structure version. */
+    public int readInt() throws IOException {
+        header(TAG_INTEGER);
+        checkInteger();
+        if (contentLength > 4) throw new IOException("DER INTEGER does not fit in an int");
+        int value = data.get(contentStart);
+        for (int i = 1; i < contentLength; i++) value = (value << 8) | (data.get(contentStart + i) & 0xFF);
+        pos = contentStart + contentLength;
+        return value;
+    }
+
+    /** Dotted form, e.g. "1.2.840.10045.2.1". */
+    public String readOid() throws IOException {
+        header(TAG_OID);
+        int stop = contentStart + contentLength;
+        if (contentLength == 0 || (data.get(stop - 1) & 0x80) != 0) throw new IOException("DER OID is malformed");
+        StringBuilder sb = new StringBuilder(contentLength * 3);
+        long component = 0;
+        boolean first = true;
+        for (int i = contentStart; i < stop; i++) {
+            int b = data.get(i) & 0xFF;
+            if (component == 0 && b == 0x80) throw new IOException("DER OID component is not minimal");
+            component = (component << 7) | (b & 0x7F);
+            if (component > 0xFFFFFFFFL) throw new IOException("DER OID component too large");
+            if ((b & 0x80) != 0) continue;
+            if (first) {
+                int arc = component < 40 ? 0 : component < 80 ? 1 : 2;
+                sb.append(arc).append('.').append(component - 40L * arc);
+                first = false;
+            } else {
+                sb.append('.').append(component);
+            }
+            component = 0;
+        }
+        pos = stop;
+        return sb.toString();
+    }
+
+    /** BIT STRING contents after the unused-bits byte; only whole-byte strings are accepted. */
+    public ByteBuffer readBitString() throws IOException {
+        header(TAG_BIT_STRING);
+        if (contentLength == 0 || data.get(contentStart) != 0) throw new IOException("DER BIT STRING has unused bits");
+        pos = contentStart + contentLength;
+        return slice(contentStart + 1, contentLength - 1);
+    }
+
+    public ByteBuffer readOctetString() throws IOException {
+        header(TAG_OCTET_STRING);
+        pos = contentStart + contentLength;
+        return slice(contentStart, contentLength);
+    }
+
+    public void readNull() throws IOException {
+        header(TAG_NULL);
+        if (contentLength != 0) throw new IOException("DER NULL has contents");
+        pos = contentStart;
+    }
+
+    /** Steps over the element at the cursor, whatever it is. */
+    public void skip() throws IOException {
+        header(-1);
+        pos = contentStart + contentLength;
+    }
+
+    /** Fails unless every byte has been consumed, i.e. there is no trailing data. */
+    public void expectEnd() throws IOException {
+        if (pos != end) throw new IOException("Extra data at the end of DER element");
+    }
+
+    private void checkInteger() throws IOException {
+        if (contentLength == 0) throw new IOException("DER INTEGER is empty");
+        if (contentLength > 1) {
+            int first = data.get(contentStart);
+            int second = data.get(contentStart + 1) & 0x80;
+            if ((first == 0 && second == 0) || (first == -1 && second != 0)) {
+                throw new IOException("DER INTEGER has redundant leading bytes");
+            }
+        }
+    }
+
+    private ByteBuffer slice(int start, int length) {
+        ByteBuffer view = data.duplicate();
+        view.limit(start + length).position(start);
+        return view.slice().asReadOnlyBuffer();
+    }
+
+    private void header(int expectedTag) throws IOException {
+        if (pos >= end) throw new IOException("DER data ends before the next element");
+        int tag = data.get(pos) & 0xFF;
+        if (expectedTag >= 0 && tag != expectedTag) {
+            throw new IOException("DER tag 0x" + Integer.toHexString(tag) + " where 0x" + Integer.toHexString(expectedTag) + " was expected");
+        }
+        if ((tag & 0x1F) == 0x1F) throw new IOException("DER multi-byte tags are not supported");
+        int p = pos + 1;
+        if (p >= end) throw new IOException("DER length is missing");
+        int length = data.get(p++) & 0xFF;
+        if (length == 0x80) throw new IOException("DER indefinite length is not allowed");
+        if (length > 0x80) {
+            int count = length & 0x7F;
+            if (count > 4 || p + count > end) throw new IOException("DER length is malformed");
+            length = 0;
+            for (int i = 0; i < count; i++) length = (length << 8) | (data.get(p++) & 0xFF);
+            if (length < 0x80 || length >>> (8 * (count - 1)) == 0) throw new IOException("DER length is not minimal");
+        }
+        if (length < 0 || length > end - p) throw new IOException("DER length exceeds the data");
+        contentStart = p;
+        contentLength = length;
+    }
+}
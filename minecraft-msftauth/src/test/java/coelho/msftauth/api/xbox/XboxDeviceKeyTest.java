@@ -0,0 +1,136 @@
+package coelho.msftauth.api.xbox;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.lang.reflect.Constructor;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Base64;
+import java.util.Locale;
+import java.util.Random;
+
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+
+/**
+ * Checks the streaming signer against the payload layout the original implementation built in a
+ * ByteBuffer: each Signature header must verify as a raw r || s (P1363) signature over it.
+ */
+public class XboxDeviceKeyTest {
+    private static final int SIGNATURES = 2000;
+    private static final int TIMING_ROUNDS = 2000;
+
+    private static XboxDeviceKey key;
+    private static PublicKey publicKey;
+
+    @BeforeClass
+    public static void createKey() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        KeyPair kp = generator.generateKeyPair();
+        // The public constructor needs a Context for SharedPreferences.
+        Constructor<XboxDeviceKey> constructor = XboxDeviceKey.class.getDeclaredConstructor(KeyPair.class, String.class);
+        constructor.setAccessible(true);
+        key = constructor.newInstance(kp, "{test}");
+        publicKey = kp.getPublic();
+    }
+
+    @Test
+    public void signatureVerifiesOverBaselinePayload() throws Exception {
+        Random random = new Random(1);
+        String[] methods = {"GET", "POST", "PUT"};
+        for (int i = 0; i < SIGNATURES; i++) {
+            String method = methods[i % methods.length];
+            String path = "/device/authenticate/" + i;
+            String auth = i % 4 == 0 ? null : "XBL3.0 x=" + Long.toHexString(random.nextLong());
+            byte[] body = i % 5 == 0 ? null : new byte[random.nextInt(4096)];
+            if (body != null) random.nextBytes(body);
+
+            long before = fileTimeNow();
+            byte[] header = Base64.getDecoder().decode(key.sign(path, auth, method, body));
+            long after = fileTimeNow();
+            assertVerifies(header, method, path, auth, body, before, after);
+        }
+    }
+
+    @Test
+    public void requestBuilderSignatureVerifies() throws Exception {
+        byte[] body = "{\"Properties\":{}}".getBytes(StandardCharsets.UTF_8);
+        Request.Builder builder = new Request.Builder()
+                .url("https://device.auth.xboxlive.com/device/authenticate")
+                .header("Authorization", "XBL3.0 x=1;token")
+                .post(RequestBody.create(body, MediaType.get("application/json")));
+
+        long before = fileTimeNow();
+        key.sign(builder);
+        long after = fileTimeNow();
+
+        byte[] header = Base64.getDecoder().decode(builder.build().header("Signature"));
+        assertVerifies(header, "POST", "/device/authenticate", "XBL3.0 x=1;token", body, before, after);
+    }
+
+    @Test
+    public void signaturesPerSecond() {
+        byte[] body = new byte[1024];
+        new Random(2).nextBytes(body);
+        // Warm up the per-thread Signature and the JIT first.
+        for (int i = 0; i < TIMING_ROUNDS / 5; i++) key.sign("/warmup", "XBL3.0 x=1", "POST", body);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < TIMING_ROUNDS; i++) key.sign("/device/authenticate", "XBL3.0 x=1", "POST", body);
+        long elapsed = System.nanoTime() - start;
+        System.out.println(String.format(Locale.ROOT, "XboxDeviceKey.sign: %d signatures in %.1f ms, %.0f/s",
+                TIMING_ROUNDS, elapsed / 1e6, TIMING_ROUNDS * 1e9 / elapsed));
+    }
+
+    private static void assertVerifies(byte[] header, String method, String path, String auth, byte[] body,
+                                       long before, long after) throws GeneralSecurityException {
+        assertEquals(12 + 64, header.length);
+        ByteBuffer buffer = ByteBuffer.wrap(header);
+        assertEquals(1, buffer.getInt());
+        long time = buffer.getLong();
+        assertTrue(time >= before && time <= after);
+
+        Signature verifier = Signature.getInstance("SHA256withECDSAinP1363Format");
+        verifier.initVerify(publicKey);
+        verifier.update(payload(time, method, path, auth, body));
+        assertTrue(verifier.verify(header, 12, 64));
+    }
+
+    // Same layout as the ByteBuffer the signer used to build before it streamed the payload.
+    private static byte[] payload(long time, String method, String path, String auth, byte[] body) {
+        byte[] m = method.getBytes(StandardCharsets.US_ASCII);
+        byte[] p = path.getBytes(StandardCharsets.US_ASCII);
+        byte[] a = auth == null ? new byte[0] : auth.getBytes(StandardCharsets.US_ASCII);
+        byte[] b = body == null ? new byte[0] : body;
+        ByteBuffer buffer = ByteBuffer.allocate(b.length + 256 + a.length + p.length);
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        buffer.put(new byte[]{0, 0, 0, 1, 0});
+        buffer.putLong(time);
+        buffer.put((byte) 0);
+        buffer.put(m).put((byte) 0);
+        buffer.put(p).put((byte) 0);
+        buffer.put(a).put((byte) 0);
+        buffer.put(b).put((byte) 0);
+        byte[] out = new byte[buffer.position()];
+        buffer.flip();
+        buffer.get(out);
+        return out;
+    }
+
+    private static long fileTimeNow() {
+        return (System.currentTimeMillis() / 1000 + 11644473600L) * 10000000;
+    }
+}
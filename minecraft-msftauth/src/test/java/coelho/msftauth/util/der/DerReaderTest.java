@@ -0,0 +1,393 @@
+package coelho.msftauth.util.der;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.security.spec.ECGenParameterSpec;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Checks DerReader against the DerInputStream/DerValue parser it replaced, which is kept in this
+ * source set as the oracle. DerReader may reject more than the oracle did (it insists on minimal
+ * encodings and no trailing data), but whatever it accepts must decode to the same values.
+ */
+public class DerReaderTest {
+    private static final int MUTATIONS = 300;
+
+    private static final List<KeyPair> keys = new ArrayList<>();
+
+    private interface Walker {
+        List<String> walk(byte[] der);
+    }
+
+    @BeforeClass
+    public static void generateKeys() throws GeneralSecurityException {
+        KeyPairGenerator ec = KeyPairGenerator.getInstance("EC");
+        ec.initialize(new ECGenParameterSpec("secp256r1"));
+        for (int i = 0; i < 10; i++) keys.add(ec.generateKeyPair());
+        // RSA structures are long enough for 0x81/0x82 lengths and carry a high-bit modulus.
+        KeyPairGenerator rsa = KeyPairGenerator.getInstance("RSA");
+        rsa.initialize(1024);
+        for (int i = 0; i < 3; i++) keys.add(rsa.generateKeyPair());
+    }
+
+    @Test
+    public void spkiMatchesOracle() {
+        Random random = new Random(1);
+        for (KeyPair key : keys) {
+            byte[] der = key.getPublic().getEncoded();
+            assertValid(DerReaderTest::newSpki, DerReaderTest::oldSpki, der);
+            for (int i = 0; i < MUTATIONS; i++) assertAgrees(DerReaderTest::newSpki, DerReaderTest::oldSpki, mutate(der, random));
+        }
+    }
+
+    @Test
+    public void pkcs8MatchesOracle() {
+        Random random = new Random(2);
+        for (KeyPair key : keys) {
+            byte[] der = key.getPrivate().getEncoded();
+            assertValid(DerReaderTest::newPkcs8, DerReaderTest::oldPkcs8, der);
+            for (int i = 0; i < MUTATIONS; i++) assertAgrees(DerReaderTest::newPkcs8, DerReaderTest::oldPkcs8, mutate(der, random));
+        }
+    }
+
+    @Test
+    public void rsaPublicKeyMatchesOracle() throws IOException {
+        Random random = new Random(3);
+        for (KeyPair key : keys) {
+            if (!"RSA".equals(key.getPublic().getAlgorithm())) continue;
+            byte[] der = bytes(spkiKey(key.getPublic().getEncoded()));
+            assertValid(DerReaderTest::newIntegers, DerReaderTest::oldIntegers, der);
+            for (int i = 0; i < MUTATIONS; i++) assertAgrees(DerReaderTest::newIntegers, DerReaderTest::oldIntegers, mutate(der, random));
+        }
+    }
+
+    @Test
+    public void ecdsaSignaturesMatchOracle() throws GeneralSecurityException {
+        Random random = new Random(4);
+        for (KeyPair key : keys) {
+            if (!"EC".equals(key.getPrivate().getAlgorithm())) continue;
+            Signature signature = Signature.getInstance("SHA256withECDSA");
+            signature.initSign(key.getPrivate());
+            for (int i = 0; i < 50; i++) {
+                signature.update((byte) i);
+                byte[] der = signature.sign();
+                assertValid(DerReaderTest::newSignature, DerReaderTest::oldSignature, der);
+                for (int j = 0; j < 10; j++) assertAgrees(DerReaderTest::newSignature, DerReaderTest::oldSignature, mutate(der, random));
+            }
+        }
+    }
+
+    @Test
+    public void truncatedInputsAreRejected() throws GeneralSecurityException {
+        for (KeyPair key : keys) {
+            assertPrefixesRejected(DerReaderTest::newSpki, key.getPublic().getEncoded());
+            assertPrefixesRejected(DerReaderTest::newPkcs8, key.getPrivate().getEncoded());
+            if ("EC".equals(key.getPrivate().getAlgorithm())) {
+                Signature signature = Signature.getInstance("SHA256withECDSA");
+                signature.initSign(key.getPrivate());
+                assertPrefixesRejected(DerReaderTest::newSignature, signature.sign());
+            }
+        }
+    }
+
+    @Test
+    public void longFormLengths() {
+        Random random = new Random(5);
+        for (int length : new int[]{0, 1, 127, 128, 255, 256, 65535, 65536, 70000}) {
+            byte[] content = new byte[length];
+            random.nextBytes(content);
+            byte[] der = tlv(DerReader.TAG_OCTET_STRING, content);
+            assertValid(DerReaderTest::newOctetString, DerReaderTest::oldOctetString, der);
+
+            // Same element with one more length byte than needed.
+            byte[] padded = withLength(DerReader.TAG_OCTET_STRING, content, lengthBytes(length).length + 1);
+            assertNull(newOctetString(padded));
+        }
+        // More length bytes than any int can hold.
+        assertNull(newOctetString(new byte[]{0x04, (byte) 0x85, 0, 0, 0, 0, 1, 0}));
+        // Indefinite length.
+        assertNull(newOctetString(new byte[]{0x04, (byte) 0x80, 1, 0, 0}));
+    }
+
+    @Test
+    public void highBitIntegers() {
+        Random random = new Random(6);
+        for (int i = 0; i < 2000; i++) {
+            BigInteger r = randomMagnitude(random);
+            BigInteger s = randomMagnitude(random);
+            // toByteArray() is the minimal two's-complement form, so high-bit values get a 0x00 pad.
+            byte[] der = tlv(DerReader.TAG_SEQUENCE, concat(
+                    tlv(DerReader.TAG_INTEGER, r.toByteArray()), tlv(DerReader.TAG_INTEGER, s.toByteArray())));
+            assertValid(DerReaderTest::newSignature, DerReaderTest::oldSignature, der);
+        }
+
+        // 0x80 with no pad is negative.
+        assertNull(newSignature(sequenceOfIntegers(new byte[]{(byte) 0x80}, new byte[]{1})));
+        // A pad in front of a byte that doesn't need it is not minimal.
+        assertNull(newSignature(sequenceOfIntegers(new byte[]{0, 0x7F}, new byte[]{1})));
+        assertNull(newSignature(sequenceOfIntegers(new byte[]{0, 0, (byte) 0x80}, new byte[]{1})));
+        // Wider than a P-256 coordinate.
+        byte[] wide = new byte[33];
+        wide[0] = 1;
+        assertNull(newSignature(sequenceOfIntegers(wide, new byte[]{1})));
+    }
+
+    // ---- Walkers over the new reader; only IOException means "rejected" ----
+
+    private static List<String> newSpki(byte[] der) {
+        try {
+            DerReader in = new DerReader(der);
+            DerReader spki = in.readSequence();
+            in.expectEnd();
+            DerReader algorithm = spki.readSequence();
+            List<String> fields = new ArrayList<>();
+            fields.add(algorithm.readOid());
+            fields.add(hex(spki.readBitString()));
+            spki.expectEnd();
+            return fields;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static List<String> newPkcs8(byte[] der) {
+        try {
+            DerReader in = new DerReader(der);
+            DerReader info = in.readSequence();
+            in.expectEnd();
+            List<String> fields = new ArrayList<>();
+            fields.add(String.valueOf(info.readInt()));
+            fields.add(info.readSequence().readOid());
+            fields.add(hex(info.readOctetString()));
+            // Optional [0] attributes and [1] public key, as XboxDeviceKey walks them.
+            while (info.hasRemaining()) info.skip();
+            return fields;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static List<String> newIntegers(byte[] der) {
+        try {
+            DerReader in = new DerReader(der);
+            DerReader values = in.readSequence();
+            in.expectEnd();
+            List<String> fields = new ArrayList<>();
+            while (values.hasRemaining()) fields.add(new BigInteger(1, bytes(values.readUnsignedInteger())).toString(16));
+            return fields;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static List<String> newSignature(byte[] der) {
+        try {
+            DerReader in = new DerReader(der);
+            DerReader values = in.readSequence();
+            in.expectEnd();
+            byte[] out = new byte[64];
+            values.readUnsignedInteger(out, 0, 32);
+            values.readUnsignedInteger(out, 32, 32);
+            values.expectEnd();
+            return Arrays.asList(hex(out));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static List<String> newOctetString(byte[] der) {
+        try {
+            DerReader in = new DerReader(der);
+            String value = hex(in.readOctetString());
+            in.expectEnd();
+            return Arrays.asList(value);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    // ---- The same walks over the old parser; anything it throws means "rejected" ----
+
+    private static List<String> oldSpki(byte[] der) {
+        try {
+            DerValue[] spki = new DerInputStream(der).getSequence(2);
+            if (spki.length != 2) return null;
+            return Arrays.asList(spki[0].toDerInputStream().getOID().toString(), hex(spki[1].getBitString()));
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static List<String> oldPkcs8(byte[] der) {
+        try {
+            DerValue[] info = new DerInputStream(der).getSequence(3);
+            if (info.length < 3) return null;
+            return Arrays.asList(String.valueOf(info[0].getInteger()),
+                    info[1].toDerInputStream().getOID().toString(), hex(info[2].getOctetString()));
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static List<String> oldIntegers(byte[] der) {
+        try {
+            List<String> fields = new ArrayList<>();
+            for (DerValue value : new DerInputStream(der).getSequence(2)) fields.add(value.getPositiveBigInteger().toString(16));
+            return fields;
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static List<String> oldSignature(byte[] der) {
+        try {
+            DerInputStream in = new DerInputStream(der, 0, der.length, false);
+            DerValue[] values = in.getSequence(2);
+            if (values.length != 2 || in.available() != 0) return null;
+            byte[] out = new byte[64];
+            if (!putCoordinate(out, 0, values[0].getPositiveBigInteger()) || !putCoordinate(out, 32, values[1].getPositiveBigInteger())) return null;
+            return Arrays.asList(hex(out));
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static List<String> oldOctetString(byte[] der) {
+        try {
+            return Arrays.asList(hex(new DerInputStream(der).getOctetString()));
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static boolean putCoordinate(byte[] out, int offset, BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        int start = 0;
+        while (start < bytes.length - 1 && bytes[start] == 0) start++;
+        int length = bytes.length - start;
+        if (length > 32) return false;
+        System.arraycopy(bytes, start, out, offset + 32 - length, length);
+        return true;
+    }
+
+    // ---- Assertions ----
+
+    private static void assertValid(Walker newWalker, Walker oldWalker, byte[] der) {
+        List<String> expected = oldWalker.walk(der);
+        assertNotNull("oracle rejected " + hex(der), expected);
+        assertEquals(hex(der), expected, newWalker.walk(der));
+    }
+
+    private static void assertAgrees(Walker newWalker, Walker oldWalker, byte[] der) {
+        List<String> actual = newWalker.walk(der);
+        if (actual == null) return;
+        assertEquals("accepted differently: " + hex(der), oldWalker.walk(der), actual);
+    }
+
+    private static void assertPrefixesRejected(Walker walker, byte[] der) {
+        for (int length = 0; length < der.length; length++) {
+            assertNull("accepted a " + length + "-byte prefix of " + hex(der), walker.walk(Arrays.copyOf(der, length)));
+        }
+    }
+
+    // ---- Inputs ----
+
+    // Overwrites one to three bytes, and now and then cuts the input short or appends junk.
+    private static byte[] mutate(byte[] der, Random random) {
+        byte[] out = der.clone();
+        int flips = 1 + random.nextInt(3);
+        for (int i = 0; i < flips; i++) out[random.nextInt(out.length)] = (byte) random.nextInt(256);
+        switch (random.nextInt(6)) {
+            case 0:
+                return Arrays.copyOf(out, random.nextInt(out.length));
+            case 1:
+                return Arrays.copyOf(out, out.length + 1 + random.nextInt(4));
+            default:
+                return out;
+        }
+    }
+
+    private static BigInteger randomMagnitude(Random random) {
+        int bits = 1 + random.nextInt(256);
+        BigInteger value = new BigInteger(bits, random);
+        // Force the top bit of the top byte on for a good share of values so the 0x00 pad shows up.
+        if (random.nextBoolean()) value = value.setBit(((bits + 7) / 8) * 8 - 1);
+        return value;
+    }
+
+    private static ByteBuffer spkiKey(byte[] spki) throws IOException {
+        DerReader in = new DerReader(spki).readSequence();
+        in.skip();
+        return in.readBitString();
+    }
+
+    private static byte[] sequenceOfIntegers(byte[] r, byte[] s) {
+        return tlv(DerReader.TAG_SEQUENCE, concat(tlv(DerReader.TAG_INTEGER, r), tlv(DerReader.TAG_INTEGER, s)));
+    }
+
+    private static byte[] tlv(int tag, byte[] content) {
+        byte[] length = lengthBytes(content.length);
+        return withLength(tag, content, length.length);
+    }
+
+    // Encodes the length in exactly width bytes: short form when width is 1 and it fits, long form otherwise.
+    private static byte[] withLength(int tag, byte[] content, int width) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(tag);
+        if (width == 1 && content.length < 0x80) {
+            out.write(content.length);
+        } else {
+            int count = width == 1 ? 1 : width - 1;
+            out.write(0x80 | count);
+            for (int i = count - 1; i >= 0; i--) out.write(i >= 4 ? 0 : content.length >>> (8 * i));
+        }
+        out.write(content, 0, content.length);
+        return out.toByteArray();
+    }
+
+    // Length octets of the minimal encoding, including the 0x8n prefix for the long form.
+    private static byte[] lengthBytes(int length) {
+        if (length < 0x80) return new byte[]{(byte) length};
+        int count = 0;
+        for (int v = length; v != 0; v >>>= 8) count++;
+        return new byte[1 + count];
+    }
+
+    private static byte[] concat(byte[] a, byte[] b) {
+        byte[] out = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, out, a.length, b.length);
+        return out;
+    }
+
+    private static byte[] bytes(ByteBuffer buffer) {
+        byte[] out = new byte[buffer.remaining()];
+        buffer.duplicate().get(out);
+        return out;
+    }
+
+    private static String hex(ByteBuffer buffer) {
+        return hex(bytes(buffer));
+    }
+
+    private static String hex(byte[] data) {
+        StringBuilder sb = new StringBuilder(data.length * 2);
+        for (byte b : data) sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        return sb.toString();
+    }
+}
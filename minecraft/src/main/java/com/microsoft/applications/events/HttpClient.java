@@ -8,6 +8,7 @@ import android.content.pm.PackageManager;
 import android.net.ConnectivityManager;
 import android.os.Build;
 import android.provider.Settings;
+import android.util.Log;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.text.SimpleDateFormat;
@@ -61,6 +62,23 @@ public class HttpClient {
         }
     }
 
+    static class OkHttpFutureShim extends FutureTask<Boolean> {
+        private final OkHttpRequest m_request;
+
+        OkHttpFutureShim(OkHttpRequest request) {
+            super(request, true);
+            this.m_request = request;
+        }
+
+        // Interrupting the worker does not stop a blocking socket read; cancelling the call does.
+        @Override
+        public boolean cancel(boolean z) {
+            boolean cancelled = super.cancel(z);
+            this.m_request.cancel();
+            return cancelled;
+        }
+    }
+
     public HttpClient(Context context) throws PackageManager.NameNotFoundException {
         this.m_context = context;
         setCacheFilePath(System.getProperty("java.io.tmpdir"));
@@ -137,7 +155,12 @@ public class HttpClient {
     }
 
     protected ExecutorService createExecutor() {
-        return Executors.newFixedThreadPool(2);
+        return Executors.newFixedThreadPool(MAX_HTTP_THREADS);
+    }
+
+    /** Uploads go through the shared OkHttp client unless a subclass opts back into HttpURLConnection. */
+    protected boolean useOkHttp() {
+        return true;
     }
 
     public void finalize() {
@@ -157,6 +180,13 @@ public class HttpClient {
     }
 
     public FutureTask<Boolean> createTask(String str, String str2, byte[] bArr, String str3, int[] iArr, byte[] bArr2) {
+        if (useOkHttp()) {
+            try {
+                return new OkHttpFutureShim(new OkHttpRequest(this, str, str2, bArr, str3, iArr, bArr2));
+            } catch (Exception e) {
+                Log.w("MAE", "OkHttp transport unavailable, using HttpURLConnection", e);
+            }
+        }
         try {
             return new FutureShim(new Request(this, str, str2, bArr, str3, iArr, bArr2));
         } catch (Exception unused) {
@@ -5,9 +5,17 @@ import android.database.Cursor;
 import android.util.Log;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
+import androidx.sqlite.db.SupportSQLiteStatement;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
 import java.util.TreeMap;
-import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * @author <a href="https://github.com/RadiantByte">RadiantByte</a>
@@ -15,64 +23,29 @@ import java.util.concurrent.Callable;
 
 public class OfflineRoom implements AutoCloseable {
     static final /* synthetic */ boolean $assertionsDisabled = false;
+    private static final int AUTO_VACUUM_INCREMENTAL = 2;
+    // Trim evicts down to this share of the limit so the next few batches don't trigger it again.
+    private static final double TRIM_TARGET_RATIO = 0.75d;
+    private static final int TRIM_CHUNK_RECORDS = 256;
+    private static final int VACUUM_CHUNK_PAGES = 128;
+    private static final long VACUUM_PAUSE_MS = 20;
+    // Row and index overhead added to each record's payload in the running size estimate.
+    private static final long RECORD_OVERHEAD_BYTES = 64;
+    private static final String INSERT_RECORD = "INSERT OR REPLACE INTO `StorageRecord` (`id`,`tenantToken`,`latency`,`persistence`,`timestamp`,`retryCount`,`reservedUntil`,`blob`) VALUES (nullif(?, 0),?,?,?,?,?,?,?)";
     OfflineRoomDatabase m_db;
     long m_pageSize;
     StorageSettingDao m_settingDao;
     StorageRecordDao m_srDao;
+    final AtomicLong m_estimatedBytes = new AtomicLong();
+    final AtomicBoolean m_vacuumScheduled = new AtomicBoolean();
+    final ExecutorService m_vacuumExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "OfflineRoom-vacuum");
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
 
     public static native void connectContext(Context context);
 
-    class TrimTransaction implements Callable<Long> {
-        long m_byteLimit;
-        OfflineRoom m_room;
-
-        public TrimTransaction(OfflineRoom offlineRoom, long j) {
-            this.m_room = offlineRoom;
-            this.m_byteLimit = j;
-        }
-
-        protected long vacuum(long j) {
-            Cursor cursorQuery = this.m_room.m_db.query("VACUUM", null);
-            if (cursorQuery != null) {
-                cursorQuery.close();
-            }
-            long j2 = this.m_room.totalSize();
-            Log.i("MAE", String.format("Vacuum: %d before, %d after", Long.valueOf(j), Long.valueOf(j2)));
-            return j2;
-        }
-
-        @Override
-        public Long call() {
-            OfflineRoom offlineRoom = this.m_room;
-            if (offlineRoom == null || this.m_byteLimit == 0) {
-                return null;
-            }
-            long jVacuum = offlineRoom.totalSize();
-            if (jVacuum <= this.m_byteLimit) {
-                return new Long(0L);
-            }
-            try {
-                jVacuum = vacuum(jVacuum);
-            } catch (Exception e) {
-                Log.e("MAE", "Exception in VACUUM", e);
-            }
-            if (jVacuum <= this.m_byteLimit) {
-                return new Long(0L);
-            }
-            long jCeil = (long) Math.ceil((this.m_byteLimit > this.m_room.m_pageSize ? Math.max(0.25d, 1.0d - (this.m_byteLimit / jVacuum)) : 0.25d) * this.m_room.m_srDao.totalRecordCount());
-            if (jCeil <= 0) {
-                return new Long(0L);
-            }
-            long jTrim = this.m_room.m_srDao.trim(jCeil);
-            long jVacuum2 = this.m_room.totalSize();
-            if (jVacuum2 > this.m_byteLimit) {
-                jVacuum2 = vacuum(jVacuum2);
-            }
-            Log.i("MAE", String.format("Trim: dropped %d records, new size %d bytes", Long.valueOf(jTrim), Long.valueOf(jVacuum2)));
-            return new Long(jTrim);
-        }
-    }
-
     public OfflineRoom(Context context, String str) {
         RoomDatabase.Builder builderDatabaseBuilder;
         this.m_db = null;
@@ -114,14 +87,31 @@ public class OfflineRoom implements AutoCloseable {
             }
         } finally {
         }
+        if (!str.equals(":memory:")) {
+            enableIncrementalVacuum();
+        }
+        this.m_estimatedBytes.set(usedSize());
     }
 
     public long[] storeRecords(StorageRecord... storageRecordArr) {
-        return this.m_srDao.insertRecords(storageRecordArr);
+        long[] ids = this.m_srDao.insertRecords(storageRecordArr);
+        long bytes = 0;
+        for (StorageRecord record : storageRecordArr) {
+            bytes += RECORD_OVERHEAD_BYTES + (record.blob != null ? record.blob.length : 0)
+                    + (record.tenantToken != null ? record.tenantToken.length() : 0);
+        }
+        this.m_estimatedBytes.addAndGet(bytes);
+        return ids;
     }
 
     @Override
     public void close() {
+        this.m_vacuumExecutor.shutdownNow();
+        try {
+            this.m_vacuumExecutor.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
         if (this.m_db.isOpen()) {
             this.m_db.close();
         }
@@ -163,28 +153,71 @@ public class OfflineRoom implements AutoCloseable {
         }
     }
 
-    public long[] storeFromBuffersIds(int i, int[] iArr, byte[] bArr, int[] iArr2, long[] jArr) {
-        int i2;
-        StorageRecord[] storageRecordArr = new StorageRecord[i];
-        int i3 = 0;
-        for (int i4 = 0; i4 < i; i4++) {
-            int i5 = i4 * 3;
-            long j = jArr[i5];
-            int i6 = i4 * 2;
-            String str = new String(bArr, i3, iArr[i6]);
-            int i7 = i3 + iArr[i6];
-            int i8 = i6 + 1;
-            byte[] bArr2 = new byte[iArr[i8]];
-            int i9 = 0;
-            while (true) {
-                i2 = iArr[i8];
-                if (i9 < i2) {
-                    bArr2[i9] = bArr[i9 + i7];
-                    i9++;
+    /**
+     * Stores a batch packed by the native side. For record i, {@code lengths[2i]} and
+     * {@code lengths[2i + 1]} are the byte lengths of its tenant token and blob, laid out back to
+     * back in {@code bytes}; {@code ints[3i..3i+2]} are latency, persistence and retry count, and
+     * {@code longs[3i..3i+2]} are id, timestamp and reservedUntil. Rows are bound straight from
+     * these arrays into one reused insert statement inside a single transaction.
+     */
+    public long[] storeFromBuffersIds(int count, int[] lengths, byte[] bytes, int[] ints, long[] longs) {
+        long[] ids = new long[count];
+        if (count == 0) {
+            return ids;
+        }
+        this.m_estimatedBytes.addAndGet(count * RECORD_OVERHEAD_BYTES + bytes.length);
+        this.m_db.runInTransaction(() -> {
+            SupportSQLiteStatement statement = this.m_db.compileStatement(INSERT_RECORD);
+            try {
+                int offset = 0;
+                int lastTokenOffset = -1;
+                int lastTokenLength = -1;
+                String lastToken = null;
+                for (int i = 0; i < count; i++) {
+                    int tokenLength = lengths[2 * i];
+                    int blobLength = lengths[2 * i + 1];
+                    // A batch almost always carries one tenant; decode its token once.
+                    if (lastToken == null || !sameBytes(bytes, lastTokenOffset, lastTokenLength, offset, tokenLength)) {
+                        lastToken = new String(bytes, offset, tokenLength, StandardCharsets.UTF_8);
+                    }
+                    lastTokenOffset = offset;
+                    lastTokenLength = tokenLength;
+                    offset += tokenLength;
+                    byte[] blob = new byte[blobLength];
+                    System.arraycopy(bytes, offset, blob, 0, blobLength);
+                    offset += blobLength;
+
+                    statement.bindLong(1, longs[3 * i]);
+                    statement.bindString(2, lastToken);
+                    statement.bindLong(3, ints[3 * i]);
+                    statement.bindLong(4, ints[3 * i + 1]);
+                    statement.bindLong(5, longs[3 * i + 1]);
+                    statement.bindLong(6, ints[3 * i + 2]);
+                    statement.bindLong(7, longs[3 * i + 2]);
+                    statement.bindBlob(8, blob);
+                    ids[i] = statement.executeInsert();
                 }
+            } finally {
+                try {
+                    statement.close();
+                } catch (IOException e) {
+                    Log.w("MAE", "Failed to close insert statement", e);
+                }
+            }
+        });
+        return ids;
+    }
+
+    private static boolean sameBytes(byte[] bytes, int offsetA, int lengthA, int offsetB, int lengthB) {
+        if (lengthA != lengthB) {
+            return false;
+        }
+        for (int k = 0; k < lengthA; k++) {
+            if (bytes[offsetA + k] != bytes[offsetB + k]) {
+                return false;
             }
         }
-        return storeRecords(storageRecordArr);
+        return true;
     }
 
     public void storeFromBuffers(int i, int[] iArr, byte[] bArr, int[] iArr2, long[] jArr) {
@@ -198,18 +231,101 @@ public class OfflineRoom implements AutoCloseable {
         return this.m_srDao.recordCount(i);
     }
 
-    public long trim(long j) {
-        if (totalSize() <= j) {
+    /**
+     * Brings the live data under byteLimit by evicting the lowest-persistence, oldest records in
+     * short chunked deletes. The running estimate answers the common under-limit case without
+     * touching SQLite; freed pages are returned to the filesystem later by
+     * {@link #scheduleIncrementalVacuum()} rather than by rewriting the whole file.
+     */
+    public long trim(long byteLimit) {
+        if (byteLimit <= 0 || this.m_estimatedBytes.get() <= byteLimit) {
             return 0L;
         }
-        Log.i("MAE", "Start trim");
-        Long l = (Long) this.m_db.runInTransaction(new TrimTransaction(this, j));
-        if (l == null) {
-            Log.e("MAE", "Null result from trim");
+        long used = usedSize();
+        this.m_estimatedBytes.set(used);
+        if (used <= byteLimit) {
+            scheduleIncrementalVacuum();
             return 0L;
         }
-        Log.i("MAE", String.format("Dropped %d records in trim", l));
-        return l.longValue();
+        long target = (long) (byteLimit * TRIM_TARGET_RATIO);
+        long dropped = 0;
+        while (used > target) {
+            long n = this.m_srDao.trim(TRIM_CHUNK_RECORDS);
+            if (n <= 0) {
+                break;
+            }
+            dropped += n;
+            used = usedSize();
+        }
+        this.m_estimatedBytes.set(used);
+        scheduleIncrementalVacuum();
+        Log.i("MAE", String.format("Trim: dropped %d records, %d bytes in use", Long.valueOf(dropped), Long.valueOf(used)));
+        return dropped;
+    }
+
+    // Existing files were created with auto_vacuum off; switching needs one rebuild, after which
+    // free pages can be handed back a few at a time.
+    private void enableIncrementalVacuum() {
+        try {
+            if (pragmaLong("PRAGMA auto_vacuum") == AUTO_VACUUM_INCREMENTAL) {
+                return;
+            }
+            runPragma("PRAGMA auto_vacuum = INCREMENTAL");
+            runPragma("VACUUM");
+            Log.i("MAE", "Switched offline storage to incremental vacuum");
+        } catch (Exception e) {
+            Log.e("MAE", "Could not enable incremental vacuum", e);
+        }
+    }
+
+    void scheduleIncrementalVacuum() {
+        if (!this.m_vacuumScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            this.m_vacuumExecutor.execute(() -> {
+                try {
+                    long freePages;
+                    while (!Thread.currentThread().isInterrupted() && this.m_db != null
+                            && (freePages = pragmaLong("PRAGMA freelist_count")) > 0) {
+                        runPragma("PRAGMA incremental_vacuum(" + Math.min(freePages, VACUUM_CHUNK_PAGES) + ")");
+                        Thread.sleep(VACUUM_PAUSE_MS);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (Exception e) {
+                    Log.e("MAE", "Exception in incremental vacuum", e);
+                } finally {
+                    this.m_vacuumScheduled.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            this.m_vacuumScheduled.set(false);
+        }
+    }
+
+    /** Bytes held by live pages; free pages awaiting incremental vacuum are not counted. */
+    long usedSize() {
+        return (pragmaLong("PRAGMA page_count") - pragmaLong("PRAGMA freelist_count")) * this.m_pageSize;
+    }
+
+    private long pragmaLong(String sql) {
+        Cursor cursor = this.m_db.query(sql, null);
+        try {
+            return cursor.moveToFirst() ? cursor.getLong(0) : 0L;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    // Framework cursors only step the statement when rows are first counted.
+    private void runPragma(String sql) {
+        Cursor cursor = this.m_db.query(sql, null);
+        try {
+            cursor.getCount();
+        } finally {
+            cursor.close();
+        }
     }
 
     public ByTenant[] releaseRecords(long[] jArr, boolean z, long j) {
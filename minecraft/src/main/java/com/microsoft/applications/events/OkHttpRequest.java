@@ -0,0 +1,124 @@
+package com.microsoft.applications.events;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import okhttp3.Call;
+import okhttp3.ConnectionPool;
+import okhttp3.Headers;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * Upload task on a process-wide OkHttp client. Every collector request shares one connection
+ * pool, so uploads reuse warm TLS connections and multiplex over HTTP/2 where the collector
+ * offers it. Same contract as {@link Request}: the result always goes back through
+ * {@link HttpClient#dispatchCallback}, with status 0 when the request never completed.
+ */
+class OkHttpRequest implements Runnable {
+    // Bodies the SDK has not already compressed are gzipped once they are this large.
+    private static final int GZIP_MIN_BYTES = 1024;
+
+    private static volatile OkHttpClient sharedClient;
+
+    private final HttpClient m_parent;
+    private final String m_request_id;
+    private final Call m_call;
+
+    OkHttpRequest(HttpClient httpClient, String url, String method, byte[] body, String requestId, int[] headerLengths, byte[] headerBytes) throws IOException {
+        this.m_parent = httpClient;
+        this.m_request_id = requestId;
+
+        Headers.Builder headers = new Headers.Builder();
+        boolean encoded = false;
+        int offset = 0;
+        for (int i = 0; i + 1 < headerLengths.length; i += 2) {
+            String name = new String(headerBytes, offset, headerLengths[i], StandardCharsets.UTF_8);
+            offset += headerLengths[i];
+            String value = new String(headerBytes, offset, headerLengths[i + 1], StandardCharsets.UTF_8);
+            offset += headerLengths[i + 1];
+            headers.addUnsafeNonAscii(name, value);
+            if (name.equalsIgnoreCase("Content-Encoding")) encoded = true;
+        }
+
+        byte[] payload = body;
+        if (!encoded && payload.length >= GZIP_MIN_BYTES) {
+            payload = gzip(payload);
+            headers.set("Content-Encoding", "gzip");
+        }
+
+        RequestBody requestBody = null;
+        if (payload.length > 0 || requiresBody(method)) {
+            requestBody = RequestBody.create(payload, (MediaType) null);
+        }
+        okhttp3.Request request = new okhttp3.Request.Builder()
+                .url(url)
+                .headers(headers.build())
+                .method(method, requestBody)
+                .build();
+        this.m_call = client().newCall(request);
+    }
+
+    void cancel() {
+        this.m_call.cancel();
+    }
+
+    @Override
+    public void run() {
+        int status = 0;
+        String[] headers = new String[0];
+        byte[] body = new byte[0];
+        try (Response response = this.m_call.execute()) {
+            status = response.code();
+            Headers responseHeaders = response.headers();
+            headers = new String[responseHeaders.size() * 2];
+            for (int i = 0; i < responseHeaders.size(); i++) {
+                headers[2 * i] = responseHeaders.name(i);
+                headers[2 * i + 1] = responseHeaders.value(i);
+            }
+            ResponseBody responseBody = response.body();
+            if (responseBody != null) {
+                body = responseBody.bytes();
+            }
+        } catch (IOException | RuntimeException ignored) {
+        }
+        this.m_parent.dispatchCallback(this.m_request_id, status, headers, body);
+    }
+
+    private static OkHttpClient client() {
+        OkHttpClient client = sharedClient;
+        if (client == null) {
+            synchronized (OkHttpRequest.class) {
+                client = sharedClient;
+                if (client == null) {
+                    client = new OkHttpClient.Builder()
+                            .connectionPool(new ConnectionPool(4, 5, TimeUnit.MINUTES))
+                            .connectTimeout(30, TimeUnit.SECONDS)
+                            .readTimeout(60, TimeUnit.SECONDS)
+                            .writeTimeout(60, TimeUnit.SECONDS)
+                            .build();
+                    sharedClient = client;
+                }
+            }
+        }
+        return client;
+    }
+
+    private static boolean requiresBody(String method) {
+        return method.equals("POST") || method.equals("PUT") || method.equals("PATCH");
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        }
+        return out.toByteArray();
+    }
+}
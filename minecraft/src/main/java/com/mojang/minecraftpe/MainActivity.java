@@ -8,6 +8,7 @@ import android.app.Activity;
 import android.app.ActivityManager;
 import android.content.*;
 import android.content.pm.PackageManager;
+import android.content.res.AssetFileDescriptor;
 import android.content.res.AssetManager;
 import android.content.res.Configuration;
 import android.database.Cursor;
@@ -63,6 +64,9 @@ import java.lang.reflect.Method;
 import java.net.InetAddress;
 import java.net.InterfaceAddress;
 import java.net.NetworkInterface;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.*;
 import java.util.concurrent.FutureTask;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -77,6 +81,7 @@ public class MainActivity extends GameActivity implements View.OnKeyListener, Fi
     public static int RESULT_PICK_IMAGE = 1;
     static final int SAVE_FILE_RESULT_CODE = 4;
     private static final int STORAGE_PERMISSION_ID = 1;
+    private static final int COPY_BUFFER_SIZE = 256 * 1024;
     private static boolean _isPowerVr;
     private static boolean mHasStoragePermission;
     private static boolean mHasReadMediaImagesPermission;
@@ -923,12 +928,14 @@ public class MainActivity extends GameActivity implements View.OnKeyListener, Fi
     }
 
     public void copyToPickedFile(String inPath) {
-        try {
-            final FileInputStream fileInputStream = new FileInputStream(inPath);
-            final ParcelFileDescriptor.AutoCloseOutputStream autoCloseOutputStream = new ParcelFileDescriptor.AutoCloseOutputStream(mPickedFileDescriptor);
-            copyFile(fileInputStream, autoCloseOutputStream);
-            autoCloseOutputStream.close();
-            fileInputStream.close();
+        try (FileChannel in = new FileInputStream(inPath).getChannel();
+             FileChannel out = new ParcelFileDescriptor.AutoCloseOutputStream(mPickedFileDescriptor).getChannel()) {
+            long written = copyChannel(in, out);
+            // "w" does not truncate on every provider; drop the tail of a longer previous file.
+            try {
+                if (out.size() > written) out.truncate(written);
+            } catch (IOException ignored) {
+            }
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -936,27 +943,50 @@ public class MainActivity extends GameActivity implements View.OnKeyListener, Fi
     }
 
     public void copyFromPickedFile(String outPath) {
-        try {
-            final ParcelFileDescriptor.AutoCloseInputStream autoCloseInputStream = new ParcelFileDescriptor.AutoCloseInputStream(mPickedFileDescriptor);
-            final FileOutputStream fileOutputStream = new FileOutputStream(outPath);
-            copyFile(autoCloseInputStream, fileOutputStream);
-            fileOutputStream.close();
-            autoCloseInputStream.close();
+        try (FileChannel in = new ParcelFileDescriptor.AutoCloseInputStream(mPickedFileDescriptor).getChannel();
+             FileChannel out = new FileOutputStream(outPath).getChannel()) {
+            copyChannel(in, out);
         } catch (IOException e) {
             e.printStackTrace();
         }
         mPickedFileDescriptor = null;
     }
 
-    private void copyFile(@NonNull InputStream inStream, OutputStream outStream) throws IOException {
-        final byte[] bArr = new byte[1024];
-        int read = inStream.read(bArr);
-        while (read != -1) {
-            outStream.write(bArr, 0, read);
-            read = inStream.read(bArr);
+    /**
+     * Copies from the current position of in to out. Regular files go through transferTo so the
+     * kernel moves the bytes; pipes and sockets, which report no size and cannot seek, are drained
+     * through a direct buffer without ever touching the position.
+     */
+    private static long copyChannel(@NonNull FileChannel in, @NonNull FileChannel out) throws IOException {
+        long size;
+        try {
+            size = in.size();
+        } catch (IOException e) {
+            size = 0;
+        }
+        long copied = 0;
+        if (size > 0) {
+            long position = in.position();
+            while (position < size) {
+                long n = in.transferTo(position, size - position, out);
+                if (n <= 0) break;
+                position += n;
+                copied += n;
+            }
+            if (position >= size) return copied;
+            // transferTo does not move the position; pick up the rest with plain reads.
+            in.position(position);
         }
-        inStream.close();
-        outStream.close();
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(COPY_BUFFER_SIZE);
+        while (in.read(buffer) != -1) {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                copied += out.write(buffer);
+            }
+            buffer.clear();
+        }
+        return copied;
     }
 
     public byte[] getFileDataBytes(@NonNull String filename) {
@@ -971,16 +1001,27 @@ public class MainActivity extends GameActivity implements View.OnKeyListener, Fi
                 return null;
             }
 
-            try (BufferedInputStream bufferedInputStream = new BufferedInputStream(assets.open(filename))) {
-                ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-                byte[] buffer = new byte[4096]; // Лучше использовать меньший размер буфера
+            byte[] mapped = readStoredAsset(assets, filename);
+            if (mapped != null) {
+                return mapped;
+            }
 
-                int bytesRead;
-                while ((bytesRead = bufferedInputStream.read(buffer)) != -1) {
-                    byteArrayOutputStream.write(buffer, 0, bytesRead);
+            try (InputStream in = assets.open(filename)) {
+                // For assets available() is the exact remaining length, compressed or not.
+                byte[] data = new byte[Math.max(in.available(), 0)];
+                int length = 0;
+                while (true) {
+                    if (length == data.length) {
+                        int next = in.read();
+                        if (next == -1) break;
+                        data = Arrays.copyOf(data, Math.max(data.length * 2, 4096));
+                        data[length++] = (byte) next;
+                    }
+                    int n = in.read(data, length, data.length - length);
+                    if (n == -1) break;
+                    length += n;
                 }
-
-                return byteArrayOutputStream.toByteArray();
+                return length == data.length ? data : Arrays.copyOf(data, length);
             } catch (IOException e) {
                 System.err.println("Error reading file " + filename + ": " + e.getMessage());
             }
@@ -991,6 +1032,21 @@ public class MainActivity extends GameActivity implements View.OnKeyListener, Fi
         return null;
     }
 
+    /** Maps an asset that is stored uncompressed in the APK; null when it is compressed. */
+    private static byte[] readStoredAsset(@NonNull AssetManager assets, @NonNull String filename) {
+        try (AssetFileDescriptor afd = assets.openFd(filename);
+             FileChannel channel = new FileInputStream(afd.getFileDescriptor()).getChannel()) {
+            long length = afd.getLength();
+            if (length < 0 || length > Integer.MAX_VALUE) return null;
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, afd.getStartOffset(), length);
+            byte[] data = new byte[(int) length];
+            buffer.get(data);
+            return data;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
     public int[] getImageData(String filename) {
         Bitmap decodeFile = BitmapFactory.decodeFile(filename);
         if (decodeFile == null) {
@@ -2,28 +2,59 @@ package com.mojang.minecraftpe;
 
 import android.content.ContentResolver;
 import android.content.Context;
+import android.database.Cursor;
 import android.net.Uri;
+import android.os.ParcelFileDescriptor;
 import android.os.StatFs;
+import android.provider.DocumentsContract;
 import android.util.Log;
 import androidx.annotation.NonNull;
 import androidx.documentfile.provider.DocumentFile;
 
+import java.io.BufferedReader;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import kotlin.jvm.JvmStatic;
 
 
 public class WorldRecovery {
+    private static final String TAG = "WorldRecovery";
+    private static final String JOURNAL_NAME = ".migration_journal";
+    private static final int MAX_COPY_THREADS = 4;
+    private static final int COPY_BUFFER_SIZE = 256 * 1024;
+    private static final long POOL_STOP_TIMEOUT_SECONDS = 30;
+    private static final String[] CHILD_COLUMNS = {
+            DocumentsContract.Document.COLUMN_DOCUMENT_ID,
+            DocumentsContract.Document.COLUMN_DISPLAY_NAME,
+            DocumentsContract.Document.COLUMN_MIME_TYPE,
+            DocumentsContract.Document.COLUMN_SIZE,
+            DocumentsContract.Document.COLUMN_LAST_MODIFIED
+    };
+
     private ContentResolver mContentResolver;
     private Context mContext;
     private int mTotalFilesToCopy = 0;
@@ -90,48 +121,99 @@ public class WorldRecovery {
         }
     }
 
+    /**
+     * Copies the tree into {@code <dest>_temp} and swaps it in when done. Every finished file is
+     * appended to a journal inside the temp folder, so a migration that fails or is killed picks up
+     * where it stopped the next time it is started instead of copying everything again.
+     */
     public void doMigrateFolderContents(DocumentFile root, @NonNull File destFolder) {
-        ArrayList<DocumentFile> arrayList = new ArrayList<>();
+        File tmpDir = new File(destFolder + "_temp");
+        List<Entry> entries = new ArrayList<>();
         mTotalFilesToCopy = 0;
-        long bytesAvailable = 0;
         mTotalBytesRequired = 0L;
-        generateCopyFilesRecursively(arrayList, root);
-        long availableBytes = new StatFs(destFolder.getAbsolutePath()).getAvailableBytes();
-        long bytesTotal = mTotalBytesRequired;
-        if (bytesTotal >= availableBytes) {
-            nativeError("Insufficient space", bytesTotal, availableBytes);
+        try {
+            listTree(root.getUri(), DocumentsContract.getDocumentId(root.getUri()), "", entries);
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Failed to enumerate " + root.getUri(), e);
+            nativeError("Could not list source folder: " + e.getMessage(), 0L, 0L);
             return;
         }
-        String path = root.getUri().getPath();
-        String tmpDirPath = destFolder + "_temp";
-        File tmpDir = new File(tmpDirPath);
-        Iterator<DocumentFile> it = arrayList.iterator();
-        long bytesCompleted = 0;
-        int filesCompleted = 0;
-        while (it.hasNext()) {
-            DocumentFile next = it.next();
-            String dir = tmpDirPath + next.getUri().getPath().substring(path.length());
-            if (next.isDirectory()) {
-                File file2 = new File(dir);
-                if (!file2.isDirectory()) {
-                    if (!file2.mkdirs()) {
-                        nativeError("Could not create directory: " + dir, bytesAvailable, bytesAvailable);
-                        return;
-                    }
-                } else {
+
+        File journalFile = new File(tmpDir, JOURNAL_NAME);
+        Map<String, String> journal = readJournal(journalFile);
+        List<Entry> pending = new ArrayList<>();
+        long bytesAlreadyCopied = 0;
+        int filesAlreadyCopied = 0;
+        for (Entry entry : entries) {
+            if (entry.directory) {
+                File dir = new File(tmpDir, entry.path);
+                if (!dir.isDirectory() && !dir.mkdirs()) {
+                    nativeError("Could not create directory: " + dir, 0L, 0L);
+                    return;
                 }
+            } else if (entry.stamp().equals(journal.get(entry.path)) && new File(tmpDir, entry.path).length() == entry.size) {
+                bytesAlreadyCopied += entry.size;
+                filesAlreadyCopied++;
             } else {
-                String status = "Copying: " + dir;
-                filesCompleted++;
-                nativeUpdate(status, mTotalFilesToCopy, filesCompleted, mTotalBytesRequired, bytesCompleted);
-                try {
-                    writeToFile(new File(dir), mContentResolver.openInputStream(next.getUri()));
-                } catch (IOException e) {
-                    nativeError(e.getMessage(), 0L, 0L);
-                    return;
+                pending.add(entry);
+            }
+        }
+        if (!tmpDir.isDirectory() && !tmpDir.mkdirs()) {
+            nativeError("Could not create directory: " + tmpDir, 0L, 0L);
+            return;
+        }
+
+        long availableBytes = new StatFs(tmpDir.getAbsolutePath()).getAvailableBytes();
+        long bytesRemaining = mTotalBytesRequired - bytesAlreadyCopied;
+        if (bytesRemaining >= availableBytes) {
+            nativeError("Insufficient space", bytesRemaining, availableBytes);
+            return;
+        }
+
+        AtomicInteger filesCompleted = new AtomicInteger(filesAlreadyCopied);
+        AtomicLong bytesCompleted = new AtomicLong(bytesAlreadyCopied);
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(MAX_COPY_THREADS, pending.size())));
+        try (Writer journalWriter = new OutputStreamWriter(new FileOutputStream(journalFile, true), StandardCharsets.UTF_8)) {
+            List<Future<?>> futures = new ArrayList<>(pending.size());
+            for (Entry entry : pending) {
+                futures.add(pool.submit(() -> {
+                    File target = new File(tmpDir, entry.path);
+                    synchronized (this) {
+                        nativeUpdate("Copying: " + target, mTotalFilesToCopy, filesCompleted.get() + 1, mTotalBytesRequired, bytesCompleted.get());
+                    }
+                    copyDocument(entry.uri, target);
+                    synchronized (journalWriter) {
+                        journalWriter.write(entry.path + "\t" + entry.stamp() + "\n");
+                        journalWriter.flush();
+                    }
+                    filesCompleted.incrementAndGet();
+                    bytesCompleted.addAndGet(entry.size);
+                    return null;
+                }));
+            }
+            try {
+                for (Future<?> future : futures) {
+                    future.get();
                 }
+            } catch (ExecutionException | InterruptedException e) {
+                // Stop the workers here, before the journal writer is closed under them.
+                stopPool(pool);
+                throw e;
             }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            Log.w(TAG, "Migration stopped, will resume from journal", cause);
+            nativeError(cause.getMessage(), 0L, 0L);
+            return;
+        } catch (IOException | InterruptedException e) {
+            pool.shutdownNow();
+            nativeError(e.getMessage(), 0L, 0L);
+            return;
+        } finally {
+            pool.shutdown();
         }
+
+        journalFile.delete();
         if (destFolder.delete()) {
             if (tmpDir.renameTo(destFolder)) {
                 nativeComplete();
@@ -147,15 +229,103 @@ public class WorldRecovery {
         nativeError("Could not delete empty destination directory: " + destFolder.getAbsolutePath(), 0L, 0L);
     }
 
-    private void generateCopyFilesRecursively(ArrayList<DocumentFile> result, @NonNull DocumentFile root) {
-        for (DocumentFile documentFile : root.listFiles()) {
-            result.add(documentFile);
-            if (documentFile.isDirectory()) {
-                generateCopyFilesRecursively(result, documentFile);
-            } else {
-                mTotalBytesRequired += documentFile.length();
-                mTotalFilesToCopy++;
+    private static final class Entry {
+        final Uri uri;
+        final String path;
+        final boolean directory;
+        final long size;
+        final long lastModified;
+
+        Entry(Uri uri, String path, boolean directory, long size, long lastModified) {
+            this.uri = uri;
+            this.path = path;
+            this.directory = directory;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        String stamp() {
+            return size + ":" + lastModified;
+        }
+    }
+
+    // One child-documents query per directory returns names, types and sizes together, where
+    // DocumentFile would make a separate provider call for each property of each file.
+    private void listTree(Uri treeUri, String documentId, String prefix, List<Entry> out) {
+        Uri childrenUri = DocumentsContract.buildChildDocumentsUriUsingTree(treeUri, documentId);
+        List<String[]> subdirs = new ArrayList<>();
+        try (Cursor cursor = mContentResolver.query(childrenUri, CHILD_COLUMNS, null, null, null)) {
+            if (cursor == null) throw new IllegalStateException("Provider returned no cursor for " + childrenUri);
+            while (cursor.moveToNext()) {
+                String childId = cursor.getString(0);
+                String name = cursor.getString(1);
+                String path = prefix + name;
+                Uri uri = DocumentsContract.buildDocumentUriUsingTree(treeUri, childId);
+                if (DocumentsContract.Document.MIME_TYPE_DIR.equals(cursor.getString(2))) {
+                    out.add(new Entry(uri, path, true, 0, 0));
+                    subdirs.add(new String[]{childId, path + "/"});
+                } else {
+                    long size = cursor.isNull(3) ? 0 : cursor.getLong(3);
+                    long lastModified = cursor.isNull(4) ? 0 : cursor.getLong(4);
+                    out.add(new Entry(uri, path, false, size, lastModified));
+                    mTotalBytesRequired += size;
+                    mTotalFilesToCopy++;
+                }
+            }
+        }
+        for (String[] subdir : subdirs) {
+            listTree(treeUri, subdir[0], subdir[1], out);
+        }
+    }
+
+    private static void stopPool(ExecutorService pool) {
+        pool.shutdownNow();
+        try {
+            if (!pool.awaitTermination(POOL_STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                Log.w(TAG, "Copy workers did not stop in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void copyDocument(Uri uri, File target) throws IOException {
+        ParcelFileDescriptor pfd = mContentResolver.openFileDescriptor(uri, "r");
+        if (pfd == null) throw new IOException("Could not open " + uri);
+        try (FileChannel in = new ParcelFileDescriptor.AutoCloseInputStream(pfd).getChannel();
+             FileChannel out = new FileOutputStream(target).getChannel()) {
+            long size = in.size();
+            long position = 0;
+            while (position < size) {
+                long n = in.transferTo(position, size - position, out);
+                if (n <= 0) break;
+                position += n;
+            }
+            if (position < size || size == 0) {
+                // Pipes report no size and cannot seek; only reposition when transferTo got partway.
+                if (position > 0) in.position(position);
+                ByteBuffer buffer = ByteBuffer.allocateDirect(COPY_BUFFER_SIZE);
+                while (in.read(buffer) != -1) {
+                    buffer.flip();
+                    while (buffer.hasRemaining()) out.write(buffer);
+                    buffer.clear();
+                }
+            }
+        }
+    }
+
+    private static Map<String, String> readJournal(File journalFile) {
+        Map<String, String> journal = new HashMap<>();
+        if (!journalFile.isFile()) return journal;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(journalFile), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int tab = line.lastIndexOf('\t');
+                if (tab > 0) journal.put(line.substring(0, tab), line.substring(tab + 1));
             }
+        } catch (IOException e) {
+            Log.w(TAG, "Ignoring unreadable migration journal", e);
         }
+        return journal;
     }
 }